@@ -0,0 +1,59 @@
+package com.example.javafx3.benchmarks;
+
+import com.example.javafx3.EngineBenchmark;
+import com.example.javafx3.engine.SnakeSimulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Game states shared by the benchmarks
+ * The snake follows the Hamiltonian cycle of EngineBenchmark, so it never dies and
+ * every snake length can be measured in steady state.
+ */
+final class Boards {
+
+    static final int WIDTH = 60;
+    static final int HEIGHT = 32; // Must be even for the Hamiltonian cycle
+    static final long SEED = 42;
+
+    private Boards() {
+    }
+
+    /**
+     * A running game whose snake has at least the given length and lies along the cycle
+     */
+    static SnakeSimulation grownSnake(int length) {
+        return grownSnake(WIDTH, HEIGHT, length);
+    }
+
+    /**
+     * The same on a board of the given size, the height must be even
+     */
+    static SnakeSimulation grownSnake(int width, int height, int length) {
+        SnakeSimulation simulation = new SnakeSimulation(width, height, SEED);
+        simulation.start();
+
+        // Body growth stacks segments on the tail, walking the cycle unrolls them
+        while (simulation.getSnakeLength() < length) {
+            simulation.growSnake();
+        }
+        for (int i = 0; i < simulation.getSnakeLength(); i++) {
+            simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+        }
+        return simulation;
+    }
+
+    static byte[] save(SnakeSimulation simulation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        simulation.saveState(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    static void restore(SnakeSimulation simulation, byte[] state) throws IOException {
+        simulation.restoreState(new DataInputStream(new ByteArrayInputStream(state)));
+    }
+}
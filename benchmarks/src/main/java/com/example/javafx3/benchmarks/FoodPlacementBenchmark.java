@@ -0,0 +1,59 @@
+package com.example.javafx3.benchmarks;
+
+import com.example.javafx3.engine.FreeCellIndex;
+import com.example.javafx3.model.GameRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Food placement at different board fill ratios: pick a random free cell and take it,
+ * as the simulation does for food, then give it back so the fill ratio stays the same
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FoodPlacementBenchmark {
+
+    @Param({"0.0", "0.5", "0.9", "0.99"})
+    public double fillRatio;
+
+    private FreeCellIndex freeCells;
+    private RandomGenerator random;
+
+    @Setup
+    public void setUp() {
+        int cells = Boards.WIDTH * Boards.HEIGHT;
+        freeCells = new FreeCellIndex(cells);
+        freeCells.fill();
+        random = new GameRandom(Boards.SEED).stream(GameRandom.Stream.FOOD);
+
+        // Occupy random cells, like a snake spread over the board
+        int occupied = Math.min(cells - 1, (int) (cells * fillRatio));
+        for (int i = 0; i < occupied; i++) {
+            freeCells.remove(freeCells.randomCell(random));
+        }
+    }
+
+    @Benchmark
+    public int placeFood() {
+        int cell = freeCells.randomCell(random);
+        freeCells.remove(cell);
+        freeCells.add(cell);
+        return cell;
+    }
+}
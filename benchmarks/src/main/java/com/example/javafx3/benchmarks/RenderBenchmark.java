@@ -0,0 +1,129 @@
+package com.example.javafx3.benchmarks;
+
+import com.example.javafx3.EngineBenchmark;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.render.BoardRenderer;
+import com.example.javafx3.render.FramebufferRenderer;
+import com.example.javafx3.render.GameRenderer;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.WritableImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing a frame of the board, as drawGame() does, into an offscreen Canvas
+ * Each frame follows a tick, so the renderer repaints the cells the tick changed; with
+ * fullRepaint it repaints the whole board every frame instead, for comparison.
+ * The board is snapshotted into an image so the draw commands are actually rasterized.
+ * Renderers: canvas with the background on a layer of its own, not part of the frame;
+ * canvas with the background copied from a cached image; the framebuffer image.
+ * Runs on the JavaFX Application Thread, the hand-over to it is included (a few microseconds).
+ * Needs a display, run under xvfb-run on a headless machine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+
+    private static final int CELL_SIZE = 20;
+
+    @Param({"4", "512", "1536"})
+    public int snakeLength;
+
+    @Param({"layered", "single", "framebuffer"})
+    public String renderer;
+
+    @Param({"false", "true"})
+    public boolean fullRepaint;
+
+    private SnakeSimulation simulation;
+    private byte[] start;
+    private Node board;
+    private BoardRenderer boardRenderer;
+    private WritableImage image;
+
+    @Setup
+    public void setUp() throws Exception {
+        startToolkit();
+        simulation = Boards.grownSnake(snakeLength);
+        onFxThread(() -> {
+            int width = Boards.WIDTH * CELL_SIZE;
+            int height = Boards.HEIGHT * CELL_SIZE;
+            if (renderer.equals("framebuffer")) {
+                FramebufferRenderer framebuffer = new FramebufferRenderer(Boards.WIDTH, Boards.HEIGHT, CELL_SIZE);
+                board = framebuffer.getView();
+                boardRenderer = framebuffer;
+            } else {
+                Canvas canvas = new Canvas(width, height);
+                board = canvas;
+                if (renderer.equals("layered")) {
+                    Canvas background = new Canvas(width, height);
+                    boardRenderer = new GameRenderer(canvas.getGraphicsContext2D(), background.getGraphicsContext2D(), CELL_SIZE);
+                } else {
+                    boardRenderer = new GameRenderer(canvas.getGraphicsContext2D(), CELL_SIZE);
+                }
+            }
+            image = new WritableImage(width, height);
+
+            boardRenderer.draw(simulation, 1.0);
+            return null;
+        });
+        start = Boards.save(simulation);
+    }
+
+    @Benchmark
+    public WritableImage drawGame() throws Exception {
+        return onFxThread(() -> {
+            // Keep the snake near its length, the cycle feeds it on the way
+            if (simulation.getSnakeLength() > snakeLength + 32) {
+                Boards.restore(simulation, start);
+                boardRenderer.reset(simulation);
+            }
+            boardRenderer.beforeTick(simulation);
+            simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+            if (fullRepaint) {
+                boardRenderer.invalidate();
+            }
+
+            // Half way between two ticks, like most frames
+            boardRenderer.draw(simulation, 0.5);
+            return board.snapshot(null, image);
+        });
+    }
+
+    private static void startToolkit() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            Platform.startup(started::countDown);
+            Platform.setImplicitExit(false);
+        } catch (IllegalStateException e) {
+            started.countDown(); // Already started by an earlier trial in this fork
+        }
+        started.await();
+    }
+
+    private static <T> T onFxThread(Callable<T> work) throws Exception {
+        FutureTask<T> task = new FutureTask<>(work);
+        Platform.runLater(task);
+        return task.get();
+    }
+}
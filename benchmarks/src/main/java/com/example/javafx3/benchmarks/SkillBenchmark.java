@@ -0,0 +1,94 @@
+package com.example.javafx3.benchmarks;
+
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.manager.GameState;
+import com.example.javafx3.manager.SkillManager;
+import com.example.javafx3.model.EffectSet;
+import com.example.javafx3.model.SkillCard;
+import com.example.javafx3.model.SkillEffect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Skill draws and applying the effects of the active skills
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkillBenchmark {
+
+    // Skills whose activation leaves the board alone
+    private static final SkillEffect[] CONTINUOUS = {
+            SkillEffect.DOUBLE_SCORE, SkillEffect.STEEL_BODY, SkillEffect.FOOD_MAGNET,
+            SkillEffect.LUCKY_STAR, SkillEffect.GHOST_MODE, SkillEffect.SLOW_MOVEMENT
+    };
+
+    @State(Scope.Thread)
+    public static class Draw {
+        SkillManager skillManager;
+
+        @Setup
+        public void setUp() {
+            skillManager = Boards.grownSnake(64).getSkillManager();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Active {
+        @Param({"0", "1", "3"})
+        public int activeSkills;
+
+        SkillManager skillManager;
+        SkillCard skill;
+
+        @Setup
+        public void setUp() {
+            SnakeSimulation simulation = Boards.grownSnake(64);
+            GameState gameState = simulation.getGameState();
+            skillManager = simulation.getSkillManager();
+            for (SkillEffect effect : CONTINUOUS) {
+                SkillCard card = skillManager.createSkill(effect);
+                gameState.awardSkill(card);
+                if (gameState.getActiveSkills().size() < activeSkills
+                        && !skillManager.checkSkillConflicts(card).hasConflict()) {
+                    gameState.activateSkill(card);
+                }
+                skill = card;
+            }
+        }
+    }
+
+    @Benchmark
+    public SkillCard generateRandomSkill(Draw state) {
+        SkillCard skill = state.skillManager.generateRandomSkill();
+        if (skill == null) {
+            // Every skill was drawn once, start over like a new game (1 call in 16)
+            state.skillManager.reset();
+            skill = state.skillManager.generateRandomSkill();
+        }
+        return skill;
+    }
+
+    /**
+     * Rebuild the EffectSet from the active skills and push it to the game,
+     * what every activation, deactivation and expiry does
+     */
+    @Benchmark
+    public EffectSet applySkillEffects(Active state) {
+        state.skillManager.onSkillDeactivated(state.skill);
+        return state.skillManager.getEffects();
+    }
+}
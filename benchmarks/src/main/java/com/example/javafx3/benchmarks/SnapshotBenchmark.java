@@ -0,0 +1,58 @@
+package com.example.javafx3.benchmarks;
+
+import com.example.javafx3.EngineBenchmark;
+import com.example.javafx3.engine.SnakeSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saving game state: a full replay keyframe, and the per-tick rewind history
+ * recorded by a tick and undone by rewinding it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+
+    @Param({"4", "512", "1536"})
+    public int snakeLength;
+
+    private SnakeSimulation simulation;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    @Setup
+    public void setUp() {
+        simulation = Boards.grownSnake(snakeLength);
+    }
+
+    @Benchmark
+    public int saveKeyframe() throws IOException {
+        bytes.reset();
+        simulation.saveState(out);
+        return bytes.size();
+    }
+
+    @Benchmark
+    public boolean tickAndRewind() {
+        simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+        return simulation.rewindTicks(1);
+    }
+}
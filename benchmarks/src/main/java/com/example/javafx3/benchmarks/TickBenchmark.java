@@ -0,0 +1,62 @@
+package com.example.javafx3.benchmarks;
+
+import com.example.javafx3.EngineBenchmark;
+import com.example.javafx3.engine.SnakeSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulation tick, what the game loop runs per updateGame(), at growing snake lengths
+ * The cost should stay flat: collision checks are bit tests and food comes from the free-cell index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TickBenchmark {
+
+    private static final int TICKS = 1024; // Per invocation, long enough for the per-invocation setup
+
+    @Param({"4", "64", "512", "1536"})
+    public int snakeLength;
+
+    private SnakeSimulation simulation;
+    private byte[] start;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        simulation = Boards.grownSnake(snakeLength);
+        start = Boards.save(simulation);
+    }
+
+    // Start every invocation from the same board, the snake would otherwise keep growing
+    @Setup(Level.Invocation)
+    public void restore() throws IOException {
+        Boards.restore(simulation, start);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public int tick() {
+        for (int i = 0; i < TICKS; i++) {
+            simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+        }
+        return simulation.getScore();
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.javafx3.benchmarks;
+
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.render.BoardCapture;
+import com.example.javafx3.render.BoardSnapshot;
+import com.example.javafx3.render.Sprites;
+import com.example.javafx3.render.TileRasterizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rasterizing a whole frame in tiles, for the scaling with the number of workers
+ * A 400x300 board of 3 pixel cells (1200x900 pixels) holding a 100k segment snake,
+ * rasterized from one snapshot, so only the tile work is measured. The time per frame
+ * should drop close to 1/workers up to the number of cores.
+ * Sprites are plain colors, the work per pixel is the same as with the game's.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TileBenchmark {
+
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 300; // Even, for the cycle
+    private static final int CELL_SIZE = 3;
+
+    @Param({"1", "2", "4", "8"})
+    public int workers;
+
+    private TileRasterizer rasterizer;
+    private BoardSnapshot snapshot;
+    private int[] frame;
+
+    @Setup
+    public void setUp() {
+        SnakeSimulation simulation = Boards.grownSnake(WIDTH, HEIGHT, 100_000);
+        snapshot = new BoardSnapshot();
+        new BoardCapture().capture(simulation, snapshot);
+
+        int width = WIDTH * CELL_SIZE;
+        int height = HEIGHT * CELL_SIZE;
+        int[] background = new int[width * height];
+        Arrays.fill(background, 0xFF1E1E1E);
+        int[][] sprites = new int[Sprites.COUNT][CELL_SIZE * CELL_SIZE];
+        for (int sprite = 0; sprite < Sprites.COUNT; sprite++) {
+            Arrays.fill(sprites[sprite], 0xFF000000 | (sprite * 0x2F1B07 & 0xFFFFFF));
+        }
+        Arrays.fill(sprites[Sprites.GHOST_BODY], 0xB3798F9B); // Translucent, blended
+        rasterizer = new TileRasterizer(workers, CELL_SIZE, background, sprites);
+        frame = new int[width * height];
+    }
+
+    @TearDown
+    public void tearDown() {
+        rasterizer.close();
+    }
+
+    @Benchmark
+    public int[] rasterizeFrame() {
+        rasterizer.rasterize(snapshot, 1.0, frame);
+        return frame;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SimulationListener;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.model.SkillEffect;
+import com.example.javafx3.render.DirtyCells;
+
+import java.util.SplittableRandom;
+
+/**
+ * Test class for the dirty cell tracking of the board renderer
+ * Follows games frame by frame, one to a few ticks per frame, through growth, splits,
+ * teleports, rewinds and a snake crossing itself, and checks after every frame that the
+ * tracked cell states are exactly what a full repaint would draw. Then checks a frame
+ * of a long snake reports only a few cells.
+ */
+public class DirtyCellsTest {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    public static void main(String[] args) {
+        System.out.println("=== DIRTY CELLS TEST ===");
+
+        // Test 1: tracked states match a full recompute after every frame
+        System.out.println("\n=== TEST 1: INCREMENTAL MATCHES FULL ===");
+        testMatchesFull();
+
+        // Test 2: a frame of a long snake touches a few cells, not the board
+        System.out.println("\n=== TEST 2: CHANGED CELLS ONLY ===");
+        testChangedCellsOnly();
+
+        TestSupport.finish("DIRTY CELLS TEST");
+    }
+
+    private static void testMatchesFull() {
+        SnakeSimulation simulation = new SnakeSimulation(60, 32, 5);
+        simulation.setListener(SimulationListener.NONE);
+        simulation.start();
+        // Steel body lets the snake cross itself, wall passing makes the head jump across the board
+        TestSupport.activate(simulation, SkillEffect.STEEL_BODY);
+        TestSupport.activate(simulation, SkillEffect.WALL_PASSER);
+        TestSupport.activate(simulation, SkillEffect.LUCKY_STAR);
+
+        SplittableRandom random = new SplittableRandom(5);
+        DirtyCells tracked = new DirtyCells();
+        int frames = 0;
+        int fullFrames = 0;
+        int mismatches = 0;
+        for (int frame = 0; frame < 20000; frame++) {
+            int ticks = random.nextInt(4); // Some frames fall between two ticks
+            for (int i = 0; i < ticks && !simulation.isGameOver(); i++) {
+                Direction turn = random.nextInt(4) == 0 ? DIRECTIONS[random.nextInt(DIRECTIONS.length)] : null;
+                simulation.step(turn);
+            }
+            switch (random.nextInt(400)) {
+                case 0: simulation.growSnake(); break;
+                case 1: simulation.shrinkSnake(); break;
+                case 2: simulation.teleportSnake(); break;
+                case 3: simulation.rewindTicks(1 + random.nextInt(100)); break;
+                case 4: TestSupport.activate(simulation, SkillEffect.GHOST_MODE); break;
+                default: break;
+            }
+            if (simulation.isGameOver()) {
+                simulation.reset();
+                simulation.start();
+                TestSupport.activate(simulation, SkillEffect.STEEL_BODY);
+                TestSupport.activate(simulation, SkillEffect.WALL_PASSER);
+            }
+
+            if (tracked.update(simulation)) {
+                fullFrames++;
+            }
+            frames++;
+            DirtyCells reference = new DirtyCells();
+            reference.update(simulation);
+            for (int cell = 0; cell < 60 * 32; cell++) {
+                if (tracked.getState(cell) != reference.getState(cell)) {
+                    if (mismatches++ == 0) {
+                        System.out.println("First mismatch at frame " + frame + ", tick " + simulation.getTick()
+                                + ": cell " + cell + " tracked " + tracked.getState(cell)
+                                + ", expected " + reference.getState(cell));
+                    }
+                }
+            }
+        }
+        System.out.println(frames + " frames, " + fullFrames + " full repaints, " + mismatches + " cell mismatches");
+        TestSupport.check("every frame matches a full repaint", mismatches == 0);
+        TestSupport.check("most frames are incremental", fullFrames < frames / 20);
+    }
+
+    private static void testChangedCellsOnly() {
+        SnakeSimulation simulation = new SnakeSimulation(60, 32, 42);
+        simulation.setListener(SimulationListener.NONE);
+        simulation.start();
+        TestSupport.growAlongCycle(simulation, 512);
+
+        DirtyCells tracked = new DirtyCells();
+        tracked.update(simulation);
+        int frames = 0;
+        int fullFrames = 0;
+        long dirtyCells = 0;
+        int maxDirty = 0;
+        for (int i = 0; i < 2000 && !simulation.isGameOver(); i++) {
+            simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+            if (tracked.update(simulation)) {
+                fullFrames++;
+            }
+            frames++;
+            dirtyCells += tracked.getDirtyCount();
+            maxDirty = Math.max(maxDirty, tracked.getDirtyCount());
+        }
+        System.out.printf("Snake of %d: %d frames, %.1f cells per frame on average, %d at most%n",
+                simulation.getSnakeLength(), frames, (double) dirtyCells / frames, maxDirty);
+        TestSupport.check("no full repaints", fullFrames == 0);
+        // Head, neck, tail, food and a segment per band boundary crossed
+        TestSupport.check("a few cells per frame", (double) dirtyCells / frames < 24);
+    }
+}
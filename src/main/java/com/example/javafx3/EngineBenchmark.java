@@ -0,0 +1,84 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Benchmark for the headless simulation engine
+ * Measures the cost of one tick at growing snake lengths, it should stay flat
+ * because collision checks are bit tests on the occupancy grid and food placement
+ * picks directly from the free-cell index
+ */
+public class EngineBenchmark {
+
+    private static final int GRID_WIDTH = 60;
+    private static final int GRID_HEIGHT = 32; // Must be even for the Hamiltonian cycle
+    private static final int WARMUP_TICKS = 20_000;
+    private static final int MEASURED_TICKS = 200_000;
+
+    public static void main(String[] args) {
+        System.out.println("=== ENGINE TICK BENCHMARK ===");
+        System.out.println("Board: " + GRID_WIDTH + "x" + GRID_HEIGHT);
+
+        int cells = GRID_WIDTH * GRID_HEIGHT;
+        double[] fillRatios = {0.0, 0.05, 0.25, 0.50, 0.75, 0.90};
+
+        // Warm up the JIT on a short snake first
+        measureTickCost(3, WARMUP_TICKS);
+
+        System.out.println("\nLength   Fill    Ticks   ns/tick");
+        for (double fill : fillRatios) {
+            int targetLength = Math.max(3, (int) (cells * fill));
+            measureTickCost(targetLength, WARMUP_TICKS);
+            long[] result = measureTickCost(targetLength, MEASURED_TICKS);
+            double nsPerTick = result[1] == 0 ? 0 : (double) result[0] / result[1];
+            System.out.printf("%6d  %4.0f%%  %7d  %8.1f%n", targetLength, fill * 100, result[1], nsPerTick);
+        }
+
+        System.out.println("\n=== ENGINE TICK BENCHMARK COMPLETED ===");
+    }
+
+    /**
+     * Grow a snake to the target length, then time ticks while it follows the cycle.
+     * The game may be won before all ticks ran, so the measured tick count is returned too.
+     *
+     * @return {elapsed nanoseconds, measured ticks}
+     */
+    private static long[] measureTickCost(int targetLength, int ticks) {
+        SnakeSimulation simulation = new SnakeSimulation(GRID_WIDTH, GRID_HEIGHT);
+        simulation.start();
+        TestSupport.growAlongCycle(simulation, targetLength);
+
+        int measured = 0;
+        long start = System.nanoTime();
+        while (measured < ticks && !simulation.isGameOver()) {
+            simulation.step(nextCycleDirection(simulation));
+            measured++;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return new long[]{elapsed, measured};
+    }
+
+    /**
+     * Direction along a Hamiltonian cycle of the board: zig-zag over columns 1..W-1,
+     * then back up column 0. The start position heading right already lies on it,
+     * so the snake never collides as long as it is shorter than the board.
+     * The board height must be even.
+     */
+    public static Direction nextCycleDirection(SnakeSimulation simulation) {
+        int x = simulation.cellX(simulation.getBody().head());
+        int y = simulation.cellY(simulation.getBody().head());
+
+        if (x == 0) {
+            return y == 0 ? Direction.RIGHT : Direction.UP;
+        }
+        if (y % 2 == 0) {
+            return x < simulation.getGridWidth() - 1 ? Direction.RIGHT : Direction.DOWN;
+        }
+        if (x > 1) {
+            return Direction.LEFT;
+        }
+        return y == simulation.getGridHeight() - 1 ? Direction.LEFT : Direction.DOWN;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SimulationListener;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.model.SkillEffect;
+import com.example.javafx3.render.PixelBoardRenderer;
+import com.example.javafx3.render.Sprites;
+import com.example.javafx3.render.TileBoardRenderer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Test class for the framebuffer renderer, without JavaFX
+ * Draws games frame by frame, repainting only the changed cells, and checks every frame
+ * is pixel for pixel what a full repaint draws, sliding head and tail included, and
+ * that frames rasterized in tiles on worker threads are the same too. Then
+ * times frames of a board with over 100k occupied cells against the 60 FPS budget.
+ * Sprites are plain colors here, translucent for the ghost segment as in the game.
+ */
+public class FramebufferTest {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final long FRAME_NANOS = 16_000_000;
+    private static final int FULL_WARMUP = 10;
+    private static final int FULL_REPAINTS = 11;
+    private static final int INCREMENTAL_FRAMES = 1000;
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        System.out.println("=== FRAMEBUFFER TEST ===");
+
+        // Test 1: incremental and tiled frames match full repaints
+        System.out.println("\n=== TEST 1: INCREMENTAL AND TILED MATCH FULL ===");
+        testMatchesFull();
+
+        // Test 2: a frame of a huge board fits in a 60 FPS frame
+        System.out.println("\n=== TEST 2: 100K OCCUPIED CELLS ===");
+        testHugeBoard();
+
+        TestSupport.finish("FRAMEBUFFER TEST");
+    }
+
+    private static void testMatchesFull() {
+        int width = 40;
+        int height = 24;
+        int cellSize = 6;
+        SnakeSimulation simulation = new SnakeSimulation(width, height, 3);
+        simulation.setListener(SimulationListener.NONE);
+        simulation.start();
+        TestSupport.activate(simulation, SkillEffect.STEEL_BODY);
+        TestSupport.activate(simulation, SkillEffect.WALL_PASSER);
+        TestSupport.activate(simulation, SkillEffect.LUCKY_STAR);
+
+        int[] background = background(width * cellSize, height * cellSize, cellSize);
+        int[][] sprites = sprites(cellSize);
+        PixelBoardRenderer incremental = renderer(width, height, cellSize, background, sprites);
+        PixelBoardRenderer full = renderer(width, height, cellSize, background, sprites);
+        // Tiles of 32 cells, so the board is split unevenly, with one and several workers
+        TileBoardRenderer[] tiled = {
+                new TileBoardRenderer(width, height, cellSize, background, sprites, 1),
+                new TileBoardRenderer(width, height, cellSize, background, sprites, 3)
+        };
+
+        SplittableRandom random = new SplittableRandom(3);
+        int frames = 0;
+        int mismatches = 0;
+        int tiledMismatches = 0;
+        for (int frame = 0; frame < 5000; frame++) {
+            int ticks = random.nextInt(3);
+            for (int i = 0; i < ticks && !simulation.isGameOver(); i++) {
+                incremental.beforeTick(simulation);
+                full.beforeTick(simulation);
+                for (TileBoardRenderer renderer : tiled) {
+                    renderer.beforeTick(simulation);
+                }
+                simulation.step(random.nextInt(4) == 0 ? DIRECTIONS[random.nextInt(DIRECTIONS.length)] : null);
+            }
+            switch (random.nextInt(300)) {
+                case 0: simulation.teleportSnake(); break;
+                case 1: simulation.growSnake(); break;
+                case 2: TestSupport.activate(simulation, SkillEffect.GHOST_MODE); break;
+                case 3:
+                    simulation.rewindTicks(1 + random.nextInt(50));
+                    incremental.reset(simulation);
+                    full.reset(simulation);
+                    for (TileBoardRenderer renderer : tiled) {
+                        renderer.reset(simulation);
+                    }
+                    break;
+                default: break;
+            }
+            if (simulation.isGameOver()) {
+                simulation.reset();
+                simulation.start();
+                TestSupport.activate(simulation, SkillEffect.STEEL_BODY);
+                TestSupport.activate(simulation, SkillEffect.WALL_PASSER);
+                incremental.reset(simulation);
+                full.reset(simulation);
+                for (TileBoardRenderer renderer : tiled) {
+                    renderer.reset(simulation);
+                }
+            }
+
+            double alpha = random.nextInt(8) == 0 ? 1.0 : random.nextDouble();
+            incremental.draw(simulation, alpha);
+            full.invalidate();
+            full.draw(simulation, alpha);
+            frames++;
+            if (!incremental.getPixels().equals(full.getPixels()) && mismatches++ == 0) {
+                System.out.println("First mismatch at frame " + frame + ", tick " + simulation.getTick());
+            }
+            for (TileBoardRenderer renderer : tiled) {
+                renderer.drawAndWait(simulation, alpha);
+                if (!IntBuffer.wrap(renderer.getFrame()).equals(full.getPixels()) && tiledMismatches++ == 0) {
+                    System.out.println("First tiled mismatch at frame " + frame + " with " + renderer.getWorkers() + " workers");
+                }
+            }
+        }
+        for (TileBoardRenderer renderer : tiled) {
+            renderer.close();
+        }
+        System.out.println(frames + " frames, " + mismatches + " differ from a full repaint, "
+                + tiledMismatches + " tiled frames differ");
+        TestSupport.check("every frame matches a full repaint", mismatches == 0);
+        TestSupport.check("every tiled frame matches a full repaint", tiledMismatches == 0);
+    }
+
+    private static void testHugeBoard() {
+        int width = 400;
+        int height = 300; // Even, for the cycle
+        int cellSize = 3;
+        SnakeSimulation simulation = new SnakeSimulation(width, height, 42);
+        simulation.setListener(SimulationListener.NONE);
+        simulation.start();
+        TestSupport.growAlongCycle(simulation, 100_000);
+
+        PixelBoardRenderer renderer = renderer(width, height, cellSize,
+                background(width * cellSize, height * cellSize, cellSize), sprites(cellSize));
+        // Full repaints are timed after warm-up, the best of them is checked; one slow
+        // repaint (GC, another process) is no failure
+        for (int i = 0; i < FULL_WARMUP; i++) {
+            renderer.invalidate();
+            renderer.draw(simulation, 1.0);
+        }
+        long[] fullTimes = new long[FULL_REPAINTS];
+        for (int i = 0; i < FULL_REPAINTS; i++) {
+            renderer.invalidate();
+            long start = THREAD_BEAN.getCurrentThreadCpuTime();
+            renderer.draw(simulation, 1.0);
+            fullTimes[i] = THREAD_BEAN.getCurrentThreadCpuTime() - start;
+        }
+        Arrays.sort(fullTimes);
+        // Incremental frames are checked at the 99th percentile, a GC pause in one frame is no failure
+        long[] frameTimes = new long[INCREMENTAL_FRAMES];
+        long total = 0;
+        int frames = 0;
+        for (int i = 0; i < INCREMENTAL_FRAMES && !simulation.isGameOver(); i++) {
+            renderer.beforeTick(simulation);
+            simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+            renderer.clearDirtyRegion();
+            long start = THREAD_BEAN.getCurrentThreadCpuTime();
+            renderer.draw(simulation, 0.5);
+            long elapsed = THREAD_BEAN.getCurrentThreadCpuTime() - start;
+            frameTimes[frames++] = elapsed;
+            total += elapsed;
+        }
+        Arrays.sort(frameTimes, 0, frames);
+        long p99 = frameTimes[frames * 99 / 100];
+        System.out.printf("%d occupied cells, %dx%d pixels: full repaint %.2f ms best, %.2f ms median, %.2f ms at most;"
+                        + " frames %.3f ms on average, %.2f ms p99, %.2f ms at most%n",
+                simulation.getOccupancy().getOccupiedCells(), renderer.getWidth(), renderer.getHeight(),
+                fullTimes[0] / 1e6, fullTimes[FULL_REPAINTS / 2] / 1e6, fullTimes[FULL_REPAINTS - 1] / 1e6,
+                total / 1e6 / frames, p99 / 1e6, frameTimes[frames - 1] / 1e6);
+        TestSupport.check("over 100k occupied cells", simulation.getOccupancy().getOccupiedCells() > 100_000);
+        TestSupport.check("full repaint within a frame", fullTimes[0] < FRAME_NANOS);
+        TestSupport.check("incremental frames within a frame", p99 < FRAME_NANOS);
+    }
+
+    static PixelBoardRenderer renderer(int width, int height, int cellSize, int[] background, int[][] sprites) {
+        IntBuffer pixels = IntBuffer.allocate(width * height * cellSize * cellSize);
+        return new PixelBoardRenderer(width, height, cellSize, pixels, background, sprites);
+    }
+
+    // Dark board with lighter grid lines, premultiplied ARGB like the game's
+    static int[] background(int width, int height, int cellSize) {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = x % cellSize == 0 || y % cellSize == 0 ? 0xFF323232 : 0xFF1E1E1E;
+            }
+        }
+        return pixels;
+    }
+
+    // A color per sprite with a black border, the ghost segment 70% opaque
+    static int[][] sprites(int cellSize) {
+        int[][] sprites = new int[Sprites.COUNT][cellSize * cellSize];
+        for (int sprite = 0; sprite < Sprites.COUNT; sprite++) {
+            int color = 0xFF000000 | (sprite * 0x2F1B07 & 0xFFFFFF);
+            if (sprite == Sprites.GHOST_BODY) {
+                color = 0xB3798F9B; // rgb(173, 216, 230) at 0.7, premultiplied
+            }
+            Arrays.fill(sprites[sprite], color);
+            for (int i = 0; i < cellSize; i++) {
+                sprites[sprite][i] = 0xFF000000;
+                sprites[sprite][(cellSize - 1) * cellSize + i] = 0xFF000000;
+            }
+        }
+        return sprites;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.FixedStepLoop;
+import com.example.javafx3.engine.InputBuffer;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.manager.GameState;
+import com.example.javafx3.model.SkillCard;
+import com.example.javafx3.model.SkillEffect;
+import com.example.javafx3.render.BoardCapture;
+import com.example.javafx3.render.BoardSnapshot;
+
+import java.util.List;
+
+/**
+ * What the game window shows for one state of the simulation
+ * The board and the texts around it, filled on the simulation thread after each tick and
+ * handed to the JavaFX Application Thread through a TripleBuffer, so drawing never reads
+ * the simulation while it changes. Frames are reused, only the UI thread reads a
+ * published one.
+ */
+class GameFrame {
+
+    private static final SkillEffect[] SKILL_EFFECTS = SkillEffect.values();
+
+    private final BoardSnapshot board = new BoardSnapshot();
+    private long tick;
+    private int score;
+    private boolean running;
+    private boolean gameOver;
+    private Direction direction = Direction.RIGHT;
+    private final Direction[] buffered = new Direction[SnakeGameWSAD.BUFFER_SIZE];
+    private int bufferedCount;
+
+    // Inputs applied so far and the key press time of the last one, for the key-to-screen latency
+    private long appliedInputs;
+    private long appliedPressNanos;
+
+    // Skills, active ones as effect ordinals and remaining seconds; the texts are made on the UI thread
+    private final byte[] activeEffects = new byte[GameState.getMaxSkills()];
+    private final int[] activeRemainingSeconds = new int[GameState.getMaxSkills()];
+    private int activeCount;
+    private boolean timeFreeze;
+    private boolean scoreFrenzy;
+    private int comboMultiplier;
+    private double skillProgress;
+    private int pointsToNextSkill;
+
+    // When the next tick is due, for interpolating between ticks
+    private long nextTickNanos;
+    private long stepNanos = 1;
+
+    void capture(SnakeSimulation simulation, BoardCapture capture, InputBuffer directionBuffer,
+                 long appliedInputs, long appliedPressNanos, FixedStepLoop loop, long nowNanos) {
+        capture.capture(simulation, board);
+        tick = simulation.getTick();
+        score = simulation.getScore();
+        running = simulation.isRunning();
+        gameOver = simulation.isGameOver();
+        direction = simulation.getCurrentDirection();
+        bufferedCount = Math.min(directionBuffer.size(), buffered.length);
+        for (int i = 0; i < bufferedCount; i++) {
+            buffered[i] = directionBuffer.get(i);
+        }
+        this.appliedInputs = appliedInputs;
+        this.appliedPressNanos = appliedPressNanos;
+
+        GameState gameState = simulation.getGameState();
+        activeCount = 0;
+        List<SkillCard> active = gameState.getActiveSkills();
+        for (int i = 0; i < active.size() && activeCount < activeEffects.length; i++) {
+            SkillCard skill = active.get(i);
+            if (skill.isActive()) {
+                activeEffects[activeCount] = (byte) skill.getSkillEffect().ordinal();
+                activeRemainingSeconds[activeCount] = skill.getRemainingDuration();
+                activeCount++;
+            }
+        }
+        timeFreeze = simulation.isTimeFreezeEnabled();
+        scoreFrenzy = simulation.isScoreFrenzyEnabled();
+        comboMultiplier = gameState.getComboMultiplier();
+        skillProgress = gameState.getSkillProgress();
+        pointsToNextSkill = gameState.getPointsToNextSkill();
+
+        stepNanos = simulation.getTickIntervalNanos();
+        nextTickNanos = nowNanos + loop.getNanosToNextTick(stepNanos);
+    }
+
+    /**
+     * Fraction of the way from the previous tick to this frame's at the given time, in [0, 1]
+     */
+    double getAlpha(long nowNanos) {
+        double remaining = (double) (nextTickNanos - nowNanos) / stepNanos;
+        return Math.max(0, Math.min(1, 1 - remaining));
+    }
+
+    BoardSnapshot getBoard() { return board; }
+    long getTick() { return tick; }
+    int getScore() { return score; }
+    boolean isRunning() { return running; }
+    boolean isGameOver() { return gameOver; }
+    Direction getDirection() { return direction; }
+    int getBufferedCount() { return bufferedCount; }
+    Direction getBuffered(int i) { return buffered[i]; }
+    long getAppliedInputs() { return appliedInputs; }
+    long getAppliedPressNanos() { return appliedPressNanos; }
+    long getStepNanos() { return stepNanos; }
+    int getActiveCount() { return activeCount; }
+    SkillEffect getActiveEffect(int i) { return SKILL_EFFECTS[activeEffects[i]]; }
+    /** Seconds left of the i-th active skill, -1 if it does not run out */
+    int getActiveRemainingSeconds(int i) { return activeRemainingSeconds[i]; }
+    boolean isTimeFreeze() { return timeFreeze; }
+    boolean isScoreFrenzy() { return scoreFrenzy; }
+    int getComboMultiplier() { return comboMultiplier; }
+    double getSkillProgress() { return skillProgress; }
+    int getPointsToNextSkill() { return pointsToNextSkill; }
+}
@@ -0,0 +1,92 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.FixedStepLoop;
+import com.example.javafx3.engine.TickJitterStats;
+
+import java.util.Random;
+
+/**
+ * Test class for the fixed-timestep game loop
+ * Feeds the loop with simulated 60 Hz frame pulses (with jitter and hitches) and checks
+ * that tick rates above the frame rate are honored exactly and catch-up stays bounded
+ */
+public class GameLoopTest {
+
+    private static final long FRAME_NANOS = 16_666_667L; // 60 Hz
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    public static void main(String[] args) {
+        System.out.println("=== FIXED-STEP GAME LOOP TEST ===");
+
+        // Test 1: 200 ticks/s on a 60 Hz display
+        System.out.println("\n=== TEST 1: TICKS FASTER THAN FRAMES ===");
+        testTickRate(5_000_000L, 10);
+
+        // Test 2: 20 ticks/s, the slowest regular game speed
+        System.out.println("\n=== TEST 2: TICKS SLOWER THAN FRAMES ===");
+        testTickRate(50_000_000L, 10);
+
+        // Test 3: a long hitch must not fast-forward the game
+        System.out.println("\n=== TEST 3: BOUNDED CATCH-UP ===");
+        testBoundedCatchUp();
+
+        // Test 4: stopping mid-frame resets the accumulator
+        System.out.println("\n=== TEST 4: PAUSE DOES NOT CATCH UP ===");
+        testPauseResets();
+
+        TestSupport.finish("FIXED-STEP GAME LOOP TEST");
+    }
+
+    private static void testTickRate(long stepNanos, int seconds) {
+        FixedStepLoop loop = new FixedStepLoop();
+        Random random = new Random(42);
+        long[] ticks = {0};
+        FixedStepLoop.Ticker ticker = () -> { ticks[0]++; return true; };
+
+        // Frames arrive every ~16.7 ms with up to 2 ms of jitter
+        long start = 1_000_000L;
+        long end = start + seconds * SECOND_NANOS;
+        loop.advance(start, () -> stepNanos, ticker);
+        for (long frame = start + FRAME_NANOS; frame < end; frame += FRAME_NANOS) {
+            long now = frame + (long) (random.nextGaussian() * 1_000_000L);
+            loop.advance(now, () -> stepNanos, ticker);
+        }
+        loop.advance(end, () -> stepNanos, ticker);
+
+        long expected = seconds * SECOND_NANOS / stepNanos;
+        System.out.println("Ticks/s: " + (SECOND_NANOS / stepNanos) + ", expected " + expected + " ticks, ran " + ticks[0]);
+        System.out.println("Jitter: " + loop.getStats().report(stepNanos));
+        TestSupport.check("exact tick count", ticks[0] == expected);
+        TestSupport.check("no dropped ticks", loop.getStats().getDroppedTicks() == 0);
+    }
+
+    private static void testBoundedCatchUp() {
+        FixedStepLoop loop = new FixedStepLoop(5);
+        long stepNanos = 10_000_000L;
+        int[] ticks = {0};
+        FixedStepLoop.Ticker ticker = () -> { ticks[0]++; return true; };
+
+        loop.advance(0, () -> stepNanos, ticker);
+        int ran = loop.advance(SECOND_NANOS, () -> stepNanos, ticker); // One second hitch
+        TickJitterStats stats = loop.getStats();
+
+        System.out.println("Ticks run after a 1 s hitch: " + ran + ", dropped " + stats.getDroppedTicks());
+        TestSupport.check("catch-up bounded", ran == 5);
+        TestSupport.check("backlog dropped", stats.getDroppedTicks() == 95);
+        TestSupport.check("phase kept", loop.getAlpha() == 0.0);
+    }
+
+    private static void testPauseResets() {
+        FixedStepLoop loop = new FixedStepLoop();
+        long stepNanos = 10_000_000L;
+        int[] ticks = {0};
+
+        loop.advance(0, () -> stepNanos, () -> { ticks[0]++; return true; });
+        loop.advance(35_000_000L, () -> stepNanos, () -> { ticks[0]++; return ticks[0] < 2; });
+        int ran = loop.advance(SECOND_NANOS, () -> stepNanos, () -> { ticks[0]++; return true; });
+
+        System.out.println("Ticks before pause: 2, after resuming: " + ran);
+        TestSupport.check("paused tick stops the frame", ticks[0] == 2);
+        TestSupport.check("no catch-up after resume", ran == 0);
+    }
+}
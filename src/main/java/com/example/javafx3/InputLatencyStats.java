@@ -0,0 +1,76 @@
+package com.example.javafx3;
+
+import com.example.javafx3.batch.IntHistogram;
+
+import java.util.Arrays;
+
+/**
+ * Key-to-move latency histograms by group (e.g. renderer) and speed level
+ * A latency is recorded in 0.1 ms steps into the histogram of its group and of the tick
+ * interval it waited under, rounded down to 10 ms. Histograms are made on first use,
+ * after that recording is a single increment and allocates nothing.
+ * Not thread-safe, one instance per recording thread.
+ */
+class InputLatencyStats {
+
+    private static final long UNIT_NANOS = 100_000L; // 0.1 ms
+    private static final int MAX_UNITS = 10_000;     // 1 s, longer latencies land in the last slot
+    private static final int LEVEL_MILLIS = 10;
+    private static final int LEVELS = 200;           // Up to 2 s ticks (time freeze slows 10x)
+
+    private final String[] groups;
+    private final IntHistogram[][] histograms;
+
+    InputLatencyStats(String... groups) {
+        this.groups = groups;
+        this.histograms = new IntHistogram[groups.length][LEVELS];
+    }
+
+    /**
+     * @param tickIntervalNanos the tick interval while the input waited
+     */
+    void record(int group, long tickIntervalNanos, long latencyNanos) {
+        int level = level(tickIntervalNanos);
+        IntHistogram histogram = histograms[group][level];
+        if (histogram == null) {
+            histogram = new IntHistogram(MAX_UNITS);
+            histograms[group][level] = histogram;
+        }
+        histogram.record((int) Math.min(MAX_UNITS, Math.max(0, latencyNanos / UNIT_NANOS)));
+    }
+
+    /**
+     * Histogram of a group at a speed level, in 0.1 ms steps; null if nothing was recorded there
+     */
+    IntHistogram get(int group, long tickIntervalNanos) {
+        return histograms[group][level(tickIntervalNanos)];
+    }
+
+    void reset() {
+        for (IntHistogram[] levels : histograms) {
+            Arrays.fill(levels, null);
+        }
+    }
+
+    /**
+     * One line per group and speed level with inputs, fastest speed first
+     */
+    String report(String title) {
+        StringBuilder sb = new StringBuilder();
+        for (int group = 0; group < groups.length; group++) {
+            for (int level = 0; level < LEVELS; level++) {
+                IntHistogram histogram = histograms[group][level];
+                if (histogram == null) continue;
+                sb.append(String.format("%s [%s, %d-%d ms ticks]: n=%d mean=%.1f p50=%.1f p90=%.1f p99=%.1f max=%.1f ms%n",
+                        title, groups[group], level * LEVEL_MILLIS, level * LEVEL_MILLIS + LEVEL_MILLIS - 1,
+                        histogram.getTotal(), histogram.mean() / 10, histogram.percentile(0.50) / 10.0,
+                        histogram.percentile(0.90) / 10.0, histogram.percentile(0.99) / 10.0, histogram.getMax() / 10.0));
+            }
+        }
+        return sb.length() == 0 ? title + ": no inputs\n" : sb.toString();
+    }
+
+    private static int level(long tickIntervalNanos) {
+        return (int) Math.min(LEVELS - 1, tickIntervalNanos / 1_000_000L / LEVEL_MILLIS);
+    }
+}
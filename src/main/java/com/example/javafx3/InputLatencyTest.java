@@ -0,0 +1,182 @@
+package com.example.javafx3;
+
+import com.example.javafx3.batch.IntHistogram;
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.FixedStepLoop;
+import com.example.javafx3.engine.InputBuffer;
+import com.example.javafx3.engine.InputQueue;
+import com.example.javafx3.engine.SimulationThread;
+
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test class for the timestamped input path and the key-to-move latency histograms
+ * Checks the input buffer drops the oldest input and keeps press times, press times
+ * cross threads with their inputs, buffering and recording allocate nothing, and key
+ * presses sent to a running simulation thread are applied within about a tick.
+ */
+public class InputLatencyTest {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final long MILLIS = 1_000_000L;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== INPUT LATENCY TEST ===");
+
+        // Test 1: fixed ring, oldest dropped when full
+        System.out.println("\n=== TEST 1: INPUT BUFFER ===");
+        testInputBuffer();
+
+        // Test 2: press times travel with their inputs
+        System.out.println("\n=== TEST 2: TIMESTAMPED QUEUE ===");
+        testTimestampedQueue();
+
+        // Test 3: histograms by group and speed level
+        System.out.println("\n=== TEST 3: LATENCY HISTOGRAMS ===");
+        testHistograms();
+
+        // Test 4: no allocation per key press
+        System.out.println("\n=== TEST 4: NO ALLOCATION ===");
+        testNoAllocation();
+
+        // Test 5: key presses applied by a running simulation thread
+        System.out.println("\n=== TEST 5: KEY TO TICK ===");
+        testKeyToTick();
+
+        TestSupport.finish("INPUT LATENCY TEST");
+    }
+
+    private static void testInputBuffer() {
+        InputBuffer buffer = new InputBuffer(2);
+        TestSupport.check("empty poll", buffer.poll() == null);
+        TestSupport.check("first kept", buffer.add(Direction.UP, 10));
+        TestSupport.check("second kept", buffer.add(Direction.LEFT, 20));
+        TestSupport.check("third drops the oldest", !buffer.add(Direction.DOWN, 30));
+        TestSupport.check("two buffered", buffer.size() == 2 && buffer.get(0) == Direction.LEFT && buffer.get(1) == Direction.DOWN);
+        TestSupport.check("oldest first", buffer.poll() == Direction.LEFT && buffer.getPolledPressNanos() == 20);
+        // Wraps around the end of the ring
+        buffer.add(Direction.RIGHT, 40);
+        TestSupport.check("wrapped", buffer.get(1) == Direction.RIGHT && buffer.getPressNanos(1) == 40);
+        TestSupport.check("then the next", buffer.poll() == Direction.DOWN && buffer.getPolledPressNanos() == 30);
+        TestSupport.check("then the last", buffer.poll() == Direction.RIGHT && buffer.getPolledPressNanos() == 40);
+        buffer.add(Direction.UP, 50);
+        buffer.clear();
+        TestSupport.check("cleared", buffer.isEmpty() && buffer.poll() == null);
+    }
+
+    private static void testTimestampedQueue() throws InterruptedException {
+        InputQueue queue = new InputQueue(8);
+        int count = 100_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!queue.offer(DIRECTIONS[i % DIRECTIONS.length], i)) {
+                    Thread.yield(); // The consumer may share the core
+                }
+            }
+        });
+        producer.start();
+        int received = 0;
+        int wrong = 0;
+        while (received < count) {
+            Direction direction = queue.poll();
+            if (direction == null) {
+                Thread.yield();
+                continue;
+            }
+            if (direction != DIRECTIONS[received % DIRECTIONS.length] || queue.getPolledPressNanos() != received) {
+                wrong++;
+            }
+            received++;
+        }
+        producer.join();
+        System.out.println(received + " inputs received, " + wrong + " with the wrong direction or press time");
+        TestSupport.check("press times with their inputs", wrong == 0);
+    }
+
+    private static void testHistograms() {
+        InputLatencyStats stats = new InputLatencyStats("canvas", "tiles");
+        for (int i = 0; i < 100; i++) {
+            stats.record(0, 150 * MILLIS, i * MILLIS);
+        }
+        stats.record(0, 155 * MILLIS, 5 * MILLIS);  // Same 10 ms speed level
+        stats.record(0, 50 * MILLIS, 3 * MILLIS);   // Faster level
+        stats.record(1, 150 * MILLIS, 20_000 * MILLIS); // Longer than the histogram, capped
+        System.out.print(stats.report("Key to screen"));
+
+        IntHistogram slow = stats.get(0, 150 * MILLIS);
+        TestSupport.check("speed level by 10 ms", slow.getTotal() == 101);
+        TestSupport.check("median in 0.1 ms", Math.abs(slow.percentile(0.5) - 490) <= 10);
+        TestSupport.check("levels apart", stats.get(0, 50 * MILLIS).getTotal() == 1);
+        TestSupport.check("groups apart", stats.get(1, 150 * MILLIS).getTotal() == 1 && stats.get(1, 50 * MILLIS) == null);
+        TestSupport.check("long latency capped", stats.get(1, 150 * MILLIS).getMax() == 10_000);
+        stats.reset();
+        TestSupport.check("reset", stats.get(0, 150 * MILLIS) == null);
+    }
+
+    private static void testNoAllocation() {
+        InputQueue queue = new InputQueue(16);
+        InputBuffer buffer = new InputBuffer(2);
+        InputLatencyStats stats = new InputLatencyStats("applied");
+        stats.record(0, 100 * MILLIS, 0); // Histogram made on first use
+
+        long sink = 0;
+        for (int round = 0; round < 2; round++) { // First round warms up
+            long before = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < 200_000; i++) {
+                queue.offer(DIRECTIONS[i & 3], i);
+                buffer.add(queue.poll(), queue.getPolledPressNanos());
+                Direction turn = buffer.poll();
+                sink += turn.ordinal();
+                stats.record(0, 100 * MILLIS, (i & 1023) * 100_000L);
+            }
+            long allocated = THREAD_BEAN.getCurrentThreadAllocatedBytes() - before;
+            if (round == 1) {
+                System.out.println("Allocated " + allocated + " bytes for 200000 key presses (" + sink + ")");
+                TestSupport.check("no allocation per key press", allocated < 1024);
+            }
+        }
+    }
+
+    private static void testKeyToTick() throws InterruptedException {
+        long stepNanos = 5 * MILLIS;
+        InputQueue queue = new InputQueue(16);
+        InputBuffer buffer = new InputBuffer(2);
+        InputLatencyStats stats = new InputLatencyStats("applied");
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] applied = {0};
+        SimulationThread thread = new SimulationThread(new FixedStepLoop(), () -> stepNanos, () -> {
+            for (Direction input = queue.poll(); input != null; input = queue.poll()) {
+                buffer.add(input, queue.getPolledPressNanos());
+            }
+            if (buffer.poll() != null) {
+                applied[0]++;
+                stats.record(0, stepNanos, System.nanoTime() - buffer.getPolledPressNanos());
+            }
+            return true;
+        }, running::get, () -> { });
+        thread.start();
+
+        // Presses slower than ticks, none dropped
+        SplittableRandom random = new SplittableRandom(25);
+        int presses = 150;
+        for (int i = 0; i < presses; i++) {
+            Thread.sleep(6 + random.nextInt(10));
+            queue.offer(DIRECTIONS[random.nextInt(DIRECTIONS.length)], System.nanoTime());
+        }
+        Thread.sleep(20);
+        thread.invokeAndWait(() -> running.set(false));
+        thread.close();
+
+        System.out.print(stats.report("Key to tick"));
+        IntHistogram histogram = stats.get(0, stepNanos);
+        TestSupport.check("every press applied", applied[0] == presses);
+        // A press waits for the next tick, half a tick on average; the machine may be busy
+        TestSupport.check("mean within a tick", histogram.mean() / 10 < stepNanos / (double) MILLIS);
+        TestSupport.check("p90 within two ticks", histogram.percentile(0.9) / 10.0 < 2 * stepNanos / (double) MILLIS);
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.javafx3;
+
+import com.example.javafx3.batch.BotPolicy;
+import com.example.javafx3.batch.GreedyBot;
+import com.example.javafx3.batch.RandomBot;
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.Replay;
+import com.example.javafx3.engine.ReplayPlayer;
+import com.example.javafx3.engine.ReplayRecorder;
+import com.example.javafx3.engine.SimulationListener;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.manager.GameState;
+import com.example.javafx3.manager.SkillManager;
+import com.example.javafx3.model.SkillCard;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Test class for game replays
+ * Records bot games with skill choices made both inside the skill earned callback and
+ * between ticks (activation, conflict compensation, removal), writes them to a file,
+ * reads them back and checks playback reproduces the board at every checkpoint.
+ * Also seeks back and forth through keyframes and times seeking in a long game.
+ */
+public class ReplayTest {
+
+    private static final int CHECKPOINT_INTERVAL = 97; // Ticks between compared boards
+    private static final int MAX_TICKS = 20_000;
+    private static final long FRAME_NANOS = 16_000_000;
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== REPLAY TEST ===");
+        Path directory = Files.createTempDirectory("snake-replay");
+
+        // Test 1: finished games replay exactly
+        System.out.println("\n=== TEST 1: RECORD AND PLAY BACK ===");
+        for (long seed = 1; seed <= 6; seed++) {
+            testRoundTrip(directory, seed, seed % 2 == 0 ? new GreedyBot() : new RandomBot(), MAX_TICKS);
+        }
+
+        // Test 2: a recording stopped before the game ended plays back to where it stopped
+        System.out.println("\n=== TEST 2: UNFINISHED RECORDING ===");
+        testRoundTrip(directory, 99, new GreedyBot(), 300);
+
+        // Test 3: other files are rejected
+        System.out.println("\n=== TEST 3: INVALID FILES ===");
+        Path invalid = directory.resolve("invalid.replay");
+        Files.write(invalid, new byte[64]);
+        TestSupport.check("non-replay file rejected", rejects(invalid));
+        Files.write(invalid, new byte[]{'S', 'N', 'K', 'R', 0, 99});
+        TestSupport.check("truncated file rejected", rejects(invalid));
+
+        // Test 4: seeking through keyframes lands on the recorded board
+        System.out.println("\n=== TEST 4: SEEK ===");
+        testSeek(directory);
+
+        // Test 5: seeking a long game stays within a frame
+        System.out.println("\n=== TEST 5: SEEK TIME ===");
+        testSeekTime(directory);
+
+        TestSupport.finish("REPLAY TEST");
+    }
+
+    private static void testRoundTrip(Path directory, long seed, BotPolicy bot, int maxTicks) throws IOException {
+        SnakeSimulation simulation = new SnakeSimulation(30, 20, seed);
+        GameState gameState = simulation.getGameState();
+        SkillManager skillManager = simulation.getSkillManager();
+        ReplayRecorder recorder = new ReplayRecorder();
+        simulation.setRecorder(recorder);
+
+        // Every other offered skill is awarded and activated right away, mid-tick
+        simulation.setListener(new SimulationListener() {
+            @Override
+            public void onSkillEarned(SkillCard skill) {
+                gameState.awardSkill(skill);
+                if (gameState.getSkillsEarned() % 2 == 0) {
+                    gameState.activateSkill(skill);
+                }
+            }
+        });
+
+        simulation.reset(seed);
+        bot.onGameStart(seed);
+        simulation.start();
+
+        Map<Long, String> boards = new HashMap<>();
+        while (!simulation.isGameOver() && simulation.getTick() < maxTicks) {
+            long tick = simulation.getTick();
+            if (tick % CHECKPOINT_INTERVAL == 0) {
+                boards.put(tick, board(simulation));
+            }
+            if (tick % 40 == 39) {
+                activateNextSkill(gameState, skillManager);
+            }
+            if (tick % 500 == 499) {
+                deactivateAll(gameState);
+            }
+            simulation.step(bot.nextDirection(simulation));
+        }
+        String finalBoard = board(simulation);
+
+        Path file = directory.resolve("game-" + seed + ".replay");
+        recorder.finish(simulation).write(file);
+        Replay replay = Replay.read(file);
+
+        ReplayPlayer player = new ReplayPlayer(replay);
+        boolean checkpointsMatch = true;
+        while (!player.isFinished()) {
+            long tick = player.getSimulation().getTick();
+            if (boards.containsKey(tick) && !boards.get(tick).equals(board(player.getSimulation()))) {
+                System.out.println("Board differs at tick " + tick);
+                checkpointsMatch = false;
+                break;
+            }
+            player.step();
+        }
+
+        // Per minute at the starting speed, slow-motion skills stretch the game clock a lot
+        double minutes = simulation.getTick() * SnakeSimulation.INITIAL_SPEED / 60_000.0;
+        System.out.printf("Seed %d: %d ticks, score %d, %s, %d skills, %d bytes (%.0f input bytes per minute)%n",
+                seed, simulation.getTick(), simulation.getScore(), simulation.getEndReason(),
+                gameState.getSkillsEarned(), Files.size(file), replay.getEventBytes() / minutes);
+        TestSupport.check("seed " + seed + " checkpoints match", checkpointsMatch);
+        TestSupport.check("seed " + seed + " ends as recorded",
+                player.matchesRecording() && finalBoard.equals(board(player.getSimulation())));
+    }
+
+    private static void testSeek(Path directory) throws IOException {
+        SnakeSimulation simulation = new SnakeSimulation(30, 20, 7);
+        GameState gameState = simulation.getGameState();
+        SkillManager skillManager = simulation.getSkillManager();
+        ReplayRecorder recorder = new ReplayRecorder(32);
+        simulation.setRecorder(recorder);
+        simulation.setListener(new SimulationListener() {
+            @Override
+            public void onSkillEarned(SkillCard skill) {
+                gameState.awardSkill(skill);
+            }
+        });
+
+        BotPolicy bot = new GreedyBot();
+        simulation.reset(7);
+        bot.onGameStart(7);
+        simulation.start();
+
+        Map<Long, String> boards = new HashMap<>();
+        while (!simulation.isGameOver() && simulation.getTick() < MAX_TICKS) {
+            long tick = simulation.getTick();
+            if (tick % 25 == 24) {
+                activateNextSkill(gameState, skillManager);
+            }
+            if (tick % 300 == 299) {
+                deactivateAll(gameState);
+            }
+            boards.put(tick, board(simulation));
+            simulation.step(bot.nextDirection(simulation));
+        }
+        boards.put(simulation.getTick(), board(simulation));
+
+        Path file = directory.resolve("seek.replay");
+        recorder.finish(simulation).write(file);
+        Replay replay = Replay.read(file);
+        System.out.println(replay.getTickCount() + " ticks, " + replay.getKeyframeCount() + " keyframes");
+
+        ReplayPlayer player = new ReplayPlayer(replay);
+        SplittableRandom random = new SplittableRandom(7);
+        boolean allMatch = true;
+        for (int i = 0; i < 200 && allMatch; i++) {
+            long tick = random.nextLong(replay.getTickCount() + 1);
+            player.seek(tick);
+            if (!boards.get(tick).equals(board(player.getSimulation()))) {
+                System.out.println("Board differs after seeking to tick " + tick);
+                System.out.println(" expected " + boards.get(tick) + "\n actual   " + board(player.getSimulation()));
+                allMatch = false;
+            }
+        }
+        TestSupport.check("seeks land on the recorded board", allMatch);
+
+        player.seek(replay.getTickCount() / 2);
+        player.playToEnd();
+        TestSupport.check("playback after seeking ends as recorded", player.matchesRecording());
+        player.seek(0);
+        TestSupport.check("seek to start", boards.get(0L).equals(board(player.getSimulation())));
+    }
+
+    private static void testSeekTime(Path directory) throws IOException {
+        // A long game: the snake follows a cycle of the board and every skill is used
+        SnakeSimulation simulation = new SnakeSimulation(60, 32, 11);
+        GameState gameState = simulation.getGameState();
+        ReplayRecorder recorder = new ReplayRecorder();
+        simulation.setRecorder(recorder);
+        simulation.setListener(new SimulationListener() {
+            @Override
+            public void onSkillEarned(SkillCard skill) {
+                gameState.awardSkill(skill);
+                gameState.activateSkill(skill);
+            }
+        });
+        simulation.reset(11);
+        simulation.start();
+        while (!simulation.isGameOver() && simulation.getTick() < 200_000) {
+            Direction direction = EngineBenchmark.nextCycleDirection(simulation);
+            simulation.step(direction);
+        }
+
+        Path file = directory.resolve("long.replay");
+        recorder.finish(simulation).write(file);
+        Replay replay = Replay.read(file);
+
+        ReplayPlayer player = new ReplayPlayer(replay);
+        SplittableRandom random = new SplittableRandom(11);
+        for (int i = 0; i < 50; i++) {
+            player.seek(random.nextLong(replay.getTickCount() + 1)); // Warm up
+        }
+        // CPU time of the seek itself, the scheduler may preempt the thread on a busy machine
+        long slowest = 0;
+        for (int i = 0; i < 200; i++) {
+            long tick = random.nextLong(replay.getTickCount() + 1);
+            long start = THREAD_BEAN.getCurrentThreadCpuTime();
+            player.seek(tick);
+            slowest = Math.max(slowest, THREAD_BEAN.getCurrentThreadCpuTime() - start);
+        }
+        player.playToEnd();
+
+        System.out.printf("%d ticks, %d keyframes, %d keyframe bytes, %d event bytes, slowest seek %.2f ms%n",
+                replay.getTickCount(), replay.getKeyframeCount(), replay.getKeyframeBytes(),
+                replay.getEventBytes(), slowest / 1e6);
+        TestSupport.check("long game ends as recorded", player.matchesRecording());
+        TestSupport.check("seek within a frame", slowest < FRAME_NANOS);
+    }
+
+    /**
+     * Activate the first earned skill that is not active, resolving a conflict like the skill menu does
+     */
+    private static void activateNextSkill(GameState gameState, SkillManager skillManager) {
+        for (SkillCard skill : gameState.getEarnedSkills()) {
+            if (!gameState.isSkillActive(skill.getSkillEffect()) && skill.canActivate()) {
+                SkillManager.ConflictResolution conflict = skillManager.checkSkillConflicts(skill);
+                if (conflict.hasConflict()) {
+                    gameState.addBonusScore(skillManager.resolveConflict(skill, conflict.getConflictingSkill()));
+                }
+                gameState.activateSkill(skill);
+                return;
+            }
+        }
+    }
+
+    private static void deactivateAll(GameState gameState) {
+        while (!gameState.getActiveSkills().isEmpty()) {
+            SkillCard skill = gameState.getActiveSkills().get(0);
+            gameState.removeActiveSkill(skill);
+            skill.deactivate();
+        }
+    }
+
+    private static boolean rejects(Path file) {
+        try {
+            Replay.read(file);
+            return false;
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Board, score and skills as one comparable string
+     */
+    private static String board(SnakeSimulation simulation) {
+        int[] extraFood = new int[simulation.getAdditionalFoodCount()];
+        for (int i = 0; i < extraFood.length; i++) {
+            extraFood[i] = simulation.getAdditionalFoodCell(i);
+        }
+        GameState gameState = simulation.getGameState();
+        return Arrays.toString(simulation.getBody().toArray())
+                + " food=" + simulation.getFoodCell()
+                + " extra=" + Arrays.toString(extraFood)
+                + " score=" + simulation.getScore() + "/" + gameState.getScore()
+                + " dir=" + simulation.getCurrentDirection()
+                + " earned=" + Long.toHexString(gameState.getEarnedEffectsMask())
+                + " active=" + Long.toHexString(gameState.getActiveEffectsMask());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SimulationListener;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.engine.StepResult;
+import com.example.javafx3.manager.GameState;
+import com.example.javafx3.model.SkillEffect;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test class for the per-tick rewind log
+ * Records the board at the start of every tick, rewinds by various distances (short
+ * ones undo entry by entry, long ones start from a keyframe) and checks the board
+ * matches exactly, then checks the time rewind skill saves the snake from a wall.
+ */
+public class RewindTest {
+
+    public static void main(String[] args) {
+        System.out.println("=== REWIND LOG TEST ===");
+
+        // Test 1: rewound boards match the recorded ones
+        System.out.println("\n=== TEST 1: EXACT REWIND ===");
+        testExactRewind();
+
+        // Test 2: the time rewind skill undoes a fatal wall hit once per charge
+        System.out.println("\n=== TEST 2: TIME REWIND SKILL ===");
+        testTimeRewindSkill();
+
+        TestSupport.finish("REWIND LOG TEST");
+    }
+
+    private static void testExactRewind() {
+        SnakeSimulation simulation = new SnakeSimulation(60, 32, 7); // Board of EngineBenchmark's cycle
+        simulation.setListener(SimulationListener.NONE);
+        simulation.start();
+
+        // Lucky star spawns and eats bonus food, body growth stacks tail segments
+        TestSupport.activate(simulation, SkillEffect.LUCKY_STAR);
+        Map<Long, String> boards = new HashMap<>();
+        play(simulation, boards, 400);
+        TestSupport.activate(simulation, SkillEffect.BODY_GROWTH);
+        play(simulation, boards, 600);
+
+        for (int ticks : new int[]{1, 7, 64, 300}) {
+            checkRewind(simulation, boards, ticks);
+            // Play on, the new ticks replace the history that was rewound
+            play(simulation, boards, 150);
+        }
+
+        // Ticks overwritten in the ring stay lost even after the log was truncated
+        long history = simulation.getRewindLog().getTickCount() - simulation.getRewindLog().getOldestTick();
+        TestSupport.check("rewinding past the history fails", !simulation.rewindTicks((int) history + 1));
+        checkRewind(simulation, boards, (int) history);
+    }
+
+    private static void checkRewind(SnakeSimulation simulation, Map<Long, String> boards, int ticks) {
+        long target = simulation.getRewindLog().getTickCount() - ticks;
+        boolean rewound = simulation.rewindTicks(ticks);
+        TestSupport.check("rewind " + ticks + " ticks matches tick " + target,
+                rewound && board(simulation).equals(boards.get(target)) && occupancyConsistent(simulation));
+    }
+
+    private static void testTimeRewindSkill() {
+        SnakeSimulation simulation = new SnakeSimulation(60, 32, 11);
+        simulation.setListener(SimulationListener.NONE);
+        simulation.start();
+        TestSupport.activate(simulation, SkillEffect.TIME_REWIND);
+
+        // Charge the rewind as if five food items were eaten
+        GameState gameState = simulation.getGameState();
+        for (int i = 0; i < 5; i++) {
+            gameState.incrementFoodCounter();
+        }
+
+        // Head straight into the right wall, remembering where the head was at which game time
+        StepResult result = StepResult.MOVED;
+        long[] tickStart = new long[64];
+        int[] headXs = new int[64];
+        int ticks = 0;
+        while (result == StepResult.MOVED || result == StepResult.ATE_FOOD) {
+            tickStart[ticks] = simulation.getClock().millis();
+            headXs[ticks] = simulation.cellX(simulation.getBody().head());
+            result = simulation.step(Direction.RIGHT);
+            ticks++;
+        }
+
+        // The rewind goes back to the first tick that started within the last 3 seconds
+        int expectedX = -1;
+        for (int i = ticks - 1; i >= 0 && tickStart[i] >= simulation.getClock().millis() - 3000; i--) {
+            expectedX = headXs[i];
+        }
+        int headX = simulation.cellX(simulation.getBody().head());
+        System.out.println("Wall hit after " + ticks + " ticks: " + result + ", head rewound to x=" + headX);
+        TestSupport.check("first wall hit is rewound", result == StepResult.BLOCKED && !simulation.isGameOver());
+        TestSupport.check("3 seconds undone", headX == expectedX);
+
+        while (result != StepResult.DIED && !simulation.isGameOver()) {
+            result = simulation.step(Direction.RIGHT);
+        }
+        TestSupport.check("second wall hit without charge is fatal", result == StepResult.DIED);
+    }
+
+    private static void play(SnakeSimulation simulation, Map<Long, String> boards, int ticks) {
+        for (int i = 0; i < ticks && !simulation.isGameOver(); i++) {
+            boards.put(simulation.getRewindLog().getTickCount(), board(simulation));
+            simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+        }
+    }
+
+    /**
+     * Everything the rewind restores, as one comparable string
+     */
+    private static String board(SnakeSimulation simulation) {
+        int[] extraFood = new int[simulation.getAdditionalFoodCount()];
+        for (int i = 0; i < extraFood.length; i++) {
+            extraFood[i] = simulation.getAdditionalFoodCell(i);
+        }
+        return Arrays.toString(simulation.getBody().toArray())
+                + " food=" + simulation.getFoodCell()
+                + " extra=" + Arrays.toString(extraFood)
+                + " score=" + simulation.getScore() + "/" + simulation.getGameState().getScore()
+                + " dir=" + simulation.getCurrentDirection();
+    }
+
+    /**
+     * Every segment cell is marked occupied and nothing else is
+     */
+    private static boolean occupancyConsistent(SnakeSimulation simulation) {
+        int[] cells = simulation.getBody().toArray();
+        for (int cell : cells) {
+            if (!simulation.getOccupancy().isOccupied(cell)) return false;
+        }
+        return simulation.getOccupancy().getOccupiedCells() == Arrays.stream(cells).distinct().count();
+    }
+}
@@ -178,9 +178,9 @@ public class SkillSystemTest {
         gameState.incrementFoodCounter();
         System.out.println("Score frenzy multiplier: " + gameState.getScoreFrenzyMultiplier());
         
-        // Test time rewind system
-        gameState.saveStateSnapshot("test_snapshot_data");
-        System.out.println("State snapshot saved");
+        // Test time rewind charge
+        gameState.consumeTimeRewind();
+        System.out.println("Time rewind charge used");
         
         gameState.incrementFoodCounter();
         gameState.incrementFoodCounter();
@@ -188,12 +188,8 @@ public class SkillSystemTest {
         gameState.incrementFoodCounter();
         gameState.incrementFoodCounter();
         
-        if (gameState.shouldTriggerTimeRewind()) {
-            System.out.println("Time rewind should trigger!");
-            GameState.GameStateSnapshot snapshot = gameState.getRewindSnapshot();
-            if (snapshot != null) {
-                System.out.println("Rewind snapshot available from: " + snapshot.timestamp);
-            }
+        if (gameState.isTimeRewindCharged()) {
+            System.out.println("Time rewind charged again!");
         }
         
         // Test notification system
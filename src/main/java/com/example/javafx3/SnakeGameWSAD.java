@@ -15,6 +15,7 @@ import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
+import javafx.scene.control.Slider;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -25,10 +26,27 @@ import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.util.Duration;
 
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.FixedStepLoop;
+import com.example.javafx3.engine.InputBuffer;
+import com.example.javafx3.engine.InputQueue;
+import com.example.javafx3.engine.Replay;
+import com.example.javafx3.engine.ReplayPlayer;
+import com.example.javafx3.engine.ReplayRecorder;
+import com.example.javafx3.engine.SimulationListener;
+import com.example.javafx3.engine.SimulationThread;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.engine.TripleBuffer;
 import com.example.javafx3.manager.GameState;
 import com.example.javafx3.manager.SkillManager;
 import com.example.javafx3.model.SkillCard;
 import com.example.javafx3.model.SkillEffect;
+import com.example.javafx3.render.BoardCapture;
+import com.example.javafx3.render.BoardRenderer;
+import com.example.javafx3.render.BoardSnapshot;
+import com.example.javafx3.render.FramebufferRenderer;
+import com.example.javafx3.render.GameRenderer;
+import com.example.javafx3.render.ParallelFramebufferRenderer;
 import com.example.javafx3.ui.SkillMenuController;
 import com.example.javafx3.ui.SkillNotificationSystem;
 import com.example.javafx3.ui.GameOverController;
@@ -36,14 +54,12 @@ import com.example.javafx3.ui.SkillDetailController;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Random;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.LongSupplier;
 
-public class SnakeGameWSAD extends Application implements SkillManager.SnakeGameEffects {
+public class SnakeGameWSAD extends Application implements SimulationListener {
 
     // 游戏常量 - 增大窗口尺寸以确保游戏结束界面完整显示
     private static final int WIDTH = 1200;
@@ -51,32 +67,59 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
     private static final int CELL_SIZE = 20;
     private static final int GRID_WIDTH = WIDTH / CELL_SIZE;
     private static final int GRID_HEIGHT = (HEIGHT - 150) / CELL_SIZE; // 增加更多UI面板空间
-    private static final int INITIAL_SPEED = 150; // 毫秒
-
-    // 游戏变量
-    private enum Direction { UP, DOWN, LEFT, RIGHT }
-    private Direction currentDirection = Direction.RIGHT;
-    private Direction nextDirection = Direction.RIGHT;
-    private Deque<Point> snake = new ArrayDeque<>();
-    private Point food;
-    private List<Point> additionalFood = new ArrayList<>(); // For double food skill
-    private boolean gameRunning = false;
-    private boolean gameOver = false;
-    private int score = 0;
-    private long lastUpdate = 0;
-    private int speed = INITIAL_SPEED;
-
-    // 方向缓冲区 - 解决键盘响应问题
-    private final LinkedList<Direction> directionBuffer = new LinkedList<>();
-    private static final int BUFFER_SIZE = 2;
+    private static final String REPLAY_DIRECTORY = "replays";
+
+    // 游戏模拟 (规则逻辑, 不依赖JavaFX), 游戏进行时只由模拟线程访问
+    private SnakeSimulation simulation;
+    private final ReplayRecorder replayRecorder = new ReplayRecorder(); // Every game is recorded, saved on game over
+    private SnakeSimulation liveSimulation; // Set aside while a replay is shown
+    private ReplayPlayer replayPlayer; // Non-null in replay mode
+    private Path lastReplayFile;
+    private boolean updatingReplaySlider; // The slider follows playback, not a user seek
+
+    // 固定步长循环: 模拟线程按流逝时间推进模拟, 渲染在上一帧和当前帧之间插值
+    private final FixedStepLoop gameLoop = new FixedStepLoop();
+    private final FixedStepLoop.Ticker ticker = this::updateGame;
+    private final LongSupplier tickInterval = () -> simulation.getTickIntervalNanos();
+    private SimulationThread simulationThread;
+
+    // 模拟线程每次tick后发布一帧, FX线程绘制最新的一帧
+    private final BoardCapture boardCapture = new BoardCapture(); // Simulation thread only
+    private final TripleBuffer<GameFrame> frames = new TripleBuffer<>(GameFrame::new);
+    private GameFrame frame; // Latest frame taken, FX thread only
+    private boolean frameDrawn; // While stopped a frame is drawn once
+
+    // 按键连同按下的时间经无锁队列交给模拟线程
+    private final InputQueue inputQueue = new InputQueue(16);
+
+    // 方向缓冲区 - 解决键盘响应问题 (simulation thread only)
+    static final int BUFFER_SIZE = 2;
+    private final InputBuffer directionBuffer = new InputBuffer(BUFFER_SIZE);
+
+    // 按键延迟: 按下到tick应用 (模拟线程), 按下到画面显示 (FX线程, 按渲染方式)
+    private final InputLatencyStats appliedLatency = new InputLatencyStats("applied");
+    private final InputLatencyStats renderedLatency = new InputLatencyStats("canvas", "framebuffer", "tiles");
+    private long appliedInputs; // Simulation thread only
+    private long appliedPressNanos;
+    private long renderedInputs; // FX thread only
+    private long unshownPressNanos; // Drawn by the tile renderer, shown on the next pulse
+    private long unshownStepNanos;
 
     // 游戏组件
     private Canvas gameCanvas;
     private GraphicsContext gc;
+    private BoardRenderer renderer; // One of the three below, F switches
+    private GameRenderer canvasRenderer;
+    private FramebufferRenderer framebufferRenderer;
+    private ParallelFramebufferRenderer tileRenderer;
+    private Canvas backgroundCanvas;
+    private Canvas boardCanvas;
     private Label scoreLabel;
     private Label gameStatus;
     private Button startButton;
     private Button skillMenuButton;
+    private Button replayButton;
+    private Slider replaySlider;
     private Label focusLabel; // 焦点状态标签
     private ProgressBar skillProgressBar;
     private Label skillProgressLabel;
@@ -89,38 +132,18 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
     private Stage gameOverStage;
     private Stage skillDetailStage;
 
-    // Game statistics tracking
-    private int maxSnakeLength = 3;
-    private int foodConsumed = 0;
     private Stage primaryStage;
 
-    // Comprehensive skill effects state
-    private double speedMultiplier = 1.0;
-    private double scoreMultiplier = 1.0;
-    private int foodMagnetRadius = 0;
-    private boolean wallPhasingEnabled = false;
-    private boolean ghostModeEnabled = false;
-    private boolean doubleFood = false;
-    private boolean basicShieldEnabled = false;
-    private boolean steelBodyEnabled = false;
-    private boolean secondChanceEnabled = false;
-    private boolean invincibilityEnabled = false;
-    private boolean timeFreezeEnabled = false;
-    private boolean timeRewindEnabled = false;
-    private boolean luckyStarEnabled = false;
-    private boolean scoreFrenzyEnabled = false;
-    private boolean worldShrinkEnabled = false;
-    private double worldShrinkFactor = 1.0;
-    private int shieldUses = 0;
-
     @Override
     public void start(Stage primaryStage) {
         // Save primary stage reference
         this.primaryStage = primaryStage;
 
-        // Initialize skill system
-        gameState = new GameState();
-        skillManager = new SkillManager(gameState);
+        // Initialize simulation and skill system
+        simulation = new SnakeSimulation(GRID_WIDTH, GRID_HEIGHT);
+        gameState = simulation.getGameState();
+        skillManager = simulation.getSkillManager();
+        simulation.setRecorder(replayRecorder);
 
         // Load CSS styles
         try {
@@ -138,11 +161,28 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
 
         // Initialize notification system
         notificationSystem = new SkillNotificationSystem(root);
+        simulation.setListener(this);
 
         // 创建游戏画布
         gameCanvas = new Canvas(WIDTH, HEIGHT - 150);
         gc = gameCanvas.getGraphicsContext2D();
 
+        // 背景网格单独一层, 只在尺寸变化时重画; 棋盘一层, 只重画变化的格子; 文字在最上层
+        backgroundCanvas = new Canvas(WIDTH, HEIGHT - 150);
+        boardCanvas = new Canvas(WIDTH, HEIGHT - 150);
+        canvasRenderer = new GameRenderer(boardCanvas.getGraphicsContext2D(), backgroundCanvas.getGraphicsContext2D(), CELL_SIZE);
+        renderer = canvasRenderer;
+
+        // 也可以直接写像素缓冲区, 整个棋盘是一张图片
+        framebufferRenderer = new FramebufferRenderer(GRID_WIDTH, GRID_HEIGHT, CELL_SIZE);
+        framebufferRenderer.getView().setVisible(false);
+        // 或者在工作线程上分块光栅化整帧, FX线程只负责拷贝
+        tileRenderer = new ParallelFramebufferRenderer(GRID_WIDTH, GRID_HEIGHT, CELL_SIZE, Runtime.getRuntime().availableProcessors());
+        tileRenderer.getView().setVisible(false);
+        StackPane boardLayers = new StackPane(backgroundCanvas, boardCanvas, framebufferRenderer.getView(), tileRenderer.getView(), gameCanvas);
+        StackPane.setAlignment(framebufferRenderer.getView(), Pos.TOP_LEFT);
+        StackPane.setAlignment(tileRenderer.getView(), Pos.TOP_LEFT);
+
         // 确保画布可以获得焦点
         gameCanvas.setFocusTraversable(true);
 
@@ -153,7 +193,7 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         HBox statusPanel = createStatusPanel();
 
         // 组装UI
-        root.setCenter(gameCanvas);
+        root.setCenter(boardLayers);
         root.setBottom(controlPanel);
         root.setTop(statusPanel);
 
@@ -169,18 +209,35 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
                     e.getCode() == KeyCode.D) {
                 handleKeyPress(e.getCode());
                 e.consume(); // 阻止事件继续传播
-            } else if (e.getCode() == KeyCode.TAB && gameRunning) {
+            } else if (e.getCode() == KeyCode.TAB && frame.isRunning() && replayPlayer == null) {
                 openSkillMenu();
                 e.consume();
-            } else if (e.getCode() == KeyCode.SPACE && !gameRunning) {
+            } else if (e.getCode() == KeyCode.R && !frame.isRunning() && replayPlayer == null) {
+                showReplay();
+                e.consume();
+            } else if (e.getCode() == KeyCode.ESCAPE && replayPlayer != null) {
+                closeReplay();
+                e.consume();
+            } else if (e.getCode() == KeyCode.SPACE && !frame.isRunning() && replayPlayer == null) {
                 // 空格键启动游戏
                 startGame();
                 e.consume();
+            } else if (e.getCode() == KeyCode.F) {
+                switchRenderer();
+                e.consume();
             }
         });
 
+        // 模拟线程, 启动前命令直接在FX线程上执行; tick出错时结束这局游戏
+        simulationThread = new SimulationThread(gameLoop, tickInterval, ticker,
+                () -> simulation.isRunning(), this::publishFrame, e -> simulation.abort());
+
         // 初始化游戏
         initializeGame();
+        publishFrame();
+        frames.update();
+        frame = frames.getFront();
+        showFrame();
 
         // 设置舞台
         primaryStage.setTitle("JavaFX 贪吃蛇游戏 - 技能增强版 (WSAD控制)");
@@ -220,7 +277,7 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
 
         // Add hover effects for start button
         startButton.setOnMouseEntered(e -> {
-            if (!gameRunning) {
+            if (!frame.isRunning()) {
                 startButton.setStyle("-fx-background-color: #27ae60; -fx-text-fill: white; " +
                                    "-fx-padding: 10px 20px; -fx-border-radius: 5px; " +
                                    "-fx-background-radius: 5px; -fx-cursor: hand; " +
@@ -228,7 +285,7 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
             }
         });
         startButton.setOnMouseExited(e -> {
-            if (!gameRunning) {
+            if (!frame.isRunning()) {
                 startButton.setStyle("-fx-background-color: #2ecc71; -fx-text-fill: white; " +
                                    "-fx-padding: 10px 20px; -fx-border-radius: 5px; " +
                                    "-fx-background-radius: 5px; -fx-cursor: hand; " +
@@ -255,12 +312,36 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
                           "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.3), 2, 0, 0, 1);");
         exitButton.setOnAction(e -> System.exit(0));
 
+        // 回放按钮, 播放最近保存的回放
+        replayButton = new Button("回放 (R)");
+        replayButton.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        replayButton.setStyle("-fx-background-color: #f39c12; -fx-text-fill: white; " +
+                            "-fx-padding: 10px 20px; -fx-border-radius: 5px; " +
+                            "-fx-background-radius: 5px; -fx-cursor: hand; " +
+                            "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.3), 2, 0, 0, 1);");
+        replayButton.setOnAction(e -> {
+            if (replayPlayer == null) showReplay(); else closeReplay();
+        });
+        replayButton.setDisable(true);
+
+        // 回放进度条, 拖动即跳转到对应的tick
+        replaySlider = new Slider(0, 1, 0);
+        replaySlider.setPrefWidth(300);
+        replaySlider.setFocusTraversable(false);
+        replaySlider.setVisible(false);
+        replaySlider.setManaged(false);
+        replaySlider.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (!updatingReplaySlider && replayPlayer != null) {
+                seekReplay(newVal.longValue());
+            }
+        });
+
         // 添加控制说明
-        Label controlLabel = new Label("控制: W-上  S-下  A-左  D-右  Tab-技能  空格-开始");
+        Label controlLabel = new Label("控制: W-上  S-下  A-左  D-右  Tab-技能  空格-开始  R-回放  F-渲染");
         controlLabel.setTextFill(Color.LIGHTGRAY);
         controlLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
 
-        panel.getChildren().addAll(startButton, skillMenuButton, exitButton, controlLabel);
+        panel.getChildren().addAll(startButton, skillMenuButton, replayButton, replaySlider, exitButton, controlLabel);
         return panel;
     }
 
@@ -313,34 +394,20 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
 
     // 初始化游戏
     private void initializeGame() {
-        // 清空方向缓冲区
-        directionBuffer.clear();
-
-        // 创建初始蛇身 (3个部分)
-        snake.clear();
-        snake.add(new Point(GRID_WIDTH / 2, GRID_HEIGHT / 2));
-        snake.add(new Point(GRID_WIDTH / 2 - 1, GRID_HEIGHT / 2));
-        snake.add(new Point(GRID_WIDTH / 2 - 2, GRID_HEIGHT / 2));
-
-        // 生成食物
-        generateFood();
-
-        // 重置游戏状态
-        currentDirection = Direction.RIGHT;
-        nextDirection = Direction.RIGHT;
-        score = 0;
-        speed = INITIAL_SPEED;
-        gameOver = false;
-        gameRunning = false;
-
-        // 重置技能系统
-        gameState.reset();
-        skillManager.reset();
-        resetSkillEffects();
-
-        // Reset statistics tracking
-        maxSnakeLength = 3;
-        foodConsumed = 0;
+        simulationThread.invokeAndWait(() -> {
+            // 清空方向缓冲区
+            inputQueue.clear();
+            directionBuffer.clear();
+
+            // 重置蛇、食物、分数和技能系统
+            simulation.reset();
+            boardCapture.reset();
+            gameLoop.reset();
+            gameLoop.getStats().reset();
+            appliedLatency.reset();
+        });
+        renderedLatency.reset();
+        unshownPressNanos = 0;
 
         // Close game over screen if open
         if (gameOverStage != null && gameOverStage.isShowing()) {
@@ -354,9 +421,7 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
             skillDetailStage = null;
         }
 
-        // 更新UI
-        updateScore();
-        updateSkillProgress();
+        // 更新UI, 分数和棋盘随下一帧更新
         gameStatus.setText("按空格键或点击开始按钮开始游戏");
         startButton.setText("开始游戏");
         startButton.setStyle("-fx-background-color: #2ecc71; -fx-text-fill: white; " +
@@ -366,9 +431,6 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         startButton.setDisable(false); // Ensure button is enabled
         skillMenuButton.setDisable(true);
 
-        // 绘制初始状态
-        drawGame();
-
         // 确保按钮获得焦点和可见性
         Platform.runLater(() -> {
             ensureStartButtonVisible();
@@ -380,14 +442,12 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
     private void startGame() {
         System.out.println("Start button clicked! Starting game...");
 
-        if (gameOver) {
+        if (simulationThread.call(simulation::isGameOver)) {
             System.out.println("Game was over, reinitializing...");
             initializeGame();
         }
 
-        gameRunning = true;
-        gameOver = false;
-        gameState.startGame();
+        simulationThread.execute(simulation::start);
         System.out.println("Game started successfully!");
         gameStatus.setText("游戏进行中...");
         startButton.setText("重新开始");
@@ -415,7 +475,8 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
 
     // 处理键盘输入 - 只处理WSAD
     private void handleKeyPress(KeyCode keyCode) {
-        if (!gameRunning) return;
+        long pressNanos = System.nanoTime();
+        if (!frame.isRunning() || replayPlayer != null) return;
 
         Direction newDirection = null;
 
@@ -435,367 +496,254 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         }
 
         if (newDirection != null) {
-            // 检查方向是否有效（不能直接反向）
-            if ((currentDirection == Direction.UP && newDirection != Direction.DOWN) ||
-                    (currentDirection == Direction.DOWN && newDirection != Direction.UP) ||
-                    (currentDirection == Direction.LEFT && newDirection != Direction.RIGHT) ||
-                    (currentDirection == Direction.RIGHT && newDirection != Direction.LEFT)) {
-
-                // 添加到缓冲区（最多存储2个方向）
-                if (directionBuffer.size() >= BUFFER_SIZE) {
-                    directionBuffer.pollFirst(); // 移除最旧的指令
-                }
-                directionBuffer.addLast(newDirection);
-            }
+            // 交给模拟线程, 下个tick前放进方向缓冲区; 队列满时丢弃
+            inputQueue.offer(newDirection, pressNanos);
         }
     }
 
-    // 生成食物
-    private void generateFood() {
-        Random random = new Random();
-        int x, y;
-        boolean onSnake;
-
-        // 确保食物不会生成在蛇身上
-        do {
-            onSnake = false;
-            x = random.nextInt(GRID_WIDTH);
-            y = random.nextInt(GRID_HEIGHT);
-
-            for (Point p : snake) {
-                if (p.x == x && p.y == y) {
-                    onSnake = true;
-                    break;
-                }
-            }
-        } while (onSnake);
-
-        food = new Point(x, y);
-    }
-
-    // 更新游戏状态
-    private void updateGame() {
-        if (!gameRunning || gameOver) return;
-
-        // Update active skills
-        gameState.updateActiveSkills();
-
-        // Apply skill effects
-        skillManager.applySkillEffects(this);
-
-        // 处理方向缓冲区
-        if (!directionBuffer.isEmpty()) {
-            nextDirection = directionBuffer.pollFirst();
-        }
-
-        // 应用方向变化
-        currentDirection = nextDirection;
-
-        // 计算蛇头的新位置
-        Point head = snake.getFirst();
-        Point newHead = new Point(head.x, head.y);
-
-        // Apply food magnet effect
-        if (foodMagnetRadius > 0) {
-            newHead = applyFoodMagnet(newHead);
-        }
-
-        switch (currentDirection) {
-            case UP: newHead.y--; break;
-            case DOWN: newHead.y++; break;
-            case LEFT: newHead.x--; break;
-            case RIGHT: newHead.x++; break;
-        }
+    // 模拟线程上: 取出按键, 放进方向缓冲区
+    private void takeInputs() {
+        for (Direction newDirection = inputQueue.poll(); newDirection != null; newDirection = inputQueue.poll()) {
+            // 检查方向是否有效（不能直接反向）
+            if (newDirection != simulation.getCurrentDirection().opposite()) {
 
-        // 检查是否撞墙 (with wall phasing skill)
-        if (newHead.x < 0 || newHead.x >= GRID_WIDTH ||
-                newHead.y < 0 || newHead.y >= GRID_HEIGHT) {
-            if (wallPhasingEnabled) {
-                // Wrap around to opposite side
-                if (newHead.x < 0) newHead.x = GRID_WIDTH - 1;
-                if (newHead.x >= GRID_WIDTH) newHead.x = 0;
-                if (newHead.y < 0) newHead.y = GRID_HEIGHT - 1;
-                if (newHead.y >= GRID_HEIGHT) newHead.y = 0;
-                wallPhasingEnabled = false; // One-time use
-            } else if (!invincibilityEnabled) {
-                handleCollision();
-                return;
-            }
-        }
-
-        // 检查是否撞到自己 (with comprehensive collision protection)
-        if (!ghostModeEnabled && !steelBodyEnabled && !invincibilityEnabled) {
-            for (Point p : snake) {
-                if (p.x == newHead.x && p.y == newHead.y) {
-                    handleCollision();
-                    return;
-                }
-            }
-        } else if (ghostModeEnabled) {
-            // Ghost mode: 50% collision volume reduction (simplified as occasional pass-through)
-            if (Math.random() > 0.5) {
-                for (Point p : snake) {
-                    if (p.x == newHead.x && p.y == newHead.y) {
-                        handleCollision();
-                        return;
-                    }
-                }
+                // 添加到缓冲区（最多存储2个方向, 满时移除最旧的指令）
+                directionBuffer.add(newDirection, inputQueue.getPolledPressNanos());
             }
         }
+    }
 
-        // 移动蛇
-        snake.addFirst(newHead);
+    // 更新游戏状态 - 在模拟线程上推进一次模拟, 返回false时不再继续推进
+    private boolean updateGame() {
+        if (!simulation.isRunning()) return false;
 
-        // 检查是否吃到食物
-        boolean ateFood = false;
-        if (newHead.x == food.x && newHead.y == food.y) {
-            ateFood = true;
-            handleFoodConsumption();
-        }
+        // 保存上一状态用于插值
+        boardCapture.beforeTick(simulation);
 
-        // Check additional food (for double food skill)
-        for (int i = additionalFood.size() - 1; i >= 0; i--) {
-            Point extraFood = additionalFood.get(i);
-            if (newHead.x == extraFood.x && newHead.y == extraFood.y) {
-                ateFood = true;
-                additionalFood.remove(i);
-                handleFoodConsumption();
-                break;
-            }
+        // 回放模式下由回放提供输入
+        if (replayPlayer != null) {
+            return replayPlayer.step() && simulation.isRunning();
         }
 
-        if (!ateFood) {
-            // 没吃到食物，移除尾部
-            snake.removeLast();
+        // 处理方向缓冲区
+        takeInputs();
+        Direction turn = directionBuffer.poll();
+        if (turn != null) {
+            // 这个tick应用了一次按键
+            appliedPressNanos = directionBuffer.getPolledPressNanos();
+            appliedInputs++;
+            appliedLatency.record(0, simulation.getTickIntervalNanos(), System.nanoTime() - appliedPressNanos);
         }
-
-        // 绘制游戏
-        drawGame();
+        simulation.step(turn);
+        return simulation.isRunning();
     }
 
-    // Handle collision with comprehensive shield system
-    private void handleCollision() {
-        // Check second chance first (most powerful)
-        if (secondChanceEnabled) {
-            secondChanceEnabled = false;
-            notificationSystem.showGameNotification("Second Chance", "Revived from death!", "💖");
-            return;
-        }
-
-        // Check basic shield
-        if (basicShieldEnabled && shieldUses > 0) {
-            shieldUses--;
-            if (shieldUses <= 0) {
-                basicShieldEnabled = false;
-            }
-            notificationSystem.showGameNotification("Shield", "Collision blocked!", "🛡");
-            return;
-        }
+    // 模拟线程上: 把当前状态写进一帧并发布给FX线程
+    private void publishFrame() {
+        frames.getBack().capture(simulation, boardCapture, directionBuffer, appliedInputs, appliedPressNanos,
+                gameLoop, System.nanoTime());
+        frames.publish();
+    }
 
-        // Check steel body (self-collision immunity)
-        if (steelBodyEnabled) {
-            // Steel body only protects against self-collision, not walls
-            // This would be handled in the collision detection logic
-            return;
+    // FX线程上: 显示新一帧的分数和技能进度
+    private void showFrame() {
+        scoreLabel.setText("分数: " + frame.getScore());
+        skillProgressBar.setProgress(frame.getSkillProgress());
+        skillProgressLabel.setText(frame.getPointsToNextSkill() + "/" + GameState.getPointsPerSkill());
+
+        // 回放进度条跟随播放, 拖动时不更新
+        if (replayPlayer != null && !replaySlider.isValueChanging()) {
+            updatingReplaySlider = true;
+            replaySlider.setValue(frame.getTick());
+            updatingReplaySlider = false;
         }
-
-        gameOver();
+        frameDrawn = false;
     }
 
-    // 游戏结束
-    private void gameOver() {
-        gameOver = true;
-        gameRunning = false;
-        gameState.endGameWithLoss();
+    // ===== SIMULATION EVENTS =====
+    // 在模拟线程上调用, 界面的事交给FX线程
 
-        // Show game over screen
-        showGameOverScreen(false);
+    @Override
+    public void onNotification(String title, String message, String icon) {
+        Platform.runLater(() -> notificationSystem.showGameNotification(title, message, icon));
     }
 
-    // Handle game win condition
-    private void handleGameWin() {
-        gameOver = true;
-        gameRunning = false;
-
-        // Show game over screen with win condition
-        showGameOverScreen(true);
+    @Override
+    public void onScoreChanged(int score) {
+        // 分数随下一帧显示
     }
 
-    // 更新分数显示
-    private void updateScore() {
-        scoreLabel.setText("分数: " + score);
-        updateSkillProgress();
+    @Override
+    public void onSkillEarned(SkillCard skill) {
+        // 暂停游戏并显示技能详情界面
+        simulation.pause();
+        Platform.runLater(() -> showSkillDetailScreen(skill));
     }
 
-    // Handle food consumption with comprehensive skill effects
-    private void handleFoodConsumption() {
-        // Track statistics
-        foodConsumed++;
-        maxSnakeLength = Math.max(maxSnakeLength, snake.size() + 1); // +1 because we're about to grow
-
-        int basePoints = 10;
+    @Override
+    public void onGameOver(boolean won) {
+        System.out.println("Tick jitter: " + gameLoop.getStats().report(simulation.getTickIntervalNanos()));
+        System.out.print(appliedLatency.report("Key to tick"));
+        Replay replay = replayRecorder.finish(simulation);
+        String stats = replayRecorder.getEventBytes() + " input bytes, " + replayRecorder.getKeyframeCount() + " keyframes";
+        long seed = simulation.getSeed();
 
-        // Apply score multiplier
-        double totalMultiplier = scoreMultiplier;
+        // Show game over screen
+        Platform.runLater(() -> {
+            System.out.print(renderedLatency.report("Key to screen"));
+            saveReplay(replay, seed, stats);
+            showGameOverScreen(won);
+        });
+    }
 
-        // Apply score frenzy if active
-        if (scoreFrenzyEnabled) {
-            totalMultiplier *= gameState.getScoreFrenzyMultiplier();
+    /**
+     * Save the finished game's inputs, replayable with ReplayPlayer
+     */
+    private void saveReplay(Replay replay, long seed, String stats) {
+        try {
+            Path directory = Paths.get(REPLAY_DIRECTORY);
+            Files.createDirectories(directory);
+            Path file = directory.resolve(String.format("snake-%016x.replay", seed));
+            replay.write(file);
+            System.out.println("Replay saved: " + file + " (" + stats + ")");
+            lastReplayFile = file;
+            replayButton.setDisable(false);
+        } catch (IOException e) {
+            System.out.println("无法保存回放: " + e.getMessage());
         }
+    }
 
-        int points = (int)(basePoints * totalMultiplier);
-
-        // Increment food counter for various systems
-        gameState.incrementFoodCounter();
+    /**
+     * Play the last saved replay in place of the live game, with a slider to seek through it
+     */
+    private void showReplay() {
+        if (lastReplayFile == null) return;
 
-        // Check for time rewind trigger
-        if (timeRewindEnabled && gameState.shouldTriggerTimeRewind()) {
-            // Save current state before potential rewind
-            saveGameStateSnapshot();
+        Replay replay;
+        try {
+            replay = Replay.read(lastReplayFile);
+        } catch (IOException e) {
+            System.out.println("无法读取回放: " + e.getMessage());
+            return;
         }
 
-        // Generate lucky star bonus food
-        if (luckyStarEnabled && Math.random() < 0.25) { // 25% chance
-            generateAdditionalFood();
-            notificationSystem.showGameNotification("Lucky Star", "Bonus food spawned!", "⭐");
+        if (gameOverStage != null && gameOverStage.isShowing()) {
+            gameOverStage.close();
+            gameOverStage = null;
         }
 
-        // Update score and check for skill unlock
-        if (gameState.updateScore(points)) {
-            // Player won!
-            handleGameWin();
-            return;
-        }
+        // The replay drives its own simulation, shown through the same fields as the live one
+        ReplayPlayer player = new ReplayPlayer(replay);
+        player.setListener(new SimulationListener() {
+            @Override
+            public void onNotification(String title, String message, String icon) {
+                Platform.runLater(() -> notificationSystem.showGameNotification(title, message, icon));
+            }
 
-        score = gameState.getScore();
-        updateScore();
-
-        // Check if player should earn a new skill
-        if (gameState.shouldEarnSkill()) {
-            SkillCard newSkill = skillManager.generateRandomSkill();
-            if (newSkill != null) {
-                // Check for duplicates
-                if (skillManager.isDuplicateSkill(newSkill)) {
-                    int bonusScore = skillManager.convertDuplicateToScore(newSkill);
-                    gameState.updateScore(bonusScore);
-                    score = gameState.getScore();
-                    updateScore();
-                    notificationSystem.showGameNotification("重复技能",
-                        "转换为 " + bonusScore + " 奖励分数！", "💰");
-                } else {
-                    // 暂停游戏并显示技能详情界面
-                    gameRunning = false;
-                    showSkillDetailScreen(newSkill);
-                }
+            @Override
+            public void onGameOver(boolean won) {
+                Platform.runLater(() -> gameStatus.setText("回放结束 - 拖动进度条跳转, Esc返回"));
             }
-        }
+        });
+        simulationThread.invokeAndWait(() -> {
+            replayPlayer = player;
+            liveSimulation = simulation;
+            useSimulation(player.getSimulation());
+            inputQueue.clear();
+            directionBuffer.clear();
+            boardCapture.reset();
+            gameLoop.reset();
+        });
 
-        // 生成新食物
-        generateFood();
+        updatingReplaySlider = true;
+        replaySlider.setMax(Math.max(1, replay.getTickCount()));
+        replaySlider.setValue(0);
+        updatingReplaySlider = false;
+        replaySlider.setVisible(true);
+        replaySlider.setManaged(true);
 
-        // Generate additional food if double food is active
-        if (doubleFood && additionalFood.isEmpty()) {
-            generateAdditionalFood();
-        }
-
-        // 增加速度 (modified by speed multiplier)
-        int newSpeed = (int)(speed / speedMultiplier);
-        if (newSpeed > 50) {
-            speed = Math.max(50, newSpeed - 2);
-        }
+        gameStatus.setText("回放中 - 拖动进度条跳转, Esc返回");
+        replayButton.setText("返回 (Esc)");
+        startButton.setDisable(true);
+        skillMenuButton.setDisable(true);
+        gameCanvas.requestFocus();
     }
 
-    // 绘制游戏
-    private void drawGame() {
-        // 清除画布
-        gc.clearRect(0, 0, WIDTH, HEIGHT - 150);
-
-        // 绘制网格背景
-        gc.setFill(Color.rgb(30, 30, 30));
-        gc.fillRect(0, 0, WIDTH, HEIGHT - 150);
-
-        // 绘制网格线
-        gc.setStroke(Color.rgb(50, 50, 50));
-        gc.setLineWidth(0.5);
-        for (int x = 0; x <= WIDTH; x += CELL_SIZE) {
-            gc.strokeLine(x, 0, x, HEIGHT - 150);
-        }
-        for (int y = 0; y <= HEIGHT - 150; y += CELL_SIZE) {
-            gc.strokeLine(0, y, WIDTH, y);
-        }
-
-        // 绘制食物
-        gc.setFill(Color.RED);
-        gc.fillOval(food.x * CELL_SIZE, food.y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-        gc.setStroke(Color.WHITE);
-        gc.setLineWidth(1);
-        gc.strokeOval(food.x * CELL_SIZE, food.y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-
-        // Draw additional food (for double food skill)
-        for (Point extraFood : additionalFood) {
-            gc.setFill(Color.ORANGE);
-            gc.fillOval(extraFood.x * CELL_SIZE, extraFood.y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-            gc.setStroke(Color.YELLOW);
-            gc.setLineWidth(1);
-            gc.strokeOval(extraFood.x * CELL_SIZE, extraFood.y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-        }
+    /**
+     * Leave replay mode and get a new live game ready
+     */
+    private void closeReplay() {
+        simulationThread.invokeAndWait(() -> {
+            replayPlayer = null;
+            useSimulation(liveSimulation);
+            liveSimulation = null;
+        });
 
-        // 绘制蛇 (with skill effects)
-        int index = 0;
-        for (Point p : snake) {
-            // 蛇头
-            if (index == 0) {
-                if (invincibilityEnabled) {
-                    gc.setFill(Color.GOLD); // Golden head for invincibility
-                } else if (ghostModeEnabled) {
-                    gc.setFill(Color.LIGHTBLUE); // Light blue for ghost mode
-                } else {
-                    gc.setFill(Color.GREEN);
-                }
-            }
-            // 蛇身
-            else {
-                // 创建渐变效果
-                double factor = 0.7 + (0.3 * index / snake.size());
-                if (ghostModeEnabled) {
-                    gc.setFill(Color.rgb(173, 216, 230, 0.7)); // Semi-transparent for ghost mode
-                } else {
-                    gc.setFill(Color.rgb(0, (int)(255 * factor), 0));
-                }
-            }
+        replaySlider.setVisible(false);
+        replaySlider.setManaged(false);
+        replayButton.setText("回放 (R)");
+        initializeGame();
+    }
 
-            gc.fillRect(p.x * CELL_SIZE, p.y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
-            gc.setStroke(Color.BLACK);
-            gc.setLineWidth(1);
-            gc.strokeRect(p.x * CELL_SIZE, p.y * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+    private void seekReplay(long tick) {
+        ReplayPlayer player = replayPlayer;
+        simulationThread.execute(() -> {
+            player.seek(tick);
+            boardCapture.reset();
+            gameLoop.reset();
+        });
+    }
 
-            index++;
+    /**
+     * Switch between drawing into canvases, writing the framebuffer directly and
+     * rasterizing the framebuffer in tiles on worker threads
+     */
+    private void switchRenderer() {
+        String mode;
+        if (renderer == canvasRenderer) {
+            renderer = framebufferRenderer;
+            mode = "framebuffer";
+        } else if (renderer == framebufferRenderer) {
+            renderer = tileRenderer;
+            mode = "tiles (" + tileRenderer.getWorkers() + " workers)";
+        } else {
+            renderer = canvasRenderer;
+            mode = "canvas";
         }
+        backgroundCanvas.setVisible(renderer == canvasRenderer);
+        boardCanvas.setVisible(renderer == canvasRenderer);
+        framebufferRenderer.getView().setVisible(renderer == framebufferRenderer);
+        tileRenderer.getView().setVisible(renderer == tileRenderer);
+        renderer.invalidate();
+        frameDrawn = false;
+        System.out.println("Renderer: " + mode);
+    }
 
-        // 绘制蛇眼睛
-        if (!snake.isEmpty()) {
-            Point head = snake.getFirst();
-            gc.setFill(Color.BLACK);
-
-            // 根据方向绘制眼睛位置
-            int eyeSize = CELL_SIZE / 5;
-            int offset = CELL_SIZE / 3;
+    private void useSimulation(SnakeSimulation simulation) {
+        this.simulation = simulation;
+        gameState = simulation.getGameState();
+        skillManager = simulation.getSkillManager();
+    }
 
-            if (currentDirection == Direction.RIGHT || currentDirection == Direction.LEFT) {
-                gc.fillOval(head.x * CELL_SIZE + offset, head.y * CELL_SIZE + offset, eyeSize, eyeSize);
-                gc.fillOval(head.x * CELL_SIZE + offset, head.y * CELL_SIZE + CELL_SIZE - offset - eyeSize, eyeSize, eyeSize);
-            } else {
-                gc.fillOval(head.x * CELL_SIZE + offset, head.y * CELL_SIZE + offset, eyeSize, eyeSize);
-                gc.fillOval(head.x * CELL_SIZE + CELL_SIZE - offset - eyeSize, head.y * CELL_SIZE + offset, eyeSize, eyeSize);
-            }
+    // 绘制游戏 - 画最新的一帧, 不读模拟本身
+    private void drawGame(long now) {
+        // 绘制棋盘和蛇, 位置在上一状态和当前状态之间插值
+        BoardSnapshot board = frame.getBoard();
+        if (frame.isRunning()) {
+            renderer.draw(board, frame.getAlpha(now));
+        } else if (renderer == tileRenderer) {
+            tileRenderer.drawAndWait(board, 1.0); // No next frame would publish it while stopped
+        } else {
+            renderer.draw(board, 1.0);
         }
 
         // 绘制方向缓冲区状态和技能效果
+        gc.clearRect(0, 0, WIDTH, HEIGHT - 150);
         gc.setFill(Color.WHITE);
         gc.setFont(Font.font("Arial", 14));
         String bufferText = "指令: ";
-        for (Direction d : directionBuffer) {
-            switch (d) {
+        for (int i = 0; i < frame.getBufferedCount(); i++) {
+            switch (frame.getBuffered(i)) {
                 case UP: bufferText += "↑ "; break;
                 case DOWN: bufferText += "↓ "; break;
                 case LEFT: bufferText += "← "; break;
@@ -803,13 +751,13 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
             }
         }
         gc.fillText(bufferText, 10, 20);
-        gc.fillText("当前方向: " + getDirectionSymbol(currentDirection), 10, 40);
+        gc.fillText("当前方向: " + frame.getDirection().getSymbol(), 10, 40);
 
         // Draw active skill effects
         drawActiveSkillEffects();
 
         // 游戏结束提示
-        if (gameOver) {
+        if (frame.isGameOver()) {
             gc.setFill(Color.rgb(0, 0, 0, 0.7));
             gc.fillRect(0, 0, WIDTH, HEIGHT - 150);
 
@@ -818,11 +766,11 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
             gc.fillText("游戏结束", WIDTH/2 - 100, (HEIGHT - 150)/2 - 30);
 
             gc.setFont(Font.font("Arial", FontWeight.BOLD, 30));
-            gc.fillText("分数: " + score, WIDTH/2 - 70, (HEIGHT - 150)/2 + 30);
+            gc.fillText("分数: " + frame.getScore(), WIDTH/2 - 70, (HEIGHT - 150)/2 + 30);
         }
 
         // 游戏开始提示
-        if (!gameRunning && !gameOver) {
+        if (!frame.isRunning() && !frame.isGameOver()) {
             gc.setFill(Color.rgb(255, 255, 255, 0.9));
             gc.setFont(Font.font("Arial", FontWeight.BOLD, 28));
             String startText = "按空格键开始游戏";
@@ -841,41 +789,46 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         }
     }
 
-    // 获取方向符号
-    private String getDirectionSymbol(Direction dir) {
-        switch (dir) {
-            case UP: return "↑";
-            case DOWN: return "↓";
-            case LEFT: return "←";
-            case RIGHT: return "→";
-            default: return "?";
-        }
-    }
-
     // 启动游戏循环
     private void startGameLoop() {
         new AnimationTimer() {
             @Override
             public void handle(long now) {
-                if (lastUpdate == 0) lastUpdate = now;
+                // tick在模拟线程上执行, 这里只取它最新发布的一帧
+                if (frames.update()) {
+                    frame = frames.getFront();
+                    showFrame();
+                }
 
-                // 控制游戏更新速度 (modified by time freeze)
-                long effectiveSpeed = timeFreezeEnabled ? speed * 10 : speed;
-                if (now - lastUpdate >= effectiveSpeed * 1_000_000) {
-                    updateGame();
-                    lastUpdate = now;
+                // 游戏进行时每帧绘制, 插值使移动平滑; 停止时只画一次
+                if (frame.isRunning() || !frameDrawn) {
+                    drawGame(now);
+                    frameDrawn = true;
+                    recordRenderedInput();
                 }
             }
         }.start();
+        simulationThread.start();
     }
 
-    // 游戏点类
-    private static class Point {
-        int x, y;
-
-        Point(int x, int y) {
-            this.x = x;
-            this.y = y;
+    // 按键到画面的延迟: 第一次画出应用了新按键的一帧时记录
+    // 分块渲染晚一帧才显示, 记在下一次绘制时; 帧被覆盖时只记最后一次按键
+    private void recordRenderedInput() {
+        long drawnNanos = System.nanoTime();
+        if (unshownPressNanos != 0) {
+            renderedLatency.record(2, unshownStepNanos, drawnNanos - unshownPressNanos);
+            unshownPressNanos = 0;
+        }
+        if (frame.getAppliedInputs() == renderedInputs) {
+            return;
+        }
+        renderedInputs = frame.getAppliedInputs();
+        if (renderer == tileRenderer && frame.isRunning()) {
+            unshownPressNanos = frame.getAppliedPressNanos();
+            unshownStepNanos = frame.getStepNanos();
+        } else {
+            int group = renderer == canvasRenderer ? 0 : renderer == framebufferRenderer ? 1 : 2;
+            renderedLatency.record(group, frame.getStepNanos(), drawnNanos - frame.getAppliedPressNanos());
         }
     }
 
@@ -884,30 +837,29 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         gc.setFont(Font.font("Arial", 12));
         int yOffset = 60;
 
-        List<SkillCard> activeSkills = gameState.getActiveSkills();
-        for (SkillCard skill : activeSkills) {
-            if (skill.isActive()) {
-                String effectText = skill.getIcon() + " " + skill.getName();
-                if (skill.getRemainingDuration() > 0) {
-                    effectText += " (" + skill.getRemainingDuration() + "s)";
-                }
-
-                gc.setFill(Color.color(1, 1, 1, 0.8));
-                gc.fillText(effectText, 10, yOffset);
-                yOffset += 15;
+        // 帧里只有效果和剩余秒数, 文字在FX线程上拼
+        for (int i = 0; i < frame.getActiveCount(); i++) {
+            SkillEffect effect = frame.getActiveEffect(i);
+            String effectText = effect.getIcon() + " " + effect.getName();
+            int remaining = frame.getActiveRemainingSeconds(i);
+            if (remaining > 0) {
+                effectText += " (" + remaining + "s)";
             }
+            gc.setFill(Color.color(1, 1, 1, 0.8));
+            gc.fillText(effectText, 10, yOffset);
+            yOffset += 15;
         }
 
         // Show special effects
-        if (timeFreezeEnabled) {
+        if (frame.isTimeFreeze()) {
             gc.setFill(Color.LIGHTBLUE);
             gc.fillText("❄ TIME FREEZE ACTIVE", WIDTH - 200, 20);
         }
 
         // Display active skill effects
-        if (scoreFrenzyEnabled) {
+        if (frame.isScoreFrenzy()) {
             gc.setFill(Color.GOLD);
-            gc.fillText("🔥 SCORE FRENZY: " + gameState.getComboMultiplier() + "x", WIDTH - 200, 40);
+            gc.fillText("🔥 SCORE FRENZY: " + frame.getComboMultiplier() + "x", WIDTH - 200, 40);
         }
     }
 
@@ -930,45 +882,17 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         }
     }
 
-    // Update skill progress display
-    private void updateSkillProgress() {
-        if (gameState != null) {
-            double progress = gameState.getSkillProgress();
-            int pointsToNext = gameState.getPointsToNextSkill();
-
-            skillProgressBar.setProgress(progress);
-            skillProgressLabel.setText(pointsToNext + "/" + GameState.getPointsPerSkill());
-        }
-    }
-
-    // Reset all skill effects
-    private void resetSkillEffects() {
-        speedMultiplier = 1.0;
-        scoreMultiplier = 1.0;
-        foodMagnetRadius = 0;
-        wallPhasingEnabled = false;
-        ghostModeEnabled = false;
-        doubleFood = false;
-        basicShieldEnabled = false;
-        steelBodyEnabled = false;
-        secondChanceEnabled = false;
-        invincibilityEnabled = false;
-        timeFreezeEnabled = false;
-        timeRewindEnabled = false;
-        luckyStarEnabled = false;
-        scoreFrenzyEnabled = false;
-        worldShrinkEnabled = false;
-        worldShrinkFactor = 1.0;
-        shieldUses = 0;
-        additionalFood.clear();
-    }
-
     // Open skill menu
     private void openSkillMenu() {
-        if (!gameRunning || skillMenuStage != null) return;
+        if (!frame.isRunning() || skillMenuStage != null) return;
 
-        // 暂停游戏
-        gameRunning = false;
+        // 暂停游戏, 模拟线程停下后菜单才能修改技能; 游戏已经停了就不打开
+        boolean paused = simulationThread.call(() -> {
+            boolean running = simulation.isRunning();
+            simulation.pause();
+            return running;
+        });
+        if (!paused) return;
 
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/skill-menu.fxml"));
@@ -986,7 +910,7 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
                 skillMenuStage.close();
                 skillMenuStage = null;
                 // 恢复游戏
-                gameRunning = true;
+                simulationThread.execute(simulation::resume);
                 Platform.runLater(() -> gameCanvas.requestFocus());
             });
 
@@ -1038,9 +962,11 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
                     skillDetailStage = null;
 
                     // 获得技能并恢复游戏
-                    gameState.awardSkill(skill);
+                    simulationThread.execute(() -> {
+                        gameState.awardSkill(skill);
+                        simulation.resume();
+                    });
                     notificationSystem.showSkillUnlocked(skill);
-                    gameRunning = true;
 
                     // 确保画布获得焦点
                     Platform.runLater(() -> gameCanvas.requestFocus());
@@ -1051,9 +977,11 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
                     skillDetailStage = null;
 
                     // 获得技能并恢复游戏
-                    gameState.awardSkill(skill);
+                    simulationThread.execute(() -> {
+                        gameState.awardSkill(skill);
+                        simulation.resume();
+                    });
                     notificationSystem.showSkillUnlocked(skill);
-                    gameRunning = true;
 
                     // 确保画布获得焦点
                     Platform.runLater(() -> gameCanvas.requestFocus());
@@ -1068,9 +996,11 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
             System.out.println("无法加载技能详情界面: " + e.getMessage());
 
             // 回退处理：直接获得技能
-            gameState.awardSkill(skill);
+            simulationThread.execute(() -> {
+                gameState.awardSkill(skill);
+                simulation.resume();
+            });
             notificationSystem.showSkillUnlocked(skill);
-            gameRunning = true;
         }
     }
 
@@ -1164,8 +1094,8 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
                 gameState,
                 skillManager,
                 isWinScreen,
-                maxSnakeLength,
-                foodConsumed,
+                simulation.getMaxSnakeLength(),
+                simulation.getFoodConsumed(),
                 this::restartGame,
                 this::exitGame
             );
@@ -1174,7 +1104,7 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
             gameOverStage.show();
 
             // Update main game UI to reflect game over state
-            gameStatus.setText(isWinScreen ? "恭喜获胜! 最终分数: " + score : "游戏结束! 最终分数: " + score);
+            gameStatus.setText(isWinScreen ? "恭喜获胜! 最终分数: " + simulation.getScore() : "游戏结束! 最终分数: " + simulation.getScore());
             startButton.setText("重新开始");
             startButton.setStyle("-fx-background-color: #3498db; -fx-text-fill: white; " +
                                "-fx-padding: 10px 20px; -fx-border-radius: 5px; " +
@@ -1214,7 +1144,7 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
                                "; -fx-font-size: 48px; -fx-font-weight: bold;");
 
             // Score
-            Label scoreLabel = new Label("最终得分: " + score);
+            Label scoreLabel = new Label("最终得分: " + simulation.getScore());
             scoreLabel.setStyle("-fx-text-fill: #f1c40f; -fx-font-size: 32px; -fx-font-weight: bold;");
 
             // Statistics
@@ -1231,10 +1161,10 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
             Label skillsLabel = new Label("获得技能: " + gameState.getSkillsEarned());
             skillsLabel.setStyle("-fx-text-fill: #bdc3c7; -fx-font-size: 14px;");
 
-            Label foodLabel = new Label("食物消耗: " + foodConsumed);
+            Label foodLabel = new Label("食物消耗: " + simulation.getFoodConsumed());
             foodLabel.setStyle("-fx-text-fill: #bdc3c7; -fx-font-size: 14px;");
 
-            Label lengthLabel = new Label("最大长度: " + maxSnakeLength);
+            Label lengthLabel = new Label("最大长度: " + simulation.getMaxSnakeLength());
             lengthLabel.setStyle("-fx-text-fill: #bdc3c7; -fx-font-size: 14px;");
 
             statsBox.getChildren().addAll(statsTitle, timeLabel, skillsLabel, foodLabel, lengthLabel);
@@ -1274,7 +1204,7 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         } catch (Exception e) {
             System.out.println("Error creating fallback game over screen: " + e.getMessage());
             // Ultimate fallback - just update the main UI
-            gameStatus.setText(isWinScreen ? "恭喜获胜! 最终分数: " + score : "游戏结束! 最终分数: " + score);
+            gameStatus.setText(isWinScreen ? "恭喜获胜! 最终分数: " + simulation.getScore() : "游戏结束! 最终分数: " + simulation.getScore());
             startButton.setText("重新开始");
             startButton.setStyle("-fx-background-color: #3498db; -fx-text-fill: white; " +
                                "-fx-padding: 10px 20px; -fx-border-radius: 5px; " +
@@ -1323,6 +1253,8 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         }
 
         // Close the application
+        simulationThread.close();
+        tileRenderer.close();
         Platform.exit();
         System.exit(0);
     }
@@ -1362,254 +1294,6 @@ public class SnakeGameWSAD extends Application implements SkillManager.SnakeGame
         }
     }
 
-    // Generate additional food for double food skill
-    private void generateAdditionalFood() {
-        Random random = new Random();
-        int x, y;
-        boolean validPosition;
-
-        do {
-            validPosition = true;
-            x = random.nextInt(GRID_WIDTH);
-            y = random.nextInt(GRID_HEIGHT);
-
-            // Check if position conflicts with snake
-            for (Point p : snake) {
-                if (p.x == x && p.y == y) {
-                    validPosition = false;
-                    break;
-                }
-            }
-
-            // Check if position conflicts with main food
-            if (food.x == x && food.y == y) {
-                validPosition = false;
-            }
-
-        } while (!validPosition);
-
-        additionalFood.add(new Point(x, y));
-    }
-
-    // Apply food magnet effect
-    private Point applyFoodMagnet(Point newHead) {
-        // Check if food is within magnet radius
-        int dx = food.x - newHead.x;
-        int dy = food.y - newHead.y;
-        int distance = Math.abs(dx) + Math.abs(dy); // Manhattan distance
-
-        if (distance <= foodMagnetRadius) {
-            // Move towards food
-            if (Math.abs(dx) > Math.abs(dy)) {
-                newHead.x += (dx > 0) ? 1 : -1;
-            } else if (dy != 0) {
-                newHead.y += (dy > 0) ? 1 : -1;
-            }
-        }
-
-        return newHead;
-    }
-
-    // ===== COMPREHENSIVE SKILL EFFECTS IMPLEMENTATION =====
-
-    // Movement effects
-    @Override
-    public void applySpeedMultiplier(double multiplier) {
-        this.speedMultiplier = multiplier;
-    }
-
-    @Override
-    public void enableWallPhasing() {
-        this.wallPhasingEnabled = true;
-    }
-
-    // Food effects
-    @Override
-    public void enableFoodMagnet(int radius) {
-        this.foodMagnetRadius = radius;
-    }
-
-    @Override
-    public void enableDoubleFood() {
-        this.doubleFood = true;
-        if (additionalFood.isEmpty()) {
-            generateAdditionalFood();
-        }
-    }
-
-    @Override
-    public void enableLuckyStarFood() {
-        this.luckyStarEnabled = true;
-    }
-
-    // Scoring effects
-    @Override
-    public void applyScoreMultiplier(double multiplier) {
-        this.scoreMultiplier = multiplier;
-    }
-
-    @Override
-    public void enableScoreFrenzy() {
-        this.scoreFrenzyEnabled = true;
-        gameState.enableScoreFrenzy();
-    }
-
-    // Survival effects
-    @Override
-    public void enableBasicShield() {
-        this.basicShieldEnabled = true;
-        this.shieldUses = 1; // Single use
-    }
-
-    @Override
-    public void enableSteelBody() {
-        this.steelBodyEnabled = true;
-    }
-
-    @Override
-    public void enableGhostMode() {
-        this.ghostModeEnabled = true;
-    }
-
-    @Override
-    public void enableSecondChance() {
-        this.secondChanceEnabled = true;
-    }
-
-    @Override
-    public void enableInvincibility() {
-        this.invincibilityEnabled = true;
-    }
-
-    // Time effects
-    @Override
-    public void enableTimeRewind() {
-        this.timeRewindEnabled = true;
-    }
-
-    @Override
-    public void enableTimeFreezeMode() {
-        this.timeFreezeEnabled = true;
-    }
-
-    // World effects
-    @Override
-    public void enableWorldShrink() {
-        this.worldShrinkEnabled = true;
-        this.worldShrinkFactor = 0.7; // 30% shrink
-    }
-
-    // System effects
-    @Override
-    public void expandSkillSlots() {
-        // This would be handled by GameState
-        notificationSystem.showGameNotification("Skill Slots", "Additional slot unlocked!", "📦");
-    }
-
-    @Override
-    public void teleportSnake() {
-        if (snake.isEmpty()) return;
-
-        Random random = new Random();
-        Point newPosition;
-        boolean validPosition;
-
-        do {
-            validPosition = true;
-            newPosition = new Point(
-                random.nextInt(GRID_WIDTH),
-                random.nextInt(GRID_HEIGHT)
-            );
-
-            // Check if position is safe (not on food or snake body)
-            if (newPosition.x == food.x && newPosition.y == food.y) {
-                validPosition = false;
-            }
-
-            for (Point p : snake) {
-                if (p.x == newPosition.x && p.y == newPosition.y) {
-                    validPosition = false;
-                    break;
-                }
-            }
-
-        } while (!validPosition);
-
-        // Move snake head to new position
-        snake.removeFirst();
-        snake.addFirst(newPosition);
-    }
-
-    // Size effects
-    @Override
-    public void shrinkSnake() {
-        // Remove half of the snake's length (minimum 1 segment)
-        int segmentsToRemove = Math.max(1, snake.size() / 2);
-
-        for (int i = 0; i < segmentsToRemove && snake.size() > 1; i++) {
-            snake.removeLast();
-        }
-
-        notificationSystem.showGameNotification("Body Split", "Snake length halved!", "✂");
-    }
-
-    @Override
-    public void growSnake() {
-        // Double the snake's length by duplicating tail segments
-        int currentSize = snake.size();
-        Point tail = snake.getLast();
-
-        for (int i = 0; i < currentSize && i < 10; i++) { // Limit growth to prevent excessive length
-            snake.addLast(new Point(tail.x, tail.y));
-        }
-
-        notificationSystem.showGameNotification("Body Growth", "Snake length doubled!", "📈");
-    }
-
-    /**
-     * Save current game state for time rewind
-     */
-    private void saveGameStateSnapshot() {
-        // Create snapshot data containing snake position, food position, etc.
-        GameStateData snapshotData = new GameStateData(
-            new ArrayDeque<>(snake),
-            new Point(food.x, food.y),
-            new ArrayList<>(additionalFood),
-            currentDirection
-        );
-
-        gameState.saveStateSnapshot(snapshotData);
-    }
-
-    /**
-     * Apply world shrink effect to game area
-     */
-    private void applyWorldShrinkEffect() {
-        if (worldShrinkEnabled) {
-            // This would modify the effective game area
-            // For now, we'll just show a notification
-            notificationSystem.showGameNotification("World Shrink", "Game area reduced!", "🔄");
-        }
-    }
-
-    /**
-     * Game state data for snapshots
-     */
-    private static class GameStateData {
-        final Deque<Point> snakePosition;
-        final Point foodPosition;
-        final List<Point> additionalFoodPositions;
-        final Direction direction;
-
-        GameStateData(Deque<Point> snakePosition, Point foodPosition,
-                     List<Point> additionalFoodPositions, Direction direction) {
-            this.snakePosition = snakePosition;
-            this.foodPosition = foodPosition;
-            this.additionalFoodPositions = additionalFoodPositions;
-            this.direction = direction;
-        }
-    }
-
     public static void main(String[] args) {
         launch(args);
     }
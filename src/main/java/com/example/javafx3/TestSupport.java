@@ -0,0 +1,59 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.manager.GameState;
+import com.example.javafx3.model.SkillCard;
+import com.example.javafx3.model.SkillEffect;
+
+/**
+ * Checks and fixtures shared by the test classes
+ * A test prints PASS or FAIL per check and calls {@link #finish(String)} at the end,
+ * which exits with status 1 if any check failed.
+ */
+final class TestSupport {
+
+    private static int failures = 0;
+
+    private TestSupport() {
+    }
+
+    static void check(String name, boolean passed) {
+        System.out.println((passed ? "PASS: " : "FAIL: ") + name);
+        if (!passed) failures++;
+    }
+
+    /**
+     * Exit with status 1 if a check failed, otherwise report the test as completed
+     */
+    static void finish(String title) {
+        if (failures > 0) {
+            System.out.println("\n" + failures + " check(s) FAILED");
+            System.exit(1);
+        }
+        System.out.println("\n=== " + title + " COMPLETED ===");
+    }
+
+    /**
+     * Award and activate a skill, as if the player picked it
+     */
+    static void activate(SnakeSimulation simulation, SkillEffect effect) {
+        GameState gameState = simulation.getGameState();
+        SkillCard skill = new SkillCard(effect, gameState.getClock());
+        gameState.awardSkill(skill);
+        gameState.activateSkill(skill);
+    }
+
+    /**
+     * Grow the snake to the given length and lay it out along the Hamiltonian cycle of
+     * {@link EngineBenchmark#nextCycleDirection(SnakeSimulation)}; the board height must be even
+     */
+    static void growAlongCycle(SnakeSimulation simulation, int length) {
+        // Body growth stacks segments on the tail, walking the cycle unrolls them
+        while (simulation.getSnakeLength() < length) {
+            simulation.growSnake();
+        }
+        for (int i = 0; i < simulation.getSnakeLength(); i++) {
+            simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.FixedStepLoop;
+import com.example.javafx3.engine.InputQueue;
+import com.example.javafx3.engine.SimulationListener;
+import com.example.javafx3.engine.SimulationThread;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.engine.TripleBuffer;
+import com.example.javafx3.render.BoardCapture;
+import com.example.javafx3.render.BoardSnapshot;
+import com.example.javafx3.render.PixelBoardRenderer;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test class for running the simulation on a thread of its own
+ * Checks the input queue and the frame hand-over between two real threads, the tick
+ * schedule and commands of the simulation thread, that a failing tick or command leaves
+ * the thread answering, and that a renderer drawing only the latest of the published
+ * snapshots draws the same board as a full repaint.
+ * Timing checks are lenient, the machine may be busy.
+ */
+public class ThreadedSimulationTest {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("=== THREADED SIMULATION TEST ===");
+
+        // Test 1: every input arrives once and in order
+        System.out.println("\n=== TEST 1: INPUT QUEUE ===");
+        testInputQueue();
+
+        // Test 2: the reader never sees a frame being written
+        System.out.println("\n=== TEST 2: TRIPLE BUFFER ===");
+        testTripleBuffer();
+
+        // Test 3: ticks on schedule, commands between ticks
+        System.out.println("\n=== TEST 3: SIMULATION THREAD ===");
+        testSimulationThread();
+
+        // Test 4: a throwing tick ends the game, not the thread
+        System.out.println("\n=== TEST 4: THROWING TICK ===");
+        testFailingTick();
+
+        // Test 5: drawing the latest snapshot only, the others skipped
+        System.out.println("\n=== TEST 5: SKIPPED SNAPSHOTS ===");
+        testSkippedSnapshots();
+
+        TestSupport.finish("THREADED SIMULATION TEST");
+    }
+
+    private static void testInputQueue() throws InterruptedException {
+        InputQueue queue = new InputQueue(5);
+        TestSupport.check("capacity rounded up", queue.getCapacity() == 8);
+        for (int i = 0; i < 8; i++) {
+            queue.offer(Direction.UP);
+        }
+        TestSupport.check("full queue refuses", !queue.offer(Direction.DOWN));
+        queue.clear();
+        TestSupport.check("cleared", queue.isEmpty() && queue.poll() == null);
+
+        int count = 100_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!queue.offer(DIRECTIONS[i % DIRECTIONS.length])) {
+                    Thread.yield(); // The other side may share the core
+                }
+            }
+        });
+        producer.start();
+        int received = 0;
+        int outOfOrder = 0;
+        while (received < count) {
+            Direction direction = queue.poll();
+            if (direction == null) {
+                Thread.yield(); // The other side may share the core
+                continue;
+            }
+            if (direction != DIRECTIONS[received % DIRECTIONS.length]) {
+                outOfOrder++;
+            }
+            received++;
+        }
+        producer.join();
+        System.out.println(received + " inputs received, " + outOfOrder + " out of order");
+        TestSupport.check("every input in order", outOfOrder == 0);
+        TestSupport.check("nothing left over", queue.isEmpty());
+    }
+
+    private static void testTripleBuffer() throws InterruptedException {
+        TripleBuffer<long[]> frames = new TripleBuffer<>(() -> new long[64]);
+        int count = 100_000;
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (long sequence = 1; sequence <= count; sequence++) {
+                long[] frame = frames.getBack();
+                for (int i = 0; i < frame.length; i++) {
+                    frame[i] = sequence;
+                }
+                frames.publish();
+                if (sequence % 64 == 0) {
+                    Thread.yield(); // Let the reader in between, also on one core
+                }
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        long last = 0;
+        int taken = 0;
+        int torn = 0;
+        int backwards = 0;
+        while (true) {
+            boolean finished = done.get();
+            if (!frames.update()) {
+                if (finished) {
+                    break; // The last frame was taken
+                }
+                Thread.yield(); // The other side may share the core
+                continue;
+            }
+            long[] frame = frames.getFront();
+            taken++;
+            for (int i = 1; i < frame.length; i++) {
+                if (frame[i] != frame[0]) {
+                    torn++;
+                    break;
+                }
+            }
+            if (frame[0] < last) {
+                backwards++;
+            }
+            last = frame[0];
+        }
+        writer.join();
+        System.out.println(count + " frames published, " + taken + " taken, " + torn + " torn, last " + last);
+        TestSupport.check("no torn frames", torn == 0);
+        TestSupport.check("frames in order", backwards == 0);
+        TestSupport.check("latest frame taken", last == count);
+    }
+
+    private static void testSimulationThread() throws InterruptedException {
+        long stepNanos = 2_000_000L;
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong ticks = new AtomicLong();
+        AtomicInteger published = new AtomicInteger();
+        FixedStepLoop loop = new FixedStepLoop();
+        SimulationThread thread = new SimulationThread(loop, () -> stepNanos,
+                () -> { ticks.incrementAndGet(); return true; }, running::get, published::incrementAndGet);
+
+        thread.invokeAndWait(() -> ticks.set(0)); // Not started, runs right here
+        thread.start();
+        long start = System.nanoTime();
+        Thread.sleep(500);
+        // Answered after the state it left was published
+        int[] publishedBefore = new int[1];
+        long ran = thread.call(() -> {
+            running.set(false);
+            publishedBefore[0] = published.get();
+            return ticks.get();
+        });
+        long elapsed = System.nanoTime() - start;
+        TestSupport.check("answer after publishing", published.get() > publishedBefore[0]);
+
+        long expected = elapsed / stepNanos;
+        System.out.println("Ticks: " + ran + ", expected about " + expected);
+        System.out.println("Jitter: " + loop.getStats().report(stepNanos));
+        TestSupport.check("ticks on schedule", ran > expected * 3 / 4 && ran <= expected + 2);
+
+        Thread.sleep(50);
+        TestSupport.check("no ticks while stopped", ticks.get() == ran);
+        boolean[] onThread = new boolean[1];
+        thread.invokeAndWait(() -> onThread[0] = thread.isSimulationThread());
+        TestSupport.check("commands run on the simulation thread", onThread[0]);
+        try {
+            thread.invokeAndWait(() -> { throw new IllegalStateException("command failed"); });
+            TestSupport.check("command failure rethrown", false);
+        } catch (IllegalStateException e) {
+            TestSupport.check("command failure rethrown", "command failed".equals(e.getMessage()));
+        }
+        thread.close();
+    }
+
+    private static void testFailingTick() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong ticks = new AtomicLong();
+        AtomicInteger failures = new AtomicInteger();
+        SimulationThread thread = new SimulationThread(new FixedStepLoop(), () -> 1_000_000L,
+                () -> {
+                    if (ticks.incrementAndGet() == 5) {
+                        throw new IllegalStateException("tick failed");
+                    }
+                    return true;
+                },
+                running::get, () -> { },
+                e -> {
+                    failures.incrementAndGet();
+                    running.set(false); // Ends the game
+                });
+        thread.start();
+        Thread.sleep(100);
+
+        // The thread survived the failure and still answers
+        long ran = thread.call(ticks::get);
+        TestSupport.check("failure handed to the handler once", failures.get() == 1);
+        TestSupport.check("no ticks after the failure", ran == 5);
+        thread.invokeAndWait(() -> running.set(true));
+        Thread.sleep(20);
+        TestSupport.check("ticks again after a restart", thread.call(ticks::get) > 5);
+
+        // An Error from a command comes back to the caller instead of losing the answer
+        try {
+            thread.invokeAndWait(() -> { throw new AssertionError("command error"); });
+            TestSupport.check("command error rethrown", false);
+        } catch (AssertionError e) {
+            TestSupport.check("command error rethrown", "command error".equals(e.getMessage()));
+        }
+        TestSupport.check("answers after a command error", thread.call(() -> true));
+        thread.close();
+    }
+
+    private static void testSkippedSnapshots() throws InterruptedException {
+        int width = 40;
+        int height = 24;
+        int cellSize = 4;
+        SnakeSimulation simulation = new SnakeSimulation(width, height, 11);
+        simulation.setListener(SimulationListener.NONE);
+        simulation.start();
+
+        BoardCapture capture = new BoardCapture();
+        TripleBuffer<BoardSnapshot> frames = new TripleBuffer<>(BoardSnapshot::new);
+        SimulationThread thread = new SimulationThread(new FixedStepLoop(), () -> 500_000L,
+                () -> {
+                    capture.beforeTick(simulation);
+                    simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+                    return simulation.isRunning();
+                },
+                simulation::isRunning,
+                () -> {
+                    capture.capture(simulation, frames.getBack());
+                    frames.publish();
+                });
+
+        int[] background = FramebufferTest.background(width * cellSize, height * cellSize, cellSize);
+        int[][] sprites = FramebufferTest.sprites(cellSize);
+        PixelBoardRenderer incremental = FramebufferTest.renderer(width, height, cellSize, background, sprites);
+        PixelBoardRenderer full = FramebufferTest.renderer(width, height, cellSize, background, sprites);
+
+        SplittableRandom random = new SplittableRandom(11);
+        thread.start();
+        int drawn = 0;
+        int skipped = 0;
+        int mismatches = 0;
+        long lastSequence = 0;
+        boolean stopped = false;
+        long end = System.nanoTime() + 1_000_000_000L;
+        while (true) {
+            Thread.sleep(random.nextInt(4)); // Frames slower than ticks, several published in between
+            if (!stopped && System.nanoTime() >= end) {
+                thread.invokeAndWait(simulation::pause); // The last frame is published when it returns
+                stopped = true;
+            }
+            if (!frames.update()) {
+                if (stopped) {
+                    break;
+                }
+                continue;
+            }
+            BoardSnapshot snapshot = frames.getFront();
+            if (snapshot.getSequence() > lastSequence + 1) {
+                skipped++;
+            }
+            lastSequence = snapshot.getSequence();
+
+            double alpha = random.nextDouble();
+            incremental.draw(snapshot, alpha);
+            full.invalidate();
+            full.draw(snapshot, alpha);
+            drawn++;
+            if (!incremental.getPixels().equals(full.getPixels()) && mismatches++ == 0) {
+                System.out.println("First mismatch at snapshot " + snapshot.getSequence());
+            }
+        }
+        thread.close();
+        System.out.println(drawn + " snapshots drawn, " + skipped + " after skipped ones, "
+                + lastSequence + " published, " + mismatches + " mismatches");
+        TestSupport.check("skipped snapshots drawn correctly", mismatches == 0);
+        TestSupport.check("snapshots were skipped", skipped > 0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.javafx3;
+
+import com.example.javafx3.engine.FixedStepLoop;
+import com.example.javafx3.engine.InputBuffer;
+import com.example.javafx3.engine.SimulationListener;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.engine.StepResult;
+import com.example.javafx3.model.EffectSet;
+import com.example.javafx3.model.SkillEffect;
+import com.example.javafx3.render.BoardCapture;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Allocation regression test for the simulation tick
+ * A steady-state tick (moving, no food eaten) must not allocate, so the GC stays
+ * silent during long sessions. The tick is measured as the simulation thread runs it,
+ * stepping and then publishing a GameFrame. Exits with status 1 when a tick allocates again.
+ */
+public class TickAllocationTest {
+
+    private static final int GRID_WIDTH = 60;
+    private static final int GRID_HEIGHT = 32; // Must be even for the Hamiltonian cycle
+    private static final int WARMUP_TICKS = 200_000; // Tier-up and deoptimization settle late, fewer ticks flake
+    private static final int MEASURED_TICKS = 200_000;
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final BoardCapture BOARD_CAPTURE = new BoardCapture();
+    private static final InputBuffer DIRECTION_BUFFER = new InputBuffer(SnakeGameWSAD.BUFFER_SIZE);
+    private static final FixedStepLoop LOOP = new FixedStepLoop();
+    private static final GameFrame FRAME = new GameFrame();
+
+    public static void main(String[] args) {
+        System.out.println("=== TICK ALLOCATION TEST ===");
+
+        if (!THREAD_BEAN.isThreadAllocatedMemorySupported()) {
+            System.out.println("SKIPPED: thread allocation accounting is not supported by this JVM");
+            return;
+        }
+        THREAD_BEAN.setThreadAllocatedMemoryEnabled(true);
+
+        SnakeSimulation simulation = new SnakeSimulation(GRID_WIDTH, GRID_HEIGHT);
+        simulation.setListener(SimulationListener.NONE);
+        startWithSkills(simulation);
+
+        // Let the JIT settle, escape analysis only kicks in once the code is compiled
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            tick(simulation);
+        }
+
+        long probeCost = measureProbeCost();
+        long allocatingTicks = 0;
+        long allocatedBytes = 0;
+        int measured = 0;
+
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            EffectSet effects = simulation.getEffects();
+            long before = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+            StepResult result = tick(simulation);
+            long bytes = THREAD_BEAN.getCurrentThreadAllocatedBytes() - before - probeCost;
+
+            // Eating food, earning skills, skills expiring and ending the game are events, not steady state
+            if (result != StepResult.MOVED || simulation.getEffects() != effects) continue;
+
+            measured++;
+            if (bytes > 0) {
+                allocatingTicks++;
+                allocatedBytes += bytes;
+            }
+        }
+
+        System.out.println("Steady-state ticks measured: " + measured);
+        System.out.println("Ticks that allocated: " + allocatingTicks);
+        System.out.println("Bytes allocated: " + allocatedBytes);
+
+        if (allocatingTicks > 0) {
+            System.out.println("FAIL: the game tick allocates again");
+            System.exit(1);
+        }
+        System.out.println("PASS: the game tick is allocation-free");
+    }
+
+    /**
+     * Run and publish one tick along the Hamiltonian cycle, restarting the game once it ended
+     */
+    private static StepResult tick(SnakeSimulation simulation) {
+        if (simulation.isGameOver()) {
+            simulation.reset();
+            startWithSkills(simulation);
+            return StepResult.IDLE;
+        }
+        BOARD_CAPTURE.beforeTick(simulation);
+        StepResult result = simulation.step(EngineBenchmark.nextCycleDirection(simulation));
+        FRAME.capture(simulation, BOARD_CAPTURE, DIRECTION_BUFFER, 0, 0, LOOP, System.nanoTime());
+        return result;
+    }
+
+    /**
+     * Start a game with a few per-tick skills active so their code paths are covered
+     */
+    private static void startWithSkills(SnakeSimulation simulation) {
+        simulation.start();
+        for (SkillEffect effect : new SkillEffect[]{SkillEffect.DOUBLE_SCORE, SkillEffect.GHOST_MODE, SkillEffect.SCORE_FRENZY}) {
+            TestSupport.activate(simulation, effect);
+        }
+    }
+
+    /**
+     * Bytes reported by two back-to-back reads, subtracted from every measurement
+     */
+    private static long measureProbeCost() {
+        long cost = Long.MAX_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long before = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+            long after = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+            cost = Math.min(cost, after - before);
+        }
+        return cost;
+    }
+}
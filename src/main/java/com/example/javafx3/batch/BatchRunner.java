@@ -0,0 +1,174 @@
+package com.example.javafx3.batch;
+
+import com.example.javafx3.engine.SimulationListener;
+import com.example.javafx3.engine.SnakeSimulation;
+import com.example.javafx3.manager.GameState;
+import com.example.javafx3.model.SkillCard;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Command line batch runner for skill-balance experiments
+ * Plays N seeded headless games with a bot policy on all cores and prints histograms
+ * of score, game length, snake length, skills earned and the end reason.
+ * Game i always gets the same seed for the same master seed, so two runs with a
+ * changed balance knob compare the same games.
+ *
+ * Usage: BatchRunner [--games N] [--bot greedy|random|cycle] [--threads T]
+ *                    [--seed S] [--width W] [--height H] [--max-ticks M]
+ */
+public class BatchRunner {
+
+    private static final int GAMES_PER_TASK = 256; // Each leaf task reuses one simulation
+    private static final int HISTOGRAM_BINS = 12;
+
+    private final int width;
+    private final int height;
+    private final int maxTicks;
+    private final long masterSeed;
+    private final Supplier<BotPolicy> botFactory;
+
+    public BatchRunner(int width, int height, int maxTicks, long masterSeed, Supplier<BotPolicy> botFactory) {
+        this.width = width;
+        this.height = height;
+        this.maxTicks = maxTicks;
+        this.masterSeed = masterSeed;
+        this.botFactory = botFactory;
+    }
+
+    /**
+     * Play the games on the given pool and merge the results
+     */
+    public BatchStats run(int games, ForkJoinPool pool) {
+        return pool.invoke(new GameRangeTask(0, games));
+    }
+
+    /**
+     * Seed of game i, a mixed function of the master seed so neighbouring games are unrelated
+     */
+    long gameSeed(long index) {
+        long z = masterSeed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Splits the game range until it is small enough to play on one thread
+     */
+    private class GameRangeTask extends RecursiveTask<BatchStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        GameRangeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BatchStats compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                return playRange(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            GameRangeTask left = new GameRangeTask(from, mid);
+            left.fork();
+            BatchStats right = new GameRangeTask(mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    private BatchStats playRange(int from, int to) {
+        BatchStats stats = new BatchStats(maxTicks, width * height);
+        SnakeSimulation simulation = new SnakeSimulation(width, height, masterSeed);
+        GameState gameState = simulation.getGameState();
+        BotPolicy bot = botFactory.get();
+
+        // Bots take every skill and activate it right away when a slot is free
+        simulation.setListener(new SimulationListener() {
+            @Override
+            public void onSkillEarned(SkillCard skill) {
+                gameState.awardSkill(skill);
+                gameState.activateSkill(skill);
+            }
+        });
+
+        for (int game = from; game < to; game++) {
+            long seed = gameSeed(game);
+            simulation.reset(seed);
+            bot.onGameStart(seed);
+            simulation.start();
+
+            while (!simulation.isGameOver() && simulation.getTick() < maxTicks) {
+                simulation.step(bot.nextDirection(simulation));
+            }
+            stats.record(simulation, gameState.getSkillsEarned());
+        }
+        return stats;
+    }
+
+    private static Supplier<BotPolicy> botFactory(String name) {
+        switch (name) {
+            case "greedy": return GreedyBot::new;
+            case "random": return RandomBot::new;
+            case "cycle": return CycleBot::new;
+            default:
+                throw new IllegalArgumentException("Unknown bot: " + name + " (greedy, random, cycle)");
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --option value, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options;
+        try {
+            options = parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: BatchRunner [--games N] [--bot greedy|random|cycle] [--threads T] "
+                    + "[--seed S] [--width W] [--height H] [--max-ticks M]");
+            System.exit(1);
+            return;
+        }
+
+        int games = Integer.parseInt(options.getOrDefault("games", "100000"));
+        String botName = options.getOrDefault("bot", "greedy");
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int width = Integer.parseInt(options.getOrDefault("width", "30"));
+        int height = Integer.parseInt(options.getOrDefault("height", "20"));
+        int maxTicks = Integer.parseInt(options.getOrDefault("max-ticks", "20000"));
+
+        System.out.println("=== BATCH SIMULATION ===");
+        System.out.printf("Games: %d, bot: %s, board: %dx%d, threads: %d, seed: %d, max ticks: %d%n",
+                games, botName, width, height, threads, seed, maxTicks);
+
+        BatchRunner runner = new BatchRunner(width, height, maxTicks, seed, botFactory(botName));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        BatchStats stats = runner.run(games, pool);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+
+        System.out.println();
+        System.out.print(stats.render(HISTOGRAM_BINS));
+        System.out.printf("%nElapsed: %.2f s, %.0f games/min, %.1f M ticks/s%n",
+                seconds, stats.getGames() / seconds * 60, stats.getTotalTicks() / seconds / 1e6);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.javafx3.batch;
+
+import com.example.javafx3.engine.EndReason;
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Aggregated results of a batch of games, one instance per worker, merged at the end
+ */
+public class BatchStats {
+    private static final int MAX_SCORE = 2_000;
+    private static final int MAX_SKILLS = 15;
+
+    private final IntHistogram scores = new IntHistogram(MAX_SCORE);
+    private final IntHistogram ticks;
+    private final IntHistogram lengths;
+    private final IntHistogram skills = new IntHistogram(MAX_SKILLS);
+    private final long[] endReasons = new long[EndReason.values().length];
+    private long timeouts;
+    private long totalTicks;
+
+    public BatchStats(int maxTicks, int cellCount) {
+        this.ticks = new IntHistogram(maxTicks);
+        this.lengths = new IntHistogram(cellCount);
+    }
+
+    /**
+     * Record a finished (or timed out) game
+     */
+    public void record(SnakeSimulation simulation, int skillsEarned) {
+        scores.record(simulation.getScore());
+        ticks.record((int) simulation.getTick());
+        lengths.record(simulation.getMaxSnakeLength());
+        skills.record(skillsEarned);
+        totalTicks += simulation.getTick();
+
+        EndReason reason = simulation.getEndReason();
+        if (reason == null) {
+            timeouts++;
+        } else {
+            endReasons[reason.ordinal()]++;
+        }
+    }
+
+    public BatchStats merge(BatchStats other) {
+        scores.merge(other.scores);
+        ticks.merge(other.ticks);
+        lengths.merge(other.lengths);
+        skills.merge(other.skills);
+        for (int i = 0; i < endReasons.length; i++) {
+            endReasons[i] += other.endReasons[i];
+        }
+        timeouts += other.timeouts;
+        totalTicks += other.totalTicks;
+        return this;
+    }
+
+    public long getGames() { return scores.getTotal(); }
+    public long getTotalTicks() { return totalTicks; }
+    public long getEndReasonCount(EndReason reason) { return endReasons[reason.ordinal()]; }
+    public long getTimeouts() { return timeouts; }
+    public IntHistogram getScores() { return scores; }
+    public IntHistogram getTicks() { return ticks; }
+    public IntHistogram getLengths() { return lengths; }
+    public IntHistogram getSkills() { return skills; }
+
+    public String render(int bins) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(scores.render("Score", bins)).append('\n');
+        sb.append(ticks.render("Game length (ticks)", bins)).append('\n');
+        sb.append(lengths.render("Max snake length", bins)).append('\n');
+        sb.append(skills.render("Skills earned", MAX_SKILLS + 1)).append('\n');
+
+        sb.append("End reason:\n");
+        long games = getGames();
+        for (EndReason reason : EndReason.values()) {
+            sb.append(String.format("  %-10s %6.2f%%%n", reason, 100.0 * endReasons[reason.ordinal()] / games));
+        }
+        sb.append(String.format("  %-10s %6.2f%%%n", "TIMEOUT", 100.0 * timeouts / games));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.javafx3.batch;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Strategy that steers the snake in headless batch games
+ * One instance plays one game at a time on one thread, so policies may keep state.
+ */
+public interface BotPolicy {
+
+    /**
+     * Called before each game with that game's seed
+     */
+    default void onGameStart(long seed) {
+    }
+
+    /**
+     * Direction for the next tick, null keeps the current one
+     */
+    Direction nextDirection(SnakeSimulation simulation);
+
+    /**
+     * Check that moving in the direction neither leaves the board nor hits the body.
+     * The tail cell counts as free, it moves away in the same tick unless food is eaten.
+     */
+    static boolean isSafe(SnakeSimulation simulation, Direction direction) {
+        if (!isOnBoard(simulation, direction)) {
+            return false;
+        }
+        int head = simulation.getBody().head();
+        int x = simulation.cellX(head) + direction.getDx();
+        int y = simulation.cellY(head) + direction.getDy();
+        int cell = y * simulation.getGridWidth() + x;
+        if (!simulation.getOccupancy().isOccupied(cell)) {
+            return true;
+        }
+        return cell == simulation.getBody().tail() && cell != simulation.getFoodCell();
+    }
+
+    /**
+     * Check that moving in the direction stays on the board
+     */
+    static boolean isOnBoard(SnakeSimulation simulation, Direction direction) {
+        int head = simulation.getBody().head();
+        int x = simulation.cellX(head) + direction.getDx();
+        int y = simulation.cellY(head) + direction.getDy();
+        return x >= 0 && x < simulation.getGridWidth() && y >= 0 && y < simulation.getGridHeight();
+    }
+}
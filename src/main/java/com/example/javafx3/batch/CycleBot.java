@@ -0,0 +1,30 @@
+package com.example.javafx3.batch;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Follows a Hamiltonian cycle of the board (zig-zag over columns 1..W-1, back up
+ * column 0), so it never dies and always fills the board. Needs an even height.
+ */
+public class CycleBot implements BotPolicy {
+
+    @Override
+    public Direction nextDirection(SnakeSimulation simulation) {
+        int width = simulation.getGridWidth();
+        int height = simulation.getGridHeight();
+        int x = simulation.cellX(simulation.getBody().head());
+        int y = simulation.cellY(simulation.getBody().head());
+
+        if (x == 0) {
+            return y == 0 ? Direction.RIGHT : Direction.UP;
+        }
+        if (y % 2 == 0) {
+            return x < width - 1 ? Direction.RIGHT : Direction.DOWN;
+        }
+        if (x > 1) {
+            return Direction.LEFT;
+        }
+        return y == height - 1 ? Direction.LEFT : Direction.DOWN;
+    }
+}
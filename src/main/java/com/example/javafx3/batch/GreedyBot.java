@@ -0,0 +1,48 @@
+package com.example.javafx3.batch;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Heads straight for the food, only avoiding moves that collide on the next tick
+ */
+public class GreedyBot implements BotPolicy {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Override
+    public Direction nextDirection(SnakeSimulation simulation) {
+        Direction current = simulation.getCurrentDirection();
+        int food = simulation.getFoodCell();
+        if (food < 0) {
+            return null;
+        }
+
+        int head = simulation.getBody().head();
+        int headX = simulation.cellX(head);
+        int headY = simulation.cellY(head);
+        int foodX = simulation.cellX(food);
+        int foodY = simulation.cellY(food);
+
+        Direction best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Direction direction : DIRECTIONS) {
+            if (direction == current.opposite() || !BotPolicy.isSafe(simulation, direction)) continue;
+
+            int distance = Math.abs(foodX - headX - direction.getDx()) + Math.abs(foodY - headY - direction.getDy());
+            if (distance < bestDistance) {
+                best = direction;
+                bestDistance = distance;
+            }
+        }
+        if (best == null) {
+            // Boxed in: still turn away from the edge, a survival skill may absorb the body hit,
+            // pushing into a wall that blocks every tick would stall the game
+            for (Direction direction : DIRECTIONS) {
+                if (direction != current.opposite() && BotPolicy.isOnBoard(simulation, direction)) {
+                    return direction;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.javafx3.batch;
+
+import java.util.Arrays;
+
+/**
+ * Exact histogram of non-negative int values with percentiles
+ * One counter per value up to a cap, values above the cap land in the last counter.
+ * Recording is a single increment, so it is cheap enough for every game of a batch.
+ */
+public class IntHistogram {
+    private static final int BAR_WIDTH = 40;
+
+    private final long[] counts;
+    private long total;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    public IntHistogram(int maxValue) {
+        this.counts = new long[maxValue + 1];
+    }
+
+    public void record(int value) {
+        int slot = Math.min(Math.max(value, 0), counts.length - 1);
+        counts[slot]++;
+        total++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add all values recorded in another histogram of the same size
+     */
+    public void merge(IntHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Smallest value with at least the given fraction of values at or below it
+     */
+    public int percentile(double fraction) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int value = 0; value < counts.length; value++) {
+            seen += counts[value];
+            if (seen >= rank) {
+                return value;
+            }
+        }
+        return counts.length - 1;
+    }
+
+    public double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    public long getTotal() { return total; }
+    public int getMin() { return total == 0 ? 0 : min; }
+    public int getMax() { return total == 0 ? 0 : max; }
+
+    /**
+     * Summary line plus an ASCII bar chart grouped into the given number of bins
+     */
+    public String render(String title, int bins) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s: mean=%.1f min=%d p50=%d p90=%d p99=%d max=%d%n",
+                title, mean(), getMin(), percentile(0.50), percentile(0.90), percentile(0.99), getMax()));
+        if (total == 0) {
+            return sb.toString();
+        }
+
+        int from = getMin();
+        int to = Math.min(getMax(), counts.length - 1);
+        int binWidth = Math.max(1, (to - from + bins) / bins);
+        long[] binCounts = new long[(to - from) / binWidth + 1];
+        for (int value = from; value <= to; value++) {
+            binCounts[(value - from) / binWidth] += counts[value];
+        }
+        long peak = Arrays.stream(binCounts).max().orElse(1);
+
+        for (int i = 0; i < binCounts.length; i++) {
+            int low = from + i * binWidth;
+            int bar = (int) (binCounts[i] * BAR_WIDTH / peak);
+            sb.append(String.format("  %6d-%-6d %6.2f%% %s%n", low, low + binWidth - 1,
+                    100.0 * binCounts[i] / total, "#".repeat(bar)));
+        }
+        return sb.toString();
+    }
+}
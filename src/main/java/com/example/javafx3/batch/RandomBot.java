@@ -0,0 +1,39 @@
+package com.example.javafx3.batch;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SnakeSimulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Wanders randomly: mostly keeps going straight, turns to a random safe direction
+ * now and then or when blocked. Seeded from the game seed, so games stay reproducible.
+ */
+public class RandomBot implements BotPolicy {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final double TURN_CHANCE = 0.2;
+
+    private final Direction[] safe = new Direction[DIRECTIONS.length];
+    private SplittableRandom random = new SplittableRandom(0);
+
+    @Override
+    public void onGameStart(long seed) {
+        random = new SplittableRandom(~seed);
+    }
+
+    @Override
+    public Direction nextDirection(SnakeSimulation simulation) {
+        Direction current = simulation.getCurrentDirection();
+        if (random.nextDouble() >= TURN_CHANCE && BotPolicy.isSafe(simulation, current)) {
+            return null;
+        }
+
+        int count = 0;
+        for (Direction direction : DIRECTIONS) {
+            if (direction != current.opposite() && BotPolicy.isSafe(simulation, direction)) {
+                safe[count++] = direction;
+            }
+        }
+        return count == 0 ? null : safe[random.nextInt(count)];
+    }
+}
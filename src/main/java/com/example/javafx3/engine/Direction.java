@@ -0,0 +1,47 @@
+package com.example.javafx3.engine;
+
+/**
+ * Movement direction of the snake head on the grid
+ */
+public enum Direction {
+    UP(0, -1),
+    DOWN(0, 1),
+    LEFT(-1, 0),
+    RIGHT(1, 0);
+
+    private final int dx;
+    private final int dy;
+
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    public int getDx() { return dx; }
+    public int getDy() { return dy; }
+
+    /**
+     * Get the direction pointing the opposite way
+     */
+    public Direction opposite() {
+        switch (this) {
+            case UP: return DOWN;
+            case DOWN: return UP;
+            case LEFT: return RIGHT;
+            default: return LEFT;
+        }
+    }
+
+    /**
+     * Get arrow symbol for display
+     */
+    public String getSymbol() {
+        switch (this) {
+            case UP: return "↑";
+            case DOWN: return "↓";
+            case LEFT: return "←";
+            case RIGHT: return "→";
+            default: return "?";
+        }
+    }
+}
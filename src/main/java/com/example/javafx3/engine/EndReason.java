@@ -0,0 +1,17 @@
+package com.example.javafx3.engine;
+
+/**
+ * Why a game ended
+ */
+public enum EndReason {
+    /** Snake hit the board edge */
+    WALL,
+    /** Snake ran into its own body */
+    SELF,
+    /** Win score reached */
+    WIN_SCORE,
+    /** No free cell left for food */
+    BOARD_FULL,
+    /** A tick failed, see {@link SnakeSimulation#abort()} */
+    ERROR
+}
@@ -0,0 +1,108 @@
+package com.example.javafx3.engine;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-timestep driver for the simulation, fed with frame timestamps.
+ * Elapsed time is added to an accumulator and as many ticks run as it covers, so
+ * tick rates above the frame rate are honored exactly and timing never drifts.
+ * After a hitch at most maxCatchUpTicks run in one frame; the rest of the backlog
+ * is dropped (and counted) instead of fast-forwarding the game.
+ * The leftover fraction of a tick is exposed as the render interpolation factor.
+ */
+public class FixedStepLoop {
+
+    /**
+     * One simulation tick
+     */
+    public interface Ticker {
+        /**
+         * @return false to stop running ticks for this frame (game paused or ended)
+         */
+        boolean tick();
+    }
+
+    public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+
+    private final int maxCatchUpTicks;
+    private final TickJitterStats stats = new TickJitterStats();
+    private long lastFrameTime = -1;
+    private long accumulator;
+    private long lastStepNanos = 1;
+
+    public FixedStepLoop() {
+        this(DEFAULT_MAX_CATCH_UP_TICKS);
+    }
+
+    public FixedStepLoop(int maxCatchUpTicks) {
+        if (maxCatchUpTicks < 1) {
+            throw new IllegalArgumentException("maxCatchUpTicks must be at least 1");
+        }
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    /**
+     * Run the ticks due at this frame
+     *
+     * @param nowNanos  frame timestamp
+     * @param stepNanos tick interval, read again before each tick since a tick may change the speed
+     * @return number of ticks run
+     */
+    public int advance(long nowNanos, LongSupplier stepNanos, Ticker ticker) {
+        if (lastFrameTime < 0) {
+            lastFrameTime = nowNanos;
+            return 0;
+        }
+        accumulator += nowNanos - lastFrameTime;
+        lastFrameTime = nowNanos;
+
+        int ran = 0;
+        long step = stepNanos.getAsLong();
+        while (accumulator >= step) {
+            if (ran == maxCatchUpTicks) {
+                // Too far behind, drop the backlog but keep the phase of the next tick
+                stats.recordDropped(accumulator / step);
+                accumulator %= step;
+                break;
+            }
+            stats.recordTick(nowNanos - accumulator + step, nowNanos);
+            accumulator -= step;
+            ran++;
+            if (!ticker.tick()) {
+                // The game stopped mid-frame, time spent stopped must not be caught up later
+                reset();
+                return ran;
+            }
+            step = stepNanos.getAsLong();
+        }
+        lastStepNanos = step;
+        return ran;
+    }
+
+    /**
+     * Forget elapsed time, used when the game is paused so resuming does not catch up
+     */
+    public void reset() {
+        lastFrameTime = -1;
+        accumulator = 0;
+        stats.breakSequence();
+    }
+
+    /**
+     * Fraction of the next tick already elapsed, in [0, 1), for interpolating rendering
+     * between the previous and the current state
+     */
+    public double getAlpha() {
+        return Math.min(1.0, (double) accumulator / lastStepNanos);
+    }
+
+    /**
+     * Time until the next tick is due, for a driver that sleeps between ticks
+     */
+    public long getNanosToNextTick(long stepNanos) {
+        return Math.max(0, stepNanos - accumulator);
+    }
+
+    public int getMaxCatchUpTicks() { return maxCatchUpTicks; }
+    public TickJitterStats getStats() { return stats; }
+}
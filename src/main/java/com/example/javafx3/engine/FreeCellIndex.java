@@ -0,0 +1,111 @@
+package com.example.javafx3.engine;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Set of free board cells (no snake segment, no food) with O(1) add, remove and
+ * uniform random pick. Cells are kept densely in an array, removal swaps the last
+ * cell into the hole, and a position map gives each cell's slot in that array.
+ */
+public class FreeCellIndex {
+    private static final int ABSENT = -1;
+
+    private final int[] cells;     // Dense list of free cell ids, first size entries are valid
+    private final int[] positions; // Cell id -> slot in cells, ABSENT when not free
+    private int size;
+
+    public FreeCellIndex(int cellCount) {
+        this.cells = new int[cellCount];
+        this.positions = new int[cellCount];
+        fill();
+    }
+
+    /**
+     * Mark every cell as free
+     */
+    public void fill() {
+        for (int cell = 0; cell < cells.length; cell++) {
+            cells[cell] = cell;
+            positions[cell] = cell;
+        }
+        size = cells.length;
+    }
+
+    /**
+     * Mark every cell as taken
+     */
+    public void clear() {
+        Arrays.fill(positions, ABSENT);
+        size = 0;
+    }
+
+    public boolean contains(int cell) {
+        return positions[cell] != ABSENT;
+    }
+
+    /**
+     * Add a cell to the free set, no-op if it is already free
+     */
+    public void add(int cell) {
+        if (positions[cell] != ABSENT) return;
+
+        cells[size] = cell;
+        positions[cell] = size;
+        size++;
+    }
+
+    /**
+     * Remove a cell from the free set, no-op if it is not free
+     */
+    public void remove(int cell) {
+        int slot = positions[cell];
+        if (slot == ABSENT) return;
+
+        // Swap the last free cell into the hole
+        size--;
+        int last = cells[size];
+        cells[slot] = last;
+        positions[last] = slot;
+        positions[cell] = ABSENT;
+    }
+
+    /**
+     * Pick a uniformly random free cell
+     *
+     * @return cell id, or -1 when the board is full
+     */
+    public int randomCell(RandomGenerator random) {
+        if (size == 0) {
+            return ABSENT;
+        }
+        return cells[random.nextInt(size)];
+    }
+
+    /**
+     * Write the free cells in slot order, random picks depend on it (16 bits per cell)
+     */
+    void saveState(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeShort(cells[i]);
+        }
+    }
+
+    /**
+     * Replace the free cells with ones written by saveState(), in the same slot order
+     */
+    void restoreState(DataInput in) throws IOException {
+        clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            add(in.readUnsignedShort());
+        }
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+}
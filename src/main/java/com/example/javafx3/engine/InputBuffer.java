@@ -0,0 +1,79 @@
+package com.example.javafx3.engine;
+
+/**
+ * Fixed-capacity buffer of the turns waiting for the next ticks, with their key press times
+ * A ring of direction ordinals and press times in primitive arrays, so buffering an
+ * input allocates nothing. When full the oldest input is dropped for the new one.
+ * Not thread-safe, used by the thread that steps the simulation.
+ */
+public class InputBuffer {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final byte[] directions;
+    private final long[] pressNanos;
+    private int head; // Oldest input
+    private int size;
+    private long polledPressNanos;
+
+    public InputBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        directions = new byte[capacity];
+        pressNanos = new long[capacity];
+    }
+
+    /**
+     * Add an input after the others, dropping the oldest if the buffer is full
+     *
+     * @param pressNanos System.nanoTime() of the key press
+     * @return false if an input was dropped
+     */
+    public boolean add(Direction direction, long pressNanos) {
+        boolean dropped = size == directions.length;
+        if (dropped) {
+            head = (head + 1) % directions.length;
+            size--;
+        }
+        int slot = (head + size) % directions.length;
+        directions[slot] = (byte) direction.ordinal();
+        this.pressNanos[slot] = pressNanos;
+        size++;
+        return !dropped;
+    }
+
+    /**
+     * Take the oldest input, its press time is then given by {@link #getPolledPressNanos()}
+     *
+     * @return null if the buffer is empty
+     */
+    public Direction poll() {
+        if (size == 0) {
+            return null;
+        }
+        Direction direction = DIRECTIONS[directions[head]];
+        polledPressNanos = pressNanos[head];
+        head = (head + 1) % directions.length;
+        size--;
+        return direction;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * The i-th oldest input
+     */
+    public Direction get(int i) {
+        return DIRECTIONS[directions[(head + i) % directions.length]];
+    }
+
+    public long getPressNanos(int i) { return pressNanos[(head + i) % directions.length]; }
+    public long getPolledPressNanos() { return polledPressNanos; }
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int getCapacity() { return directions.length; }
+}
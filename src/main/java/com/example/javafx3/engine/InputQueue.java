@@ -0,0 +1,100 @@
+package com.example.javafx3.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free queue of direction inputs from one producer thread to one consumer thread
+ * A fixed ring of direction ordinals and the times the keys were pressed; the producer
+ * only writes the tail, the consumer only the head, each published with release ordering
+ * and read with acquire ordering, so a key press reaches the simulation thread without
+ * locks or allocation. When the ring is full new inputs are refused, nobody is kept waiting.
+ */
+public class InputQueue {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final byte[] directions;
+    private final long[] pressNanos;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Next to read, written by the consumer
+    private final AtomicLong tail = new AtomicLong(); // Next to write, written by the producer
+    private long polledPressNanos; // Consumer's
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        directions = new byte[size];
+        pressNanos = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Add an input pressed now, producer thread only
+     *
+     * @return false if the queue is full
+     */
+    public boolean offer(Direction direction) {
+        return offer(direction, System.nanoTime());
+    }
+
+    /**
+     * Add an input, producer thread only
+     *
+     * @param pressNanos System.nanoTime() of the key press
+     * @return false if the queue is full
+     */
+    public boolean offer(Direction direction, long pressNanos) {
+        long t = tail.get();
+        if (t - head.getAcquire() == directions.length) {
+            return false;
+        }
+        int slot = (int) t & mask;
+        directions[slot] = (byte) direction.ordinal();
+        this.pressNanos[slot] = pressNanos;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    /**
+     * Take the oldest input, consumer thread only
+     * Its press time is then given by {@link #getPolledPressNanos()}.
+     *
+     * @return null if the queue is empty
+     */
+    public Direction poll() {
+        long h = head.get();
+        if (h == tail.getAcquire()) {
+            return null;
+        }
+        int slot = (int) h & mask;
+        Direction direction = DIRECTIONS[directions[slot]];
+        polledPressNanos = pressNanos[slot];
+        head.setRelease(h + 1);
+        return direction;
+    }
+
+    /**
+     * System.nanoTime() of the key press taken by the last poll, consumer thread only
+     */
+    public long getPolledPressNanos() {
+        return polledPressNanos;
+    }
+
+    /**
+     * Drop every queued input, consumer thread only
+     */
+    public void clear() {
+        head.setRelease(tail.getAcquire());
+    }
+
+    public boolean isEmpty() { return head.getAcquire() == tail.getAcquire(); }
+    public int getCapacity() { return directions.length; }
+}
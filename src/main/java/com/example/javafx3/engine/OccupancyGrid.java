@@ -0,0 +1,98 @@
+package com.example.javafx3.engine;
+
+import java.util.Arrays;
+
+/**
+ * Bit-packed occupancy grid, one bit per board cell, kept in sync with the snake body
+ * so collision and placement checks are a single bit test instead of a body scan.
+ * Cells occupied by more than one segment (stacked tail after body growth, ghost mode
+ * pass-through) are counted in a lazily allocated overflow array, so releasing one of
+ * them keeps the bit set until the last segment leaves.
+ */
+public class OccupancyGrid {
+    private final int width;
+    private final int height;
+    private final long[] bits;
+    private int[] stacked; // Extra segments per cell beyond the first, null until needed
+    private int occupiedCells;
+
+    public OccupancyGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bits = new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Check if any snake segment occupies the cell
+     */
+    public boolean isOccupied(int x, int y) {
+        return isOccupied(y * width + x);
+    }
+
+    /**
+     * Check if any snake segment occupies the packed cell (y * width + x)
+     */
+    public boolean isOccupied(int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Check if more than one snake segment occupies the packed cell
+     */
+    public boolean isStacked(int cell) {
+        return stacked != null && stacked[cell] > 0;
+    }
+
+    /**
+     * Mark one more segment on the cell
+     *
+     * @return true if the cell was empty before
+     */
+    public boolean occupy(int cell) {
+        long mask = 1L << cell;
+        if ((bits[cell >>> 6] & mask) != 0) {
+            if (stacked == null) {
+                stacked = new int[width * height];
+            }
+            stacked[cell]++;
+            return false;
+        }
+        bits[cell >>> 6] |= mask;
+        occupiedCells++;
+        return true;
+    }
+
+    /**
+     * Remove one segment from the cell, clearing it when no segment is left
+     *
+     * @return true if the cell became empty
+     */
+    public boolean release(int cell) {
+        if (stacked != null && stacked[cell] > 0) {
+            stacked[cell]--;
+            return false;
+        }
+        if ((bits[cell >>> 6] & (1L << cell)) != 0) {
+            bits[cell >>> 6] &= ~(1L << cell);
+            occupiedCells--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Clear all cells
+     */
+    public void clear() {
+        Arrays.fill(bits, 0L);
+        if (stacked != null) {
+            Arrays.fill(stacked, 0);
+        }
+        occupiedCells = 0;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getOccupiedCells() { return occupiedCells; }
+    public int getFreeCells() { return width * height - occupiedCells; }
+}
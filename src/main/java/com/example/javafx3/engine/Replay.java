@@ -0,0 +1,340 @@
+package com.example.javafx3.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A recorded game: the game seed plus the player's inputs, enough to re-simulate it
+ * {@link ReplayPlayer} plays the inputs back through the engine. Every keyframe interval
+ * the full engine state is stored as well, so seeking re-simulates at most one interval.
+ *
+ * File layout (big endian, version 3):
+ * <pre>
+ *   int    magic 'SNKR'
+ *   short  version
+ *   short  grid width, short grid height
+ *   long   game seed
+ *   long   ticks played, int final score, byte end reason ordinal (-1 unfinished)
+ *   int    keyframe interval in ticks
+ *   int    event byte count, then the events
+ *   int    keyframe byte count, then the keyframes (SnakeSimulation state)
+ *   index  per keyframe: long tick, long event position, int event offset, int keyframe offset
+ *   footer int keyframe count, long index offset, int magic 'SNKI'
+ * </pre>
+ * Version 1 files end after the events and have no keyframes. Version 2 keyframes hold
+ * an older engine state and are dropped on reading, seeking then plays from the start.
+ * Each event starts with a varint of (ticks since the previous event &lt;&lt; 3 | code).
+ * Ticks without input are not stored, so the gap is the run length of unchanged ticks,
+ * and a turn is its 2-bit direction in the code: one byte when it comes within 15 ticks
+ * of the previous event. Skill events add one byte (operation &lt;&lt; 6 | effect ordinal),
+ * score events a zigzag varint of the points.
+ */
+public class Replay {
+
+    static final int MAGIC = 0x534E4B52; // "SNKR"
+    static final int INDEX_MAGIC = 0x534E4B49; // "SNKI"
+    static final int VERSION = 3;
+    private static final int HEADER_BYTES_V1 = 4 + 2 + 2 + 2 + 8 + 8 + 4 + 1 + 4;
+    private static final int HEADER_BYTES = HEADER_BYTES_V1 + 4 + 4;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 4 + 4;
+    private static final int FOOTER_BYTES = 4 + 8 + 4;
+
+    // Event codes, 0-3 are turns to the Direction of that ordinal
+    static final int CODE_SKILL = 4;         // Between ticks
+    static final int CODE_SKILL_OFFER = 5;   // While a new skill is being offered
+    static final int CODE_SCORE = 6;         // Between ticks
+    static final int CODE_SCORE_OFFER = 7;   // While a new skill is being offered
+    static final int CODE_BITS = 3;
+    static final int CODE_MASK = (1 << CODE_BITS) - 1;
+
+    // Skill operations
+    static final int SKILL_AWARD = 0;
+    static final int SKILL_ACTIVATE = 1;
+    static final int SKILL_REMOVE = 2;
+    static final int SKILL_OP_SHIFT = 6;
+    static final int SKILL_EFFECT_MASK = (1 << SKILL_OP_SHIFT) - 1;
+
+    private static final EndReason[] END_REASONS = EndReason.values();
+
+    private final int gridWidth;
+    private final int gridHeight;
+    private final long seed;
+    private final long tickCount;
+    private final int finalScore;
+    private final EndReason endReason;
+    private final byte[] events;
+
+    // Keyframes, ordered by tick
+    private final int keyframeInterval;
+    private final int keyframeCount;
+    private final long[] keyframeTicks;
+    private final long[] keyframeEventPositions; // Event reader position at the keyframe
+    private final int[] keyframeEventOffsets;    // Offset of the first event after the keyframe
+    private final int[] keyframeOffsets;         // Offset in keyframeData, one extra entry for the end
+    private final byte[] keyframeData;
+
+    Replay(int gridWidth, int gridHeight, long seed, long tickCount, int finalScore, EndReason endReason,
+           byte[] events, int keyframeInterval, int keyframeCount, long[] keyframeTicks,
+           long[] keyframeEventPositions, int[] keyframeEventOffsets, int[] keyframeOffsets, byte[] keyframeData) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.seed = seed;
+        this.tickCount = tickCount;
+        this.finalScore = finalScore;
+        this.endReason = endReason;
+        this.events = events;
+        this.keyframeInterval = keyframeInterval;
+        this.keyframeCount = keyframeCount;
+        this.keyframeTicks = keyframeTicks;
+        this.keyframeEventPositions = keyframeEventPositions;
+        this.keyframeEventOffsets = keyframeEventOffsets;
+        this.keyframeOffsets = keyframeOffsets;
+        this.keyframeData = keyframeData;
+    }
+
+    /**
+     * Index of the last keyframe at or before the given tick, -1 if there is none
+     */
+    public int findKeyframe(long tick) {
+        int low = 0;
+        int high = keyframeCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keyframeTicks[mid] <= tick) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Engine state of a keyframe, for SnakeSimulation.restoreState()
+     */
+    DataInputStream openKeyframe(int index) {
+        return new DataInputStream(new ByteArrayInputStream(keyframeData,
+                keyframeOffsets[index], keyframeOffsets[index + 1] - keyframeOffsets[index]));
+    }
+
+    /**
+     * Write the replay through one buffer, replacing the file if it exists
+     */
+    public void write(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + events.length + keyframeData.length
+                + keyframeCount * INDEX_ENTRY_BYTES + FOOTER_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) gridWidth);
+        buffer.putShort((short) gridHeight);
+        buffer.putLong(seed);
+        buffer.putLong(tickCount);
+        buffer.putInt(finalScore);
+        buffer.put((byte) (endReason != null ? endReason.ordinal() : -1));
+        buffer.putInt(keyframeInterval);
+        buffer.putInt(events.length);
+        buffer.put(events);
+        buffer.putInt(keyframeData.length);
+        buffer.put(keyframeData);
+
+        long indexOffset = buffer.position();
+        for (int i = 0; i < keyframeCount; i++) {
+            buffer.putLong(keyframeTicks[i]);
+            buffer.putLong(keyframeEventPositions[i]);
+            buffer.putInt(keyframeEventOffsets[i]);
+            buffer.putInt(keyframeOffsets[i]);
+        }
+        buffer.putInt(keyframeCount);
+        buffer.putLong(indexOffset);
+        buffer.putInt(INDEX_MAGIC);
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Read a replay written by {@link #write(Path)}
+     *
+     * @throws IOException if the file is not a replay or has an unsupported version
+     */
+    public static Replay read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES_V1 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a replay file: " + path);
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+            buffer.flip();
+        }
+
+        if (buffer.remaining() < HEADER_BYTES_V1 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a replay file: " + path);
+        }
+        int version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported replay version " + version + ": " + path);
+        }
+        try {
+            int gridWidth = buffer.getShort();
+            int gridHeight = buffer.getShort();
+            long seed = buffer.getLong();
+            long tickCount = buffer.getLong();
+            int finalScore = buffer.getInt();
+            int endReason = buffer.get();
+            int keyframeInterval = version > 1 ? buffer.getInt() : 0;
+            byte[] events = readBlock(buffer);
+            if (endReason >= END_REASONS.length) {
+                throw new IOException("Corrupt replay file: " + path);
+            }
+
+            // Version 1 has no keyframes
+            byte[] keyframeData = version > 1 ? readBlock(buffer) : new byte[0];
+            int keyframeCount = 0;
+            long indexOffset = buffer.position();
+            if (version > 1) {
+                buffer.position(buffer.limit() - FOOTER_BYTES);
+                keyframeCount = buffer.getInt();
+                indexOffset = buffer.getLong();
+                if (buffer.getInt() != INDEX_MAGIC || keyframeCount < 0
+                        || indexOffset + (long) keyframeCount * INDEX_ENTRY_BYTES != buffer.limit() - FOOTER_BYTES) {
+                    throw new IOException("Corrupt replay index: " + path);
+                }
+            }
+            if (version < 3) {
+                keyframeCount = 0;
+                keyframeData = new byte[0];
+            }
+            long[] keyframeTicks = new long[keyframeCount];
+            long[] keyframeEventPositions = new long[keyframeCount];
+            int[] keyframeEventOffsets = new int[keyframeCount];
+            int[] keyframeOffsets = new int[keyframeCount + 1];
+            buffer.position((int) indexOffset);
+            for (int i = 0; i < keyframeCount; i++) {
+                keyframeTicks[i] = buffer.getLong();
+                keyframeEventPositions[i] = buffer.getLong();
+                keyframeEventOffsets[i] = buffer.getInt();
+                keyframeOffsets[i] = buffer.getInt();
+            }
+            keyframeOffsets[keyframeCount] = keyframeData.length;
+            for (int i = 0; i < keyframeCount; i++) {
+                if (keyframeOffsets[i] < 0 || keyframeOffsets[i] > keyframeOffsets[i + 1]
+                        || keyframeEventOffsets[i] < 0 || keyframeEventOffsets[i] > events.length) {
+                    throw new IOException("Corrupt replay index: " + path);
+                }
+            }
+
+            return new Replay(gridWidth, gridHeight, seed, tickCount, finalScore,
+                    endReason >= 0 ? END_REASONS[endReason] : null, events, keyframeInterval,
+                    keyframeCount, keyframeTicks, keyframeEventPositions, keyframeEventOffsets,
+                    keyframeOffsets, keyframeData);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt replay file: " + path, e);
+        }
+    }
+
+    /**
+     * Read a byte count and that many bytes
+     */
+    private static byte[] readBlock(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] block = new byte[length];
+        buffer.get(block);
+        return block;
+    }
+
+    /**
+     * Decodes the event stream one event at a time
+     */
+    static class EventReader {
+        private final byte[] events;
+        private int offset;
+        private long position; // Ticks played before the event's tick
+        private int code;
+        private int argument;  // Skill byte or score points
+
+        EventReader(byte[] events) {
+            this.events = events;
+        }
+
+        /**
+         * Continue reading at a byte offset, position is the tick of the event before it
+         */
+        void seek(int offset, long position) {
+            this.offset = offset;
+            this.position = position;
+        }
+
+        /**
+         * Move to the next event
+         *
+         * @return false at the end of the stream
+         */
+        boolean next() {
+            if (offset >= events.length) {
+                return false;
+            }
+            long token = readVarLong();
+            position += token >>> CODE_BITS;
+            code = (int) (token & CODE_MASK);
+            if (code == CODE_SKILL || code == CODE_SKILL_OFFER) {
+                argument = events[offset++] & 0xFF;
+            } else if (code == CODE_SCORE || code == CODE_SCORE_OFFER) {
+                long zigzag = readVarLong();
+                argument = (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+            }
+            return true;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = events[offset++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        long getPosition() { return position; }
+        int getCode() { return code; }
+        int getArgument() { return argument; }
+    }
+
+    public int getGridWidth() { return gridWidth; }
+    public int getGridHeight() { return gridHeight; }
+    public long getSeed() { return seed; }
+    /** Ticks played when recording stopped */
+    public long getTickCount() { return tickCount; }
+    public int getFinalScore() { return finalScore; }
+    /** How the game ended, null if recording stopped before the end */
+    public EndReason getEndReason() { return endReason; }
+    public int getEventBytes() { return events.length; }
+    byte[] getEvents() { return events; }
+    /** Ticks between keyframes, 0 for files without keyframes */
+    public int getKeyframeInterval() { return keyframeInterval; }
+    public int getKeyframeCount() { return keyframeCount; }
+    public int getKeyframeBytes() { return keyframeData.length; }
+    public long getKeyframeTick(int index) { return keyframeTicks[index]; }
+    long getKeyframeEventPosition(int index) { return keyframeEventPositions[index]; }
+    int getKeyframeEventOffset(int index) { return keyframeEventOffsets[index]; }
+}
@@ -0,0 +1,270 @@
+package com.example.javafx3.engine;
+
+import com.example.javafx3.manager.GameState;
+import com.example.javafx3.model.SkillCard;
+import com.example.javafx3.model.SkillEffect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Plays a {@link Replay} back by re-simulating it through a fresh {@link SnakeSimulation}
+ * Each {@link #step()} plays one tick, so a front end can show the game at any speed by
+ * choosing how often to call it; {@link #playToEnd()} runs as fast as the engine allows.
+ * {@link #seek(long)} jumps to any tick through the replay's keyframes.
+ *
+ * Usage: ReplayPlayer FILE... re-simulates each file and checks it ends as recorded.
+ */
+public class ReplayPlayer implements SimulationListener {
+
+    private static final SkillEffect[] EFFECTS = SkillEffect.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Replay replay;
+    private final SnakeSimulation simulation;
+    private final GameState gameState;
+    private final Replay.EventReader events;
+    private boolean pending; // The reader holds an event not applied yet
+    private final SkillCard[] offered = new SkillCard[EFFECTS.length]; // Offered, not yet awarded
+    private SimulationListener listener = SimulationListener.NONE;
+
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+        this.simulation = new SnakeSimulation(replay.getGridWidth(), replay.getGridHeight());
+        this.gameState = simulation.getGameState();
+        this.events = new Replay.EventReader(replay.getEvents());
+        simulation.setListener(this);
+        restart();
+    }
+
+    /**
+     * Receive the simulation's events during playback, for a front end showing the replay
+     */
+    public void setListener(SimulationListener listener) {
+        this.listener = listener != null ? listener : SimulationListener.NONE;
+    }
+
+    /**
+     * Play one tick
+     *
+     * @return false once the recording is over
+     * @throws IllegalStateException if the simulation no longer matches the recording
+     */
+    public boolean step() {
+        if (isFinished()) {
+            return false;
+        }
+
+        // Inputs made between the previous tick and this one, then this tick's turn
+        long position = simulation.getTick();
+        applyInputs();
+        Direction turn = null;
+        if (pending && events.getPosition() == position && events.getCode() < DIRECTIONS.length) {
+            turn = DIRECTIONS[events.getCode()];
+            pending = events.next();
+        }
+
+        simulation.step(turn);
+
+        // Mid-tick inputs are applied from onSkillEarned, any left over means the game diverged
+        if (pending && events.getPosition() == position && isOfferEvent(events.getCode())) {
+            throw new IllegalStateException("Replay out of sync at tick " + position + ": no skill was offered");
+        }
+        return true;
+    }
+
+    /**
+     * Play until the given tick or the end of the recording
+     */
+    public void playTo(long tick) {
+        while (simulation.getTick() < tick && step()) {
+            // Each step plays one tick
+        }
+    }
+
+    /**
+     * Play the rest of the recording as fast as possible
+     */
+    public void playToEnd() {
+        while (step()) {
+            // Each step plays one tick
+        }
+    }
+
+    /**
+     * Continue from the start of the given tick, after the inputs made before it, like keyframes
+     * Restores the last keyframe at or before it, unless playing on from the current tick
+     * is shorter, then re-simulates the rest: at most one keyframe interval. The listener
+     * receives no events for the ticks re-simulated.
+     */
+    public void seek(long tick) {
+        long target = Math.max(0, Math.min(tick, replay.getTickCount()));
+        int keyframe = replay.findKeyframe(target);
+        long start = keyframe >= 0 ? replay.getKeyframeTick(keyframe) : 0;
+        long current = simulation.getTick();
+        if (target < current || current < start) {
+            if (keyframe >= 0) {
+                restoreKeyframe(keyframe);
+            } else {
+                restart();
+            }
+        }
+
+        SimulationListener downstream = listener;
+        listener = SimulationListener.NONE;
+        try {
+            playTo(target);
+            if (!isFinished()) {
+                applyInputs();
+            }
+        } finally {
+            listener = downstream;
+        }
+    }
+
+    private void restart() {
+        simulation.reset(replay.getSeed());
+        simulation.start();
+        events.seek(0, 0);
+        pending = events.next();
+        Arrays.fill(offered, null);
+    }
+
+    private void restoreKeyframe(int keyframe) {
+        try {
+            simulation.restoreState(replay.openKeyframe(keyframe));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt keyframe at tick " + replay.getKeyframeTick(keyframe), e);
+        }
+        events.seek(replay.getKeyframeEventOffset(keyframe), replay.getKeyframeEventPosition(keyframe));
+        pending = events.next();
+        Arrays.fill(offered, null);
+    }
+
+    /**
+     * True once the game is over or all recorded ticks were played
+     */
+    public boolean isFinished() {
+        return simulation.isGameOver() || simulation.getTick() >= replay.getTickCount();
+    }
+
+    /**
+     * True if playback ended where the recording did
+     */
+    public boolean matchesRecording() {
+        return simulation.getTick() == replay.getTickCount()
+                && simulation.getScore() == replay.getFinalScore()
+                && simulation.getEndReason() == replay.getEndReason();
+    }
+
+    /**
+     * Apply the skill and score inputs made between the previous tick and the current one
+     * A turn or skill offer recorded at the current tick belongs to the tick itself.
+     */
+    private void applyInputs() {
+        long position = simulation.getTick();
+        while (pending && events.getPosition() == position
+                && events.getCode() >= DIRECTIONS.length && !isOfferEvent(events.getCode())) {
+            apply(events.getCode(), events.getArgument());
+            pending = events.next();
+        }
+    }
+
+    private static boolean isOfferEvent(int code) {
+        return code == Replay.CODE_SKILL_OFFER || code == Replay.CODE_SCORE_OFFER;
+    }
+
+    private void apply(int code, int argument) {
+        if (code == Replay.CODE_SCORE || code == Replay.CODE_SCORE_OFFER) {
+            gameState.addBonusScore(argument);
+            return;
+        }
+
+        SkillEffect effect = EFFECTS[argument & Replay.SKILL_EFFECT_MASK];
+        switch (argument >>> Replay.SKILL_OP_SHIFT) {
+            case Replay.SKILL_AWARD:
+                SkillCard card = offered[effect.ordinal()];
+                if (card == null) {
+                    throw new IllegalStateException("Replay out of sync at tick " + simulation.getTick()
+                            + ": " + effect + " was not offered");
+                }
+                offered[effect.ordinal()] = null;
+                gameState.awardSkill(card);
+                break;
+            case Replay.SKILL_ACTIVATE:
+                gameState.activateSkill(gameState.getSkillInventory().getEarned(effect));
+                break;
+            case Replay.SKILL_REMOVE:
+                SkillCard active = gameState.getActiveSkill(effect);
+                if (active != null) {
+                    active.deactivate();
+                    gameState.removeActiveSkill(active);
+                }
+                break;
+        }
+    }
+
+    // ===== SIMULATION EVENTS =====
+
+    @Override
+    public void onSkillEarned(SkillCard skill) {
+        offered[skill.getSkillEffect().ordinal()] = skill;
+        listener.onSkillEarned(skill);
+
+        long position = simulation.getTick() - 1;
+        while (pending && events.getPosition() == position && isOfferEvent(events.getCode())) {
+            apply(events.getCode(), events.getArgument());
+            pending = events.next();
+        }
+    }
+
+    @Override
+    public void onNotification(String title, String message, String icon) {
+        listener.onNotification(title, message, icon);
+    }
+
+    @Override
+    public void onScoreChanged(int score) {
+        listener.onScoreChanged(score);
+    }
+
+    @Override
+    public void onGameOver(boolean won) {
+        listener.onGameOver(won);
+    }
+
+    public Replay getReplay() { return replay; }
+    public SnakeSimulation getSimulation() { return simulation; }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: ReplayPlayer FILE...");
+            System.exit(1);
+        }
+
+        int mismatches = 0;
+        for (String file : args) {
+            Path path = Paths.get(file);
+            Replay replay = Replay.read(path);
+            long start = System.nanoTime();
+            ReplayPlayer player = new ReplayPlayer(replay);
+            player.playToEnd();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            SnakeSimulation simulation = player.getSimulation();
+            boolean matches = player.matchesRecording();
+            if (!matches) mismatches++;
+            System.out.printf("%s: %s, %d ticks, score %d, %s, %d input bytes, %.0f ticks/s%n",
+                    path.getFileName(), matches ? "OK" : "MISMATCH (recorded " + replay.getTickCount()
+                            + " ticks, score " + replay.getFinalScore() + ", " + replay.getEndReason() + ")",
+                    simulation.getTick(), simulation.getScore(), simulation.getEndReason(),
+                    replay.getEventBytes(), simulation.getTick() / seconds);
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+}
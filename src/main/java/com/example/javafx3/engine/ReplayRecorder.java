@@ -0,0 +1,163 @@
+package com.example.javafx3.engine;
+
+import com.example.javafx3.model.SkillEffect;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Records the inputs of the current game for a {@link Replay}
+ * Attached with {@link SnakeSimulation#setRecorder(ReplayRecorder)}, the simulation feeds
+ * it every effective direction change and, through GameState, every skill award,
+ * activation, removal and bonus score. A new recording starts on each reset.
+ * Every keyframe interval the engine state is saved at the start of a tick, after the
+ * inputs made between ticks. Skills offered during a tick must be awarded before the
+ * next tick starts, as all front ends do, for keyframes to be exact.
+ */
+public class ReplayRecorder {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 2048; // Ticks, re-simulating that many takes well under a millisecond
+
+    private int gridWidth;
+    private int gridHeight;
+    private long seed;
+    private byte[] events = new byte[256];
+    private int size;
+    private long lastPosition;
+
+    // Keyframes
+    private final int keyframeInterval;
+    private final ByteArrayOutputStream keyframeData = new ByteArrayOutputStream();
+    private final DataOutputStream keyframeOut = new DataOutputStream(keyframeData);
+    private long[] keyframeTicks = new long[16];
+    private long[] keyframeEventPositions = new long[16];
+    private int[] keyframeEventOffsets = new int[16];
+    private int[] keyframeOffsets = new int[16];
+    private int keyframeCount;
+
+    public ReplayRecorder() {
+        this(DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * @param keyframeInterval ticks between keyframes, seeking re-simulates at most that many
+     */
+    public ReplayRecorder(int keyframeInterval) {
+        if (keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Start a new recording, dropping the previous one
+     */
+    void startGame(int gridWidth, int gridHeight, long seed) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.seed = seed;
+        size = 0;
+        lastPosition = 0;
+        keyframeData.reset();
+        keyframeCount = 0;
+    }
+
+    /**
+     * Called at the start of every tick, saves a keyframe when one is due
+     */
+    void beginTick(SnakeSimulation simulation) {
+        long tick = simulation.getTick();
+        if (tick == 0 || tick % keyframeInterval != 0) {
+            return;
+        }
+        if (keyframeCount == keyframeTicks.length) {
+            int capacity = keyframeCount * 2;
+            keyframeTicks = Arrays.copyOf(keyframeTicks, capacity);
+            keyframeEventPositions = Arrays.copyOf(keyframeEventPositions, capacity);
+            keyframeEventOffsets = Arrays.copyOf(keyframeEventOffsets, capacity);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, capacity);
+        }
+        keyframeTicks[keyframeCount] = tick;
+        keyframeEventPositions[keyframeCount] = lastPosition;
+        keyframeEventOffsets[keyframeCount] = size;
+        keyframeOffsets[keyframeCount] = keyframeData.size();
+        try {
+            simulation.saveState(keyframeOut);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Writes to memory, never happens
+        }
+        keyframeCount++;
+    }
+
+    /**
+     * @param position ticks played before the tick that turns
+     */
+    void recordTurn(long position, Direction direction) {
+        writeToken(position, direction.ordinal());
+    }
+
+    /**
+     * @param position    ticks played before the next tick, or before the current tick while a skill is offered
+     * @param duringOffer true if made from the skill earned callback, in the middle of a tick
+     */
+    void recordSkill(long position, boolean duringOffer, int operation, SkillEffect effect) {
+        writeToken(position, duringOffer ? Replay.CODE_SKILL_OFFER : Replay.CODE_SKILL);
+        ensureCapacity(1);
+        events[size++] = (byte) (operation << Replay.SKILL_OP_SHIFT | effect.ordinal());
+    }
+
+    void recordScore(long position, boolean duringOffer, int points) {
+        writeToken(position, duringOffer ? Replay.CODE_SCORE_OFFER : Replay.CODE_SCORE);
+        writeVarLong(((points << 1) ^ (points >> 31)) & 0xFFFFFFFFL); // Zigzag, small negatives stay short
+    }
+
+    /**
+     * The recording so far, with the simulation's current tick, score and end reason
+     */
+    public Replay finish(SnakeSimulation simulation) {
+        int[] offsets = Arrays.copyOf(keyframeOffsets, keyframeCount + 1);
+        offsets[keyframeCount] = keyframeData.size();
+        return new Replay(gridWidth, gridHeight, seed, simulation.getTick(), simulation.getScore(),
+                simulation.getEndReason(), Arrays.copyOf(events, size), keyframeInterval, keyframeCount,
+                Arrays.copyOf(keyframeTicks, keyframeCount), Arrays.copyOf(keyframeEventPositions, keyframeCount),
+                Arrays.copyOf(keyframeEventOffsets, keyframeCount), offsets, keyframeData.toByteArray());
+    }
+
+    /**
+     * Bytes of input recorded so far
+     */
+    public int getEventBytes() {
+        return size;
+    }
+
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    private void writeToken(long position, int code) {
+        long gap = position - lastPosition;
+        if (gap < 0) {
+            throw new IllegalStateException("Replay event at tick " + position + " after tick " + lastPosition);
+        }
+        lastPosition = position;
+        writeVarLong(gap << Replay.CODE_BITS | code);
+    }
+
+    private void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            events[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        events[size++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > events.length) {
+            events = Arrays.copyOf(events, Math.max(events.length * 2, size + extra));
+        }
+    }
+}
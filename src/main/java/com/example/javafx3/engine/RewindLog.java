@@ -0,0 +1,305 @@
+package com.example.javafx3.engine;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Per-tick undo log for time rewind
+ * Every board change (head added, tail removed, food moved, ...) is recorded as an
+ * entry of two ints in a fixed-size ring, and the score, speed, direction and game time
+ * at the start of each tick go into parallel rings. Rewinding undoes the entries back
+ * to the start of the target tick, so it costs time proportional to the changes undone,
+ * not to the snake length. Every KEYFRAME_INTERVAL ticks the board is copied into a
+ * keyframe, which lets a long rewind of a short snake restore the nearest keyframe
+ * and undo only the rest. Recording allocates nothing.
+ * Ticks are numbered by the log (0 = first tick since reset), rewinding truncates the
+ * log so the next tick reuses the number of the tick rewound to.
+ * Front ends can follow the board through the log too: the cells of the entries written
+ * since they last looked are the cells that changed, unless the generation changed.
+ */
+public class RewindLog {
+
+    // Entry kinds, kept in the low bits of an entry's first int above a small argument
+    static final int HEAD_ADDED = 1;         // Argument: 1 if the cell was free before
+    static final int HEAD_REMOVED = 2;
+    static final int TAIL_ADDED = 3;         // Argument: 1 if the cell was free before
+    static final int TAIL_REMOVED = 4;
+    static final int FOOD_MOVED = 5;         // Cell: previous food cell
+    static final int EXTRA_FOOD_ADDED = 6;   // Appended to the bonus food list
+    static final int EXTRA_FOOD_REMOVED = 7; // Argument: index in the bonus food list
+    private static final int KIND_BITS = 3;
+    private static final int KIND_MASK = (1 << KIND_BITS) - 1;
+
+    private static final int TICK_CAPACITY = 1024;  // Ticks kept, 51 s at the fastest speed
+    private static final int ENTRY_CAPACITY = 8192; // Entries kept, a few per tick
+    private static final int KEYFRAME_INTERVAL = 64; // Ticks
+    private static final int KEYFRAME_SLOTS = TICK_CAPACITY / KEYFRAME_INTERVAL;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // Entry ring, two ints per entry
+    private final int[] entries = new int[ENTRY_CAPACITY * 2];
+    private long entryCount; // Entries written since reset
+    private long entryHorizon; // Oldest entry not overwritten, truncating does not bring entries back
+
+    // Tick rings, indexed by tick number & (TICK_CAPACITY - 1)
+    private final long[] tickEntry = new long[TICK_CAPACITY]; // First entry of the tick
+    private final long[] tickClock = new long[TICK_CAPACITY];
+    private final int[] tickScore = new int[TICK_CAPACITY];
+    private final int[] tickSpeed = new int[TICK_CAPACITY];
+    private final byte[] tickDirection = new byte[TICK_CAPACITY];
+    private long tickCount; // Ticks begun since reset
+    private long tickHorizon; // Oldest tick not overwritten
+    private long generation; // Changes when logged entries are undone or dropped
+
+    // Keyframes, slot = (tick / KEYFRAME_INTERVAL) % KEYFRAME_SLOTS
+    private final long[] keyframeTick = new long[KEYFRAME_SLOTS];
+    private final int[][] keyframeBody = new int[KEYFRAME_SLOTS][];
+    private final int[] keyframeLength = new int[KEYFRAME_SLOTS];
+    private final int[] keyframeFood = new int[KEYFRAME_SLOTS];
+    private final int[][] keyframeExtraFood = new int[KEYFRAME_SLOTS][];
+    private final int[] keyframeExtraCount = new int[KEYFRAME_SLOTS];
+
+    /**
+     * @param cellCount board cells, keyframe buffers start at this size
+     */
+    public RewindLog(int cellCount) {
+        for (int slot = 0; slot < KEYFRAME_SLOTS; slot++) {
+            keyframeBody[slot] = new int[cellCount];
+            keyframeExtraFood[slot] = new int[8];
+        }
+        clear();
+    }
+
+    /**
+     * Forget all history, the current board becomes the start of the log
+     */
+    public void clear() {
+        generation++;
+        entryCount = 0;
+        entryHorizon = 0;
+        tickCount = 0;
+        tickHorizon = 0;
+        Arrays.fill(keyframeTick, -1L);
+    }
+
+    /**
+     * Record the state at the start of a tick
+     *
+     * @return true if a keyframe is due, the caller then passes the board to saveKeyframe()
+     */
+    boolean beginTick(long clockMillis, int score, int speed, Direction direction) {
+        int slot = (int) (tickCount & (TICK_CAPACITY - 1));
+        tickEntry[slot] = entryCount;
+        tickClock[slot] = clockMillis;
+        tickScore[slot] = score;
+        tickSpeed[slot] = speed;
+        tickDirection[slot] = (byte) direction.ordinal();
+        tickCount++;
+        tickHorizon = Math.max(tickHorizon, tickCount - TICK_CAPACITY);
+        return (tickCount - 1) % KEYFRAME_INTERVAL == 0;
+    }
+
+    /**
+     * Copy the board at the start of the tick just begun
+     */
+    void saveKeyframe(SnakeBody body, int food, int[] extraFood, int extraCount) {
+        long tick = tickCount - 1;
+        int slot = keyframeSlot(tick);
+        if (keyframeBody[slot].length < body.length()) {
+            keyframeBody[slot] = new int[body.length() * 2];
+        }
+        if (keyframeExtraFood[slot].length < extraCount) {
+            keyframeExtraFood[slot] = new int[extraCount * 2];
+        }
+        keyframeLength[slot] = body.copyTo(keyframeBody[slot]);
+        keyframeFood[slot] = food;
+        System.arraycopy(extraFood, 0, keyframeExtraFood[slot], 0, extraCount);
+        keyframeExtraCount[slot] = extraCount;
+        keyframeTick[slot] = tick;
+    }
+
+    /**
+     * Record one board change of the current tick
+     */
+    void record(int kind, int argument, int cell) {
+        int index = (int) (entryCount & (ENTRY_CAPACITY - 1)) * 2;
+        entries[index] = kind | (argument << KIND_BITS);
+        entries[index + 1] = cell;
+        entryCount++;
+        if (entryCount - ENTRY_CAPACITY > entryHorizon) {
+            entryHorizon = entryCount - ENTRY_CAPACITY;
+        }
+    }
+
+    /**
+     * Drop the history from the given tick on, after the board was rewound to its start
+     */
+    void truncate(long tick) {
+        generation++;
+        entryCount = getTickEntry(tick);
+        tickCount = tick;
+    }
+
+    /**
+     * Oldest tick whose start can still be restored
+     */
+    public long getOldestTick() {
+        long oldest = tickHorizon;
+        // A tick is lost once the entry ring overwrote its first entry
+        while (oldest < tickCount && getTickEntry(oldest) < entryHorizon) {
+            oldest++;
+        }
+        return oldest;
+    }
+
+    /**
+     * Oldest restorable tick that started at or after the given game time, -1 if none
+     */
+    public long findTickSince(long clockMillis) {
+        long oldest = getOldestTick();
+        long found = -1;
+        for (long tick = tickCount - 1; tick >= oldest && getTickClock(tick) >= clockMillis; tick--) {
+            found = tick;
+        }
+        return found;
+    }
+
+    /**
+     * Tick of the nearest keyframe at or after the given tick, -1 if there is none
+     */
+    long findKeyframe(long tick) {
+        long keyframe = (tick + KEYFRAME_INTERVAL - 1) / KEYFRAME_INTERVAL * KEYFRAME_INTERVAL;
+        if (keyframe >= tickCount || keyframeTick[keyframeSlot(keyframe)] != keyframe) {
+            return -1;
+        }
+        return keyframe;
+    }
+
+    /**
+     * Write the ticks that started at or after the given game time, with their entries and
+     * keyframes. A log restored from it rewinds to any of those ticks exactly like this one,
+     * which is all the time rewind skill needs.
+     */
+    void saveHistory(DataOutput out, long sinceMillis) throws IOException {
+        long from = findTickSince(sinceMillis);
+        if (from < 0) {
+            from = tickCount;
+        }
+        long firstEntry = from < tickCount ? getTickEntry(from) : entryCount;
+        out.writeLong(from);
+        out.writeLong(firstEntry);
+        out.writeInt((int) (tickCount - from));
+        out.writeInt((int) (entryCount - firstEntry));
+        for (long tick = from; tick < tickCount; tick++) {
+            out.writeInt((int) (getTickEntry(tick) - firstEntry));
+            out.writeLong(getTickClock(tick));
+            out.writeInt(getTickScore(tick));
+            out.writeInt(getTickSpeed(tick));
+            out.writeByte(tickDirection[(int) (tick & (TICK_CAPACITY - 1))]);
+        }
+        for (long entry = firstEntry; entry < entryCount; entry++) {
+            int index = (int) (entry & (ENTRY_CAPACITY - 1)) * 2;
+            out.writeInt(entries[index]);
+            out.writeInt(entries[index + 1]);
+        }
+
+        // Keyframes inside the window, rewinds pick the keyframe path by cost
+        for (long tick = from; tick < tickCount; tick++) {
+            if (tick % KEYFRAME_INTERVAL == 0 && keyframeTick[keyframeSlot(tick)] == tick) {
+                int slot = keyframeSlot(tick);
+                out.writeLong(tick);
+                out.writeInt(keyframeLength[slot]);
+                for (int i = 0; i < keyframeLength[slot]; i++) {
+                    out.writeInt(keyframeBody[slot][i]);
+                }
+                out.writeInt(keyframeFood[slot]);
+                out.writeInt(keyframeExtraCount[slot]);
+                for (int i = 0; i < keyframeExtraCount[slot]; i++) {
+                    out.writeInt(keyframeExtraFood[slot][i]);
+                }
+            }
+        }
+        out.writeLong(-1L);
+    }
+
+    /**
+     * Replace the log with a history written by saveHistory(), keeping its tick numbers
+     */
+    void restoreHistory(DataInput in) throws IOException {
+        clear();
+        long from = in.readLong();
+        long firstEntry = in.readLong();
+        int ticks = in.readInt();
+        int entryTotal = in.readInt();
+        tickCount = from + ticks;
+        tickHorizon = from;
+        entryCount = firstEntry + entryTotal;
+        entryHorizon = firstEntry;
+        for (long tick = from; tick < tickCount; tick++) {
+            int slot = (int) (tick & (TICK_CAPACITY - 1));
+            tickEntry[slot] = firstEntry + in.readInt();
+            tickClock[slot] = in.readLong();
+            tickScore[slot] = in.readInt();
+            tickSpeed[slot] = in.readInt();
+            tickDirection[slot] = in.readByte();
+        }
+        for (long entry = firstEntry; entry < entryCount; entry++) {
+            int index = (int) (entry & (ENTRY_CAPACITY - 1)) * 2;
+            entries[index] = in.readInt();
+            entries[index + 1] = in.readInt();
+        }
+
+        for (long tick = in.readLong(); tick >= 0; tick = in.readLong()) {
+            int slot = keyframeSlot(tick);
+            int length = in.readInt();
+            if (keyframeBody[slot].length < length) {
+                keyframeBody[slot] = new int[length * 2];
+            }
+            for (int i = 0; i < length; i++) {
+                keyframeBody[slot][i] = in.readInt();
+            }
+            keyframeLength[slot] = length;
+            keyframeFood[slot] = in.readInt();
+            int extraCount = in.readInt();
+            if (keyframeExtraFood[slot].length < extraCount) {
+                keyframeExtraFood[slot] = new int[extraCount * 2];
+            }
+            for (int i = 0; i < extraCount; i++) {
+                keyframeExtraFood[slot][i] = in.readInt();
+            }
+            keyframeExtraCount[slot] = extraCount;
+            keyframeTick[slot] = tick;
+        }
+    }
+
+    private static int keyframeSlot(long tick) {
+        return (int) ((tick / KEYFRAME_INTERVAL) % KEYFRAME_SLOTS);
+    }
+
+    // Entry access by absolute entry number
+    int getKind(long entry) { return entries[(int) (entry & (ENTRY_CAPACITY - 1)) * 2] & KIND_MASK; }
+    int getArgument(long entry) { return entries[(int) (entry & (ENTRY_CAPACITY - 1)) * 2] >>> KIND_BITS; }
+    public int getCell(long entry) { return entries[(int) (entry & (ENTRY_CAPACITY - 1)) * 2 + 1]; }
+
+    // Tick start state by tick number
+    long getTickEntry(long tick) { return tickEntry[(int) (tick & (TICK_CAPACITY - 1))]; }
+    public long getTickClock(long tick) { return tickClock[(int) (tick & (TICK_CAPACITY - 1))]; }
+    public int getTickScore(long tick) { return tickScore[(int) (tick & (TICK_CAPACITY - 1))]; }
+    public int getTickSpeed(long tick) { return tickSpeed[(int) (tick & (TICK_CAPACITY - 1))]; }
+    public Direction getTickDirection(long tick) { return DIRECTIONS[tickDirection[(int) (tick & (TICK_CAPACITY - 1))]]; }
+
+    // Keyframe board by keyframe tick
+    int[] getKeyframeBody(long tick) { return keyframeBody[keyframeSlot(tick)]; }
+    int getKeyframeLength(long tick) { return keyframeLength[keyframeSlot(tick)]; }
+    int getKeyframeFood(long tick) { return keyframeFood[keyframeSlot(tick)]; }
+    int[] getKeyframeExtraFood(long tick) { return keyframeExtraFood[keyframeSlot(tick)]; }
+    int getKeyframeExtraCount(long tick) { return keyframeExtraCount[keyframeSlot(tick)]; }
+
+    public long getTickCount() { return tickCount; }
+    public long getEntryCount() { return entryCount; }
+    public long getOldestEntry() { return entryHorizon; }
+    public long getGeneration() { return generation; }
+}
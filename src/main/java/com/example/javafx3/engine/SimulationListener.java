@@ -0,0 +1,33 @@
+package com.example.javafx3.engine;
+
+import com.example.javafx3.model.SkillCard;
+
+/**
+ * Callbacks from the simulation to a front end (JavaFX, console, bots).
+ * All methods are optional, headless runs can use {@link #NONE}.
+ */
+public interface SimulationListener {
+
+    SimulationListener NONE = new SimulationListener() {};
+
+    /**
+     * Game event worth showing to the player (shield hit, lucky star, ...)
+     */
+    default void onNotification(String title, String message, String icon) {}
+
+    /**
+     * Score changed after eating food or converting a duplicate skill
+     */
+    default void onScoreChanged(int score) {}
+
+    /**
+     * A new (non-duplicate) skill was drawn. The front end decides how it is
+     * awarded, e.g. pausing the simulation and showing the skill detail screen.
+     */
+    default void onSkillEarned(SkillCard skill) {}
+
+    /**
+     * Game finished, either by collision or by reaching the win score
+     */
+    default void onGameOver(boolean won) {}
+}
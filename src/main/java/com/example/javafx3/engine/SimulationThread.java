@@ -0,0 +1,243 @@
+package com.example.javafx3.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs the simulation on a thread of its own, each tick when it is due
+ * The thread sleeps until just before the next tick and spins the rest of the way, so
+ * ticks run within microseconds of their schedule whatever the UI thread is doing.
+ * Ticks are counted by a {@link FixedStepLoop}, with its catch-up bound and jitter
+ * statistics. After ticks or commands ran, the publisher is called to hand the new state
+ * to the front end, typically through a {@link TripleBuffer}.
+ *
+ * While the game runs only this thread touches the simulation; other threads send it
+ * commands, run between two ticks. While the game is stopped (paused, over or not started)
+ * the thread sleeps and does nothing until the next command, so the UI may read and
+ * change the simulation in between, e.g. in a skill menu.
+ *
+ * A tick, publish or command that throws is logged and the thread carries on; a failed
+ * tick or publish is also handed to the failure handler, which should end the game.
+ * If the thread stops anyway, callers still waiting for an answer get an exception.
+ */
+public class SimulationThread implements AutoCloseable {
+
+    private static final long SPIN_NANOS = 500_000; // Sleep until this close to a tick, then spin
+
+    private final FixedStepLoop loop;
+    private final LongSupplier stepNanos;
+    private final FixedStepLoop.Ticker ticker;
+    private final BooleanSupplier running;
+    private final Runnable publisher;
+    private final Consumer<Throwable> failureHandler;
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final List<Runnable> replies = new ArrayList<>(); // Answers to hand out after publishing
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet(); // Callers waiting for an answer
+    private final Thread thread;
+    private volatile boolean closed;
+    private volatile boolean exited;
+
+    /**
+     * @param stepNanos tick interval, read again before each tick
+     * @param running   whether ticks should run, read on the simulation thread
+     * @param publisher called on the simulation thread whenever the state changed
+     */
+    public SimulationThread(FixedStepLoop loop, LongSupplier stepNanos, FixedStepLoop.Ticker ticker,
+                            BooleanSupplier running, Runnable publisher) {
+        this(loop, stepNanos, ticker, running, publisher, e -> { });
+    }
+
+    /**
+     * @param failureHandler called on the simulation thread after a tick or the publisher
+     *                       threw, should stop the game so the failure is not repeated
+     */
+    public SimulationThread(FixedStepLoop loop, LongSupplier stepNanos, FixedStepLoop.Ticker ticker,
+                            BooleanSupplier running, Runnable publisher, Consumer<Throwable> failureHandler) {
+        this.loop = loop;
+        this.stepNanos = stepNanos;
+        this.ticker = ticker;
+        this.running = running;
+        this.publisher = publisher;
+        this.failureHandler = failureHandler;
+        this.thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Run a command on the simulation thread before the next tick
+     */
+    public void execute(Runnable command) {
+        commands.add(command);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Run a command on the simulation thread and wait for it
+     * Runs it right away on the simulation thread itself, or if the thread is not running.
+     */
+    public void invokeAndWait(Runnable command) {
+        call(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Read something on the simulation thread and wait for the answer, as invokeAndWait
+     * The answer comes once the state the command left is published, so after a command
+     * that stopped the game the caller has the simulation to itself.
+     */
+    public <T> T call(Supplier<T> query) {
+        if (Thread.currentThread() == thread || !thread.isAlive()) {
+            return query.get();
+        }
+        CompletableFuture<T> answer = new CompletableFuture<>();
+        pending.add(answer);
+        execute(() -> {
+            try {
+                T result = query.get();
+                replies.add(() -> answer.complete(result));
+            } catch (Throwable e) {
+                replies.add(() -> answer.completeExceptionally(e));
+            }
+        });
+        if (exited) {
+            failPending(); // Stopped before taking the command
+        }
+        try {
+            return answer.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the simulation thread", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Simulation command failed", e.getCause());
+        } finally {
+            pending.remove(answer);
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                boolean changed = runCommands();
+                if (running.getAsBoolean()) {
+                    try {
+                        changed |= loop.advance(System.nanoTime(), stepNanos, ticker) > 0;
+                    } catch (Throwable e) {
+                        fail(e);
+                        changed = true;
+                    }
+                } else {
+                    loop.reset(); // Time spent stopped is not caught up
+                }
+                if (changed) {
+                    try {
+                        publisher.run();
+                    } catch (Throwable e) {
+                        fail(e);
+                    }
+                }
+                for (int i = 0; i < replies.size(); i++) {
+                    replies.get(i).run();
+                }
+                replies.clear();
+
+                if (running.getAsBoolean()) {
+                    waitUntil(System.nanoTime() + loop.getNanosToNextTick(stepNanos.getAsLong()));
+                } else if (commands.isEmpty()) {
+                    LockSupport.park(this); // Until the next command
+                }
+            }
+        } finally {
+            // Nobody waits for a thread that is gone
+            exited = true;
+            commands.clear();
+            replies.clear();
+            failPending();
+        }
+    }
+
+    private boolean runCommands() {
+        boolean ran = false;
+        for (Runnable command = commands.poll(); command != null; command = commands.poll()) {
+            try {
+                command.run();
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+            ran = true;
+        }
+        return ran;
+    }
+
+    // tick或发布失败: 记录下来, 交给处理器结束游戏, 线程继续运行
+    private void fail(Throwable e) {
+        e.printStackTrace();
+        loop.reset(); // The catch-up of the failed advance is dropped
+        try {
+            failureHandler.accept(e);
+        } catch (Throwable handlerFailure) {
+            handlerFailure.printStackTrace();
+        }
+    }
+
+    private void failPending() {
+        for (CompletableFuture<?> answer : pending) {
+            answer.completeExceptionally(new IllegalStateException("The simulation thread stopped"));
+        }
+    }
+
+    // 先睡到接近下一个tick, 最后一小段自旋等待, 新命令到达时提前醒来
+    private void waitUntil(long deadline) {
+        while (!closed && commands.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            if (remaining > SPIN_NANOS) {
+                LockSupport.parkNanos(this, remaining - SPIN_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Stop the thread after the current tick and wait for it
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread && thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isSimulationThread() { return Thread.currentThread() == thread; }
+    public FixedStepLoop getLoop() { return loop; }
+}
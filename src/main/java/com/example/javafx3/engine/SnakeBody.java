@@ -0,0 +1,115 @@
+package com.example.javafx3.engine;
+
+import java.util.Arrays;
+
+/**
+ * Snake body stored as packed cell indices (y * width + x) in a power-of-two
+ * int ring buffer. Index 0 is the head, length() - 1 the tail. Adding and removing
+ * at either end only moves a cursor, so a tick allocates nothing and each segment
+ * costs 4 bytes. The buffer doubles when a growth skill outgrows it.
+ * Front ends only read it, mutation is reserved for the simulation.
+ */
+public class SnakeBody {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] cells;
+    private int mask;  // capacity - 1
+    private int head;  // Slot of the head segment
+    private int length;
+
+    public SnakeBody() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public SnakeBody(int expectedLength) {
+        int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, expectedLength) - 1) << 1;
+        this.cells = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Cell of the segment at the given index, 0 being the head
+     */
+    public int get(int index) {
+        return cells[(head + index) & mask];
+    }
+
+    public int head() {
+        return cells[head];
+    }
+
+    public int tail() {
+        return cells[(head + length - 1) & mask];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Copy the segments, head first
+     */
+    public int[] toArray() {
+        int[] copy = new int[length];
+        for (int i = 0; i < length; i++) {
+            copy[i] = get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Copy the segments, head first, into an array of at least length() cells
+     *
+     * @return number of cells copied
+     */
+    public int copyTo(int[] target) {
+        for (int i = 0; i < length; i++) {
+            target[i] = get(i);
+        }
+        return length;
+    }
+
+    void addFirst(int cell) {
+        ensureCapacity();
+        head = (head - 1) & mask;
+        cells[head] = cell;
+        length++;
+    }
+
+    void addLast(int cell) {
+        ensureCapacity();
+        cells[(head + length) & mask] = cell;
+        length++;
+    }
+
+    int removeFirst() {
+        int cell = cells[head];
+        head = (head + 1) & mask;
+        length--;
+        return cell;
+    }
+
+    int removeLast() {
+        length--;
+        return cells[(head + length) & mask];
+    }
+
+    void clear() {
+        head = 0;
+        length = 0;
+    }
+
+    private void ensureCapacity() {
+        if (length < cells.length) return;
+
+        // Unroll the ring into a buffer twice the size
+        int[] grown = Arrays.copyOf(toArray(), cells.length << 1);
+        cells = grown;
+        mask = grown.length - 1;
+        head = 0;
+    }
+}
@@ -0,0 +1,1021 @@
+package com.example.javafx3.engine;
+
+import com.example.javafx3.manager.GameState;
+import com.example.javafx3.manager.SkillManager;
+import com.example.javafx3.model.EffectSet;
+import com.example.javafx3.model.GameRandom;
+import com.example.javafx3.model.SkillCard;
+import com.example.javafx3.model.SkillEffect;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Headless snake game simulation: movement, wall wrap, collision, food and skill hooks.
+ * Has no JavaFX dependencies, front ends drive it through {@link #step(Direction)}
+ * and read the board back through the getters.
+ */
+public class SnakeSimulation implements SkillManager.SnakeGameEffects {
+
+    // 游戏常量
+    public static final int INITIAL_SPEED = 150; // 毫秒
+    private static final int MIN_SPEED = 50;
+    private static final int BASE_FOOD_POINTS = 10;
+    private static final int NO_CELL = -1;
+    private static final long TIME_REWIND_MILLIS = 3000; // Game time undone by the time rewind skill
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final EndReason[] END_REASONS = EndReason.values();
+
+    private final int gridWidth;
+    private final int gridHeight;
+
+    // Skill system
+    private final GameState gameState;
+    private final SkillManager skillManager;
+    private SimulationListener listener = SimulationListener.NONE;
+
+    // 游戏变量
+    private Direction currentDirection = Direction.RIGHT;
+    private final SnakeBody body;
+    private final OccupancyGrid occupancy;
+    private final FreeCellIndex freeCells; // Cells with neither snake nor food
+    private final SplittableRandom gameSeeds; // Seed of each new game
+    private final GameRandom random;
+    private final TickClock clock = new TickClock(); // Game time for skill durations
+    private final RewindLog rewindLog; // Undo history for time rewind
+    private ReplayRecorder recorder; // Null unless the game is being recorded
+    private boolean offeringSkill = false; // Inside the skill earned callback
+    private int food = NO_CELL; // Packed cell, NO_CELL once the board is full
+    private int[] additionalFood = new int[8]; // For double food skill, packed cells
+    private int additionalFoodCount = 0;
+    private boolean running = false;
+    private boolean gameOver = false;
+    private EndReason endReason = null; // Set once the game is over
+    private int score = 0;
+    private int speed = INITIAL_SPEED;
+    private long tick = 0;
+
+    // Game statistics tracking
+    private int maxSnakeLength = 3;
+    private int foodConsumed = 0;
+
+    // Continuous skill effects, pushed by the skill manager when the active skills change
+    private EffectSet effects = EffectSet.NONE;
+
+    // Consumable skill effects, granted once when the skill is activated
+    private boolean wallPhasingEnabled = false;
+    private boolean doubleFood = false;
+    private boolean basicShieldEnabled = false;
+    private boolean secondChanceEnabled = false;
+    private boolean invincibilityEnabled = false;
+    private boolean timeFreezeEnabled = false;
+    private int shieldUses = 0;
+
+    public SnakeSimulation(int gridWidth, int gridHeight) {
+        this(gridWidth, gridHeight, GameRandom.newSeed());
+    }
+
+    /**
+     * @param seed master seed, the same seed gives the same sequence of games
+     */
+    public SnakeSimulation(int gridWidth, int gridHeight, long seed) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.body = new SnakeBody(gridWidth * gridHeight);
+        this.occupancy = new OccupancyGrid(gridWidth, gridHeight);
+        this.freeCells = new FreeCellIndex(gridWidth * gridHeight);
+        this.rewindLog = new RewindLog(gridWidth * gridHeight);
+        this.gameSeeds = new SplittableRandom(seed);
+        this.random = new GameRandom(seed);
+        this.gameState = new GameState(clock);
+        this.skillManager = new SkillManager(gameState, random);
+        skillManager.bindGameEffects(this);
+        gameState.setPlayerInputListener(new InputRecording());
+
+        reset();
+    }
+
+    public void setListener(SimulationListener listener) {
+        this.listener = listener != null ? listener : SimulationListener.NONE;
+    }
+
+    /**
+     * Record every game from now on, the current game is recorded from its start
+     * if it has not started ticking yet
+     *
+     * @param recorder the recorder, null stops recording
+     */
+    public void setRecorder(ReplayRecorder recorder) {
+        if (recorder != null && gridWidth * gridHeight > 65536) {
+            throw new IllegalArgumentException("Replays store cells in 16 bits, board too large: "
+                    + gridWidth + "x" + gridHeight);
+        }
+        this.recorder = recorder;
+        if (recorder != null) {
+            recorder.startGame(gridWidth, gridHeight, random.getSeed());
+        }
+    }
+
+    /**
+     * Reset board, score and skill system for a new game with the next seed
+     */
+    public void reset() {
+        reset(gameSeeds.nextLong());
+    }
+
+    /**
+     * Reset for a new game with the given seed, replaying a seed replays the game
+     */
+    public void reset(long gameSeed) {
+        random.reseed(gameSeed);
+
+        // 创建初始蛇身 (3个部分)
+        body.clear();
+        occupancy.clear();
+        freeCells.fill();
+        food = NO_CELL;
+        additionalFoodCount = 0;
+        addTail(cellOf(gridWidth / 2, gridHeight / 2));
+        addTail(cellOf(gridWidth / 2 - 1, gridHeight / 2));
+        addTail(cellOf(gridWidth / 2 - 2, gridHeight / 2));
+
+        // 生成食物
+        generateFood();
+
+        // 重置游戏状态
+        currentDirection = Direction.RIGHT;
+        score = 0;
+        speed = INITIAL_SPEED;
+        tick = 0;
+        clock.reset();
+        gameOver = false;
+        endReason = null;
+        running = false;
+
+        // 重置技能系统
+        gameState.reset();
+        skillManager.reset();
+        resetSkillEffects();
+
+        // Reset statistics tracking
+        maxSnakeLength = 3;
+        foodConsumed = 0;
+
+        // The new board is the start of the rewind history
+        rewindLog.clear();
+        if (recorder != null) {
+            recorder.startGame(gridWidth, gridHeight, gameSeed);
+        }
+    }
+
+    /**
+     * Start the game, resetting first if the previous game is over
+     */
+    public void start() {
+        if (gameOver) {
+            reset();
+        }
+
+        running = true;
+        gameOver = false;
+        gameState.startGame();
+    }
+
+    /**
+     * Pause ticking (skill menu, skill detail screen)
+     */
+    public void pause() {
+        running = false;
+    }
+
+    /**
+     * Resume ticking after a pause
+     */
+    public void resume() {
+        if (!gameOver) {
+            running = true;
+        }
+    }
+
+    /**
+     * End the game as lost after a tick failed, the board is left as the failure found it
+     */
+    public void abort() {
+        if (gameOver) return;
+        gameOver = true;
+        running = false;
+        endReason = EndReason.ERROR;
+        gameState.endGameWithLoss();
+        listener.onGameOver(false);
+    }
+
+    /**
+     * Advance the game by one tick
+     *
+     * @param requested direction requested for this tick, null keeps the current one.
+     *                  Reversing straight into the body is ignored.
+     */
+    public StepResult step(Direction requested) {
+        if (!running || gameOver) return StepResult.IDLE;
+
+        if (recorder != null) {
+            recorder.beginTick(this);
+        }
+        if (rewindLog.beginTick(clock.millis(), gameState.getScore(), speed, currentDirection)) {
+            rewindLog.saveKeyframe(body, food, additionalFood, additionalFoodCount);
+        }
+        tick++;
+        clock.advance(speed); // Nominal interval, so time freeze also slows skill timers
+
+        // Update active skills, expiring ones push a new effect set
+        gameState.updateActiveSkills();
+        EffectSet effects = this.effects;
+
+        // 应用方向变化
+        if (requested != null && requested != currentDirection.opposite()) {
+            if (recorder != null && requested != currentDirection) {
+                recorder.recordTurn(tick - 1, requested);
+            }
+            currentDirection = requested;
+        }
+
+        // 计算蛇头的新位置
+        int headCell = body.head();
+        int newX = headCell % gridWidth;
+        int newY = headCell / gridWidth;
+
+        // Apply food magnet effect
+        if (effects.getFoodMagnetRadius() > 0) {
+            Direction pull = applyFoodMagnet(newX, newY, effects.getFoodMagnetRadius());
+            if (pull != null) {
+                newX += pull.getDx();
+                newY += pull.getDy();
+            }
+        }
+
+        newX += currentDirection.getDx();
+        newY += currentDirection.getDy();
+
+        // 检查是否撞墙 (with wall phasing skill)
+        if (newX < 0 || newX >= gridWidth ||
+                newY < 0 || newY >= gridHeight) {
+            if (wallPhasingEnabled) {
+                wallPhasingEnabled = false; // One-time use
+            } else if (!invincibilityEnabled) {
+                return handleCollision(EndReason.WALL);
+            }
+
+            // Wrap around to opposite side, an invincible snake wraps too
+            // because the occupancy grid only covers the board
+            if (newX < 0) newX = gridWidth - 1;
+            if (newX >= gridWidth) newX = 0;
+            if (newY < 0) newY = gridHeight - 1;
+            if (newY >= gridHeight) newY = 0;
+        }
+        int newHead = cellOf(newX, newY);
+
+        // 检查是否撞到自己 (with comprehensive collision protection)
+        boolean ghostModeEnabled = effects.has(SkillEffect.GHOST_MODE);
+        if (!ghostModeEnabled && !effects.has(SkillEffect.STEEL_BODY) && !invincibilityEnabled) {
+            if (isOnSnake(newHead)) {
+                return handleCollision(EndReason.SELF);
+            }
+        } else if (ghostModeEnabled) {
+            // Ghost mode: 50% collision volume reduction (simplified as occasional pass-through)
+            if (random.stream(GameRandom.Stream.GHOST_MODE).nextDouble() > 0.5 && isOnSnake(newHead)) {
+                return handleCollision(EndReason.SELF);
+            }
+        }
+
+        // 移动蛇
+        addHead(newHead);
+
+        // 检查是否吃到食物
+        boolean ateFood = false;
+        if (newHead == food) {
+            ateFood = true;
+            handleFoodConsumption();
+        }
+
+        // Check additional food (for double food skill)
+        if (!gameOver) {
+            for (int i = additionalFoodCount - 1; i >= 0; i--) {
+                if (newHead == additionalFood[i]) {
+                    ateFood = true;
+                    removeAdditionalFood(i);
+                    handleFoodConsumption();
+                    break;
+                }
+            }
+        }
+
+        if (!ateFood) {
+            // 没吃到食物，移除尾部
+            removeTail();
+        }
+
+        if (gameOver) {
+            return StepResult.WON;
+        }
+        return ateFood ? StepResult.ATE_FOOD : StepResult.MOVED;
+    }
+
+    private boolean isOnSnake(int cell) {
+        return occupancy.isOccupied(cell);
+    }
+
+    private int cellOf(int x, int y) {
+        return y * gridWidth + x;
+    }
+
+    // Body mutations go through these helpers so the occupancy grid and free cells stay
+    // in sync and every change lands in the rewind log
+    private void addHead(int cell) {
+        rewindLog.record(RewindLog.HEAD_ADDED, freeCells.contains(cell) ? 1 : 0, cell);
+        body.addFirst(cell);
+        if (occupancy.occupy(cell)) {
+            freeCells.remove(cell);
+        }
+    }
+
+    private void addTail(int cell) {
+        rewindLog.record(RewindLog.TAIL_ADDED, freeCells.contains(cell) ? 1 : 0, cell);
+        body.addLast(cell);
+        if (occupancy.occupy(cell)) {
+            freeCells.remove(cell);
+        }
+    }
+
+    private void removeHead() {
+        int cell = body.removeFirst();
+        rewindLog.record(RewindLog.HEAD_REMOVED, 0, cell);
+        if (occupancy.release(cell)) {
+            freeCells.add(cell);
+        }
+    }
+
+    private void removeTail() {
+        int cell = body.removeLast();
+        rewindLog.record(RewindLog.TAIL_REMOVED, 0, cell);
+        if (occupancy.release(cell)) {
+            freeCells.add(cell);
+        }
+    }
+
+    /**
+     * Take a random free cell for a food item or teleport target
+     *
+     * @return the cell, or -1 when the board is full
+     */
+    private int takeRandomFreeCell(GameRandom.Stream stream) {
+        int cell = freeCells.randomCell(random.stream(stream));
+        if (cell >= 0) {
+            freeCells.remove(cell);
+        }
+        return cell;
+    }
+
+    // Handle collision with comprehensive shield system
+    private StepResult handleCollision(EndReason cause) {
+        // Check second chance first (most powerful)
+        if (secondChanceEnabled) {
+            secondChanceEnabled = false;
+            listener.onNotification("Second Chance", "Revived from death!", "💖");
+            return StepResult.BLOCKED;
+        }
+
+        // Check basic shield
+        if (basicShieldEnabled && shieldUses > 0) {
+            shieldUses--;
+            if (shieldUses <= 0) {
+                basicShieldEnabled = false;
+            }
+            listener.onNotification("Shield", "Collision blocked!", "🛡");
+            return StepResult.BLOCKED;
+        }
+
+        // Check steel body (self-collision immunity)
+        if (effects.has(SkillEffect.STEEL_BODY)) {
+            // Steel body only protects against self-collision, not walls
+            // This would be handled in the collision detection logic
+            return StepResult.BLOCKED;
+        }
+
+        // Time rewind, charged by eating food, undoes the last seconds instead of dying
+        if (effects.has(SkillEffect.TIME_REWIND) && gameState.isTimeRewindCharged()) {
+            long target = rewindLog.findTickSince(clock.millis() - TIME_REWIND_MILLIS);
+            if (target >= 0 && target < rewindLog.getTickCount() - 1 && rewindTo(target)) {
+                gameState.consumeTimeRewind();
+                listener.onScoreChanged(score);
+                listener.onNotification("Time Rewind", "Rewound 3 seconds!", "⏪");
+                return StepResult.BLOCKED;
+            }
+        }
+
+        gameOver = true;
+        running = false;
+        endReason = cause;
+        gameState.endGameWithLoss();
+        listener.onGameOver(false);
+        return StepResult.DIED;
+    }
+
+    // Handle food consumption with comprehensive skill effects
+    private void handleFoodConsumption() {
+        // Track statistics
+        foodConsumed++;
+        maxSnakeLength = Math.max(maxSnakeLength, body.length() + 1); // +1 because we're about to grow
+
+        // Apply score multiplier
+        double totalMultiplier = effects.getScoreMultiplier();
+
+        // Apply score frenzy if active
+        if (effects.has(SkillEffect.SCORE_FRENZY)) {
+            totalMultiplier *= gameState.getScoreFrenzyMultiplier();
+        }
+
+        int points = (int)(BASE_FOOD_POINTS * totalMultiplier);
+
+        // Increment food counter for various systems (score frenzy, time rewind charge)
+        gameState.incrementFoodCounter();
+
+        // Generate lucky star bonus food
+        if (effects.has(SkillEffect.LUCKY_STAR) && random.stream(GameRandom.Stream.LUCKY_STAR).nextDouble() < 0.25) { // 25% chance
+            generateAdditionalFood();
+            listener.onNotification("Lucky Star", "Bonus food spawned!", "⭐");
+        }
+
+        // Update score and check for skill unlock
+        if (gameState.updateScore(points)) {
+            // Player won!
+            handleGameWin(EndReason.WIN_SCORE);
+            return;
+        }
+
+        score = gameState.getScore();
+        listener.onScoreChanged(score);
+
+        // Check if player should earn a new skill
+        if (gameState.shouldEarnSkill()) {
+            SkillCard newSkill = skillManager.generateRandomSkill();
+            if (newSkill != null) {
+                // Check for duplicates
+                if (skillManager.isDuplicateSkill(newSkill)) {
+                    int bonusScore = skillManager.convertDuplicateToScore(newSkill);
+                    boolean won = gameState.updateScore(bonusScore);
+                    score = gameState.getScore();
+                    listener.onScoreChanged(score);
+                    listener.onNotification("重复技能", "转换为 " + bonusScore + " 奖励分数！", "💰");
+                    if (won) {
+                        handleGameWin(EndReason.WIN_SCORE);
+                        return;
+                    }
+                } else {
+                    // Skill choices made in the callback happen mid-tick, replays apply them here too
+                    offeringSkill = true;
+                    try {
+                        listener.onSkillEarned(newSkill);
+                    } finally {
+                        offeringSkill = false;
+                    }
+                }
+            }
+        }
+
+        // 生成新食物, 棋盘已满时直接获胜
+        if (!generateFood()) {
+            gameState.endGameWithWin();
+            handleGameWin(EndReason.BOARD_FULL);
+            return;
+        }
+
+        // Generate additional food if double food is active
+        if (doubleFood && additionalFoodCount == 0) {
+            generateAdditionalFood();
+        }
+
+        // 增加速度 (modified by speed multiplier)
+        int newSpeed = (int)(speed / effects.getSpeedMultiplier());
+        if (newSpeed > MIN_SPEED) {
+            speed = Math.max(MIN_SPEED, newSpeed - 2);
+        }
+    }
+
+    // Handle game win condition
+    private void handleGameWin(EndReason reason) {
+        score = gameState.getScore();
+        gameOver = true;
+        running = false;
+        endReason = reason;
+        listener.onGameOver(true);
+    }
+
+    // 生成食物 - 只在空闲格子中选取, 不会生成在蛇身上
+    private boolean generateFood() {
+        rewindLog.record(RewindLog.FOOD_MOVED, 0, food);
+        food = takeRandomFreeCell(GameRandom.Stream.FOOD);
+        return food != NO_CELL;
+    }
+
+    // Generate additional food for double food skill
+    private void generateAdditionalFood() {
+        int cell = takeRandomFreeCell(GameRandom.Stream.FOOD);
+        if (cell == NO_CELL) return;
+
+        if (additionalFoodCount == additionalFood.length) {
+            additionalFood = Arrays.copyOf(additionalFood, additionalFood.length * 2);
+        }
+        rewindLog.record(RewindLog.EXTRA_FOOD_ADDED, 0, cell);
+        additionalFood[additionalFoodCount++] = cell;
+    }
+
+    private void removeAdditionalFood(int index) {
+        rewindLog.record(RewindLog.EXTRA_FOOD_REMOVED, index, additionalFood[index]);
+        additionalFoodCount--;
+        System.arraycopy(additionalFood, index + 1, additionalFood, index, additionalFoodCount - index);
+    }
+
+    // Return uneaten bonus food cells to the free set
+    private void clearAdditionalFood() {
+        for (int i = 0; i < additionalFoodCount; i++) {
+            freeCells.add(additionalFood[i]);
+        }
+        additionalFoodCount = 0;
+    }
+
+    // Apply food magnet effect
+    private Direction applyFoodMagnet(int headX, int headY, int radius) {
+        // Check if food is within magnet radius
+        if (food == NO_CELL) return null;
+
+        int dx = cellX(food) - headX;
+        int dy = cellY(food) - headY;
+        int distance = Math.abs(dx) + Math.abs(dy); // Manhattan distance
+
+        if (distance <= radius) {
+            // Move towards food
+            if (Math.abs(dx) > Math.abs(dy)) {
+                return (dx > 0) ? Direction.RIGHT : Direction.LEFT;
+            } else if (dy != 0) {
+                return (dy > 0) ? Direction.DOWN : Direction.UP;
+            }
+        }
+
+        return null;
+    }
+
+    // Reset all skill effects
+    private void resetSkillEffects() {
+        effects = EffectSet.NONE;
+        wallPhasingEnabled = false;
+        doubleFood = false;
+        basicShieldEnabled = false;
+        secondChanceEnabled = false;
+        invincibilityEnabled = false;
+        timeFreezeEnabled = false;
+        shieldUses = 0;
+        clearAdditionalFood();
+    }
+
+    /**
+     * Rewind the board, score, speed and direction by the given number of ticks
+     * Game time, skills and consumed one-shot effects are not rewound.
+     *
+     * @return false if the history does not reach that far back
+     */
+    public boolean rewindTicks(int ticks) {
+        long target = rewindLog.getTickCount() - ticks;
+        if (ticks <= 0 || target < rewindLog.getOldestTick() || !rewindTo(target)) {
+            return false;
+        }
+        listener.onScoreChanged(score);
+        return true;
+    }
+
+    /**
+     * Restore the state at the start of a logged tick, undoing the log back to it
+     * Starts from the present or from the nearest later keyframe, whichever touches fewer cells.
+     */
+    private boolean rewindTo(long target) {
+        if (target < rewindLog.getOldestTick() || target >= rewindLog.getTickCount()) {
+            return false;
+        }
+
+        long entry = rewindLog.getEntryCount();
+        long stop = rewindLog.getTickEntry(target);
+        long keyframe = rewindLog.findKeyframe(target);
+        if (keyframe >= 0) {
+            long keyframeEntry = rewindLog.getTickEntry(keyframe);
+            long keyframeCost = body.length() + rewindLog.getKeyframeLength(keyframe) + keyframeEntry - stop;
+            if (keyframeCost < entry - stop) {
+                restoreKeyframe(keyframe);
+                entry = keyframeEntry;
+            }
+        }
+        while (entry > stop) {
+            entry--;
+            undo(rewindLog.getKind(entry), rewindLog.getArgument(entry), rewindLog.getCell(entry));
+        }
+
+        currentDirection = rewindLog.getTickDirection(target);
+        speed = rewindLog.getTickSpeed(target);
+        score = rewindLog.getTickScore(target);
+        gameState.restoreScore(score);
+        rewindLog.truncate(target);
+        return true;
+    }
+
+    /**
+     * Invert one logged board change, leaving the board exactly as it was before it
+     */
+    private void undo(int kind, int argument, int cell) {
+        switch (kind) {
+            case RewindLog.HEAD_ADDED:
+                body.removeFirst();
+                if (occupancy.release(cell) && argument == 1) {
+                    freeCells.add(cell);
+                }
+                break;
+            case RewindLog.TAIL_ADDED:
+                body.removeLast();
+                if (occupancy.release(cell) && argument == 1) {
+                    freeCells.add(cell);
+                }
+                break;
+            case RewindLog.HEAD_REMOVED:
+                body.addFirst(cell);
+                if (occupancy.occupy(cell)) {
+                    freeCells.remove(cell);
+                }
+                break;
+            case RewindLog.TAIL_REMOVED:
+                body.addLast(cell);
+                if (occupancy.occupy(cell)) {
+                    freeCells.remove(cell);
+                }
+                break;
+            case RewindLog.FOOD_MOVED:
+                if (food != NO_CELL) {
+                    freeCells.add(food);
+                }
+                food = cell;
+                break;
+            case RewindLog.EXTRA_FOOD_ADDED:
+                additionalFoodCount--;
+                freeCells.add(cell);
+                break;
+            case RewindLog.EXTRA_FOOD_REMOVED:
+                System.arraycopy(additionalFood, argument, additionalFood, argument + 1, additionalFoodCount - argument);
+                additionalFood[argument] = cell;
+                additionalFoodCount++;
+                break;
+        }
+    }
+
+    /**
+     * Replace the board with a keyframe, without touching the rest of the grid
+     */
+    private void restoreKeyframe(long keyframe) {
+        while (!body.isEmpty()) {
+            int cell = body.removeLast();
+            if (occupancy.release(cell)) {
+                freeCells.add(cell);
+            }
+        }
+        if (food != NO_CELL) {
+            freeCells.add(food);
+        }
+        for (int i = 0; i < additionalFoodCount; i++) {
+            freeCells.add(additionalFood[i]);
+        }
+
+        int[] cells = rewindLog.getKeyframeBody(keyframe);
+        for (int i = 0, length = rewindLog.getKeyframeLength(keyframe); i < length; i++) {
+            body.addLast(cells[i]);
+            if (occupancy.occupy(cells[i])) {
+                freeCells.remove(cells[i]);
+            }
+        }
+        food = rewindLog.getKeyframeFood(keyframe);
+        if (food != NO_CELL) {
+            freeCells.remove(food);
+        }
+        additionalFoodCount = rewindLog.getKeyframeExtraCount(keyframe);
+        if (additionalFood.length < additionalFoodCount) {
+            additionalFood = new int[additionalFoodCount * 2];
+        }
+        System.arraycopy(rewindLog.getKeyframeExtraFood(keyframe), 0, additionalFood, 0, additionalFoodCount);
+        for (int i = 0; i < additionalFoodCount; i++) {
+            freeCells.remove(additionalFood[i]);
+        }
+    }
+
+    /**
+     * Write everything the rest of the game depends on: random streams, board, free cell
+     * order, counters, one-shot effects, skills and the history the time rewind can reach.
+     * Only valid between ticks. Cells take 16 bits, boards have at most 65536 cells.
+     */
+    public void saveState(DataOutput out) throws IOException {
+        random.saveState(out);
+
+        out.writeInt(body.length());
+        for (int i = 0; i < body.length(); i++) {
+            out.writeShort(body.get(i));
+        }
+        out.writeInt(food);
+        out.writeInt(additionalFoodCount);
+        for (int i = 0; i < additionalFoodCount; i++) {
+            out.writeShort(additionalFood[i]);
+        }
+        freeCells.saveState(out);
+
+        out.writeByte(currentDirection.ordinal());
+        out.writeInt(score);
+        out.writeInt(speed);
+        out.writeLong(tick);
+        out.writeLong(clock.millis());
+        out.writeBoolean(running);
+        out.writeBoolean(gameOver);
+        out.writeByte(endReason != null ? endReason.ordinal() : -1);
+        out.writeInt(maxSnakeLength);
+        out.writeInt(foodConsumed);
+
+        out.writeBoolean(wallPhasingEnabled);
+        out.writeBoolean(doubleFood);
+        out.writeBoolean(basicShieldEnabled);
+        out.writeBoolean(secondChanceEnabled);
+        out.writeBoolean(invincibilityEnabled);
+        out.writeBoolean(timeFreezeEnabled);
+        out.writeInt(shieldUses);
+
+        gameState.saveState(out);
+        skillManager.saveState(out);
+        rewindLog.saveHistory(out, clock.millis() - TIME_REWIND_MILLIS);
+    }
+
+    /**
+     * Continue from a state written by saveState(), the game goes on exactly as it did
+     * after the save. The listener is not notified.
+     */
+    public void restoreState(DataInput in) throws IOException {
+        random.restoreState(in);
+
+        body.clear();
+        occupancy.clear();
+        for (int i = 0, length = in.readInt(); i < length; i++) {
+            int cell = in.readUnsignedShort();
+            body.addLast(cell);
+            occupancy.occupy(cell);
+        }
+        food = in.readInt();
+        additionalFoodCount = in.readInt();
+        if (additionalFood.length < additionalFoodCount) {
+            additionalFood = new int[additionalFoodCount * 2];
+        }
+        for (int i = 0; i < additionalFoodCount; i++) {
+            additionalFood[i] = in.readUnsignedShort();
+        }
+        freeCells.restoreState(in);
+
+        currentDirection = DIRECTIONS[in.readByte()];
+        score = in.readInt();
+        speed = in.readInt();
+        tick = in.readLong();
+        clock.set(in.readLong());
+        running = in.readBoolean();
+        gameOver = in.readBoolean();
+        int reason = in.readByte();
+        endReason = reason >= 0 ? END_REASONS[reason] : null;
+        maxSnakeLength = in.readInt();
+        foodConsumed = in.readInt();
+
+        wallPhasingEnabled = in.readBoolean();
+        doubleFood = in.readBoolean();
+        basicShieldEnabled = in.readBoolean();
+        secondChanceEnabled = in.readBoolean();
+        invincibilityEnabled = in.readBoolean();
+        timeFreezeEnabled = in.readBoolean();
+        shieldUses = in.readInt();
+        offeringSkill = false;
+
+        gameState.restoreState(in);
+        skillManager.restoreState(in); // Pushes the effect set of the active skills
+        rewindLog.restoreHistory(in);
+    }
+
+    /**
+     * Apply world shrink effect to game area
+     */
+    private void applyWorldShrinkEffect() {
+        if (effects.has(SkillEffect.WORLD_SHRINK)) {
+            // This would modify the effective game area
+            // For now, we'll just show a notification
+            listener.onNotification("World Shrink", "Game area reduced!", "🔄");
+        }
+    }
+
+    // ===== COMPREHENSIVE SKILL EFFECTS IMPLEMENTATION =====
+
+    @Override
+    public void applyEffectSet(EffectSet effects) {
+        this.effects = effects;
+    }
+
+    // Movement effects
+    @Override
+    public void enableWallPhasing() {
+        this.wallPhasingEnabled = true;
+    }
+
+    // Food effects
+    @Override
+    public void enableDoubleFood() {
+        this.doubleFood = true;
+        if (additionalFoodCount == 0) {
+            generateAdditionalFood();
+        }
+    }
+
+    // Scoring effects
+    @Override
+    public void enableScoreFrenzy() {
+        gameState.enableScoreFrenzy();
+    }
+
+    // Survival effects
+    @Override
+    public void enableBasicShield() {
+        this.basicShieldEnabled = true;
+        this.shieldUses = 1; // Single use
+    }
+
+    @Override
+    public void enableSecondChance() {
+        this.secondChanceEnabled = true;
+    }
+
+    @Override
+    public void enableInvincibility() {
+        this.invincibilityEnabled = true;
+    }
+
+    // Time effects
+    @Override
+    public void enableTimeFreezeMode() {
+        this.timeFreezeEnabled = true;
+    }
+
+    // System effects
+    @Override
+    public void expandSkillSlots() {
+        // This would be handled by GameState
+        listener.onNotification("Skill Slots", "Additional slot unlocked!", "📦");
+    }
+
+    @Override
+    public void teleportSnake() {
+        if (body.isEmpty()) return;
+
+        // Safe position: not on food or snake body, addHead takes it out of the free cells
+        int newPosition = freeCells.randomCell(random.stream(GameRandom.Stream.TELEPORT));
+        if (newPosition < 0) return; // Board full, nowhere to go
+
+        // Move snake head to new position
+        removeHead();
+        addHead(newPosition);
+    }
+
+    // Size effects
+    @Override
+    public void shrinkSnake() {
+        // Remove half of the snake's length (minimum 1 segment)
+        int segmentsToRemove = Math.max(1, body.length() / 2);
+
+        for (int i = 0; i < segmentsToRemove && body.length() > 1; i++) {
+            removeTail();
+        }
+
+        listener.onNotification("Body Split", "Snake length halved!", "✂");
+    }
+
+    @Override
+    public void growSnake() {
+        // Double the snake's length by duplicating tail segments
+        int currentSize = body.length();
+        int tail = body.tail();
+
+        for (int i = 0; i < currentSize && i < 10; i++) { // Limit growth to prevent excessive length
+            addTail(tail);
+        }
+
+        listener.onNotification("Body Growth", "Snake length doubled!", "📈");
+    }
+
+    /**
+     * Forwards the player's skill decisions to the recorder, tagged with the tick they apply to
+     */
+    private class InputRecording implements GameState.PlayerInputListener {
+        @Override
+        public void onSkillAwarded(SkillCard skill) {
+            recordSkill(Replay.SKILL_AWARD, skill);
+        }
+
+        @Override
+        public void onSkillActivated(SkillCard skill) {
+            recordSkill(Replay.SKILL_ACTIVATE, skill);
+        }
+
+        @Override
+        public void onSkillRemoved(SkillCard skill) {
+            recordSkill(Replay.SKILL_REMOVE, skill);
+        }
+
+        @Override
+        public void onBonusScore(int points) {
+            if (recorder != null) {
+                recorder.recordScore(inputPosition(), offeringSkill, points);
+            }
+        }
+
+        private void recordSkill(int operation, SkillCard skill) {
+            if (recorder != null) {
+                recorder.recordSkill(inputPosition(), offeringSkill, operation, skill.getSkillEffect());
+            }
+        }
+
+        // Mid-tick inputs belong to the tick being played, the others to the next one
+        private long inputPosition() {
+            return offeringSkill ? tick - 1 : tick;
+        }
+    }
+
+    // Getters
+    public int getGridWidth() { return gridWidth; }
+    public int getGridHeight() { return gridHeight; }
+    public GameState getGameState() { return gameState; }
+    public SkillManager getSkillManager() { return skillManager; }
+    public Direction getCurrentDirection() { return currentDirection; }
+    public SnakeBody getBody() { return body; }
+    public int getSnakeLength() { return body.length(); }
+    public OccupancyGrid getOccupancy() { return occupancy; }
+    public boolean isBoardFull() { return freeCells.isEmpty(); }
+    public int getFoodCell() { return food; }
+    public int getAdditionalFoodCount() { return additionalFoodCount; }
+    public int getAdditionalFoodCell(int index) { return additionalFood[index]; }
+    public boolean isRunning() { return running; }
+    public boolean isGameOver() { return gameOver; }
+    public EndReason getEndReason() { return endReason; }
+    public int getScore() { return score; }
+    public long getTick() { return tick; }
+    public TickClock getClock() { return clock; }
+    public RewindLog getRewindLog() { return rewindLog; }
+    public ReplayRecorder getRecorder() { return recorder; }
+    public GameRandom getRandom() { return random; }
+    public long getSeed() { return random.getSeed(); }
+    public int getMaxSnakeLength() { return maxSnakeLength; }
+    public int getFoodConsumed() { return foodConsumed; }
+    public EffectSet getEffects() { return effects; }
+    public boolean isGhostModeEnabled() { return effects.has(SkillEffect.GHOST_MODE); }
+    public boolean isInvincibilityEnabled() { return invincibilityEnabled; }
+    public boolean isTimeFreezeEnabled() { return timeFreezeEnabled; }
+    public boolean isScoreFrenzyEnabled() { return effects.has(SkillEffect.SCORE_FRENZY); }
+    public boolean isBasicShieldEnabled() { return basicShieldEnabled; }
+    public int getShieldUses() { return shieldUses; }
+    public boolean isSteelBodyEnabled() { return effects.has(SkillEffect.STEEL_BODY); }
+    public boolean isTimeRewindEnabled() { return effects.has(SkillEffect.TIME_REWIND); }
+    public boolean isLuckyStarEnabled() { return effects.has(SkillEffect.LUCKY_STAR); }
+    public boolean isWorldShrinkEnabled() { return effects.has(SkillEffect.WORLD_SHRINK); }
+    public double getSpeedMultiplier() { return effects.getSpeedMultiplier(); }
+    public double getScoreMultiplier() { return effects.getScoreMultiplier(); }
+
+    /**
+     * Column of a packed cell index
+     */
+    public int cellX(int cell) {
+        return cell % gridWidth;
+    }
+
+    /**
+     * Row of a packed cell index
+     */
+    public int cellY(int cell) {
+        return cell / gridWidth;
+    }
+
+    /**
+     * Milliseconds between two ticks at the current speed (time freeze slows the game 10x)
+     */
+    public long getTickIntervalMillis() {
+        return timeFreezeEnabled ? speed * 10L : speed;
+    }
+
+    /**
+     * Nanoseconds between two ticks, for the fixed-step loop
+     */
+    public long getTickIntervalNanos() {
+        return getTickIntervalMillis() * 1_000_000L;
+    }
+}
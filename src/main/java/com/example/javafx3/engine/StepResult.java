@@ -0,0 +1,19 @@
+package com.example.javafx3.engine;
+
+/**
+ * Outcome of a single simulation tick
+ */
+public enum StepResult {
+    /** Simulation is paused or over, nothing happened */
+    IDLE,
+    /** Snake moved one cell */
+    MOVED,
+    /** Snake moved and ate a food item */
+    ATE_FOOD,
+    /** A collision was absorbed by a survival skill, the snake did not move */
+    BLOCKED,
+    /** Snake died, game over */
+    DIED,
+    /** Win score reached */
+    WON
+}
@@ -0,0 +1,29 @@
+package com.example.javafx3.engine;
+
+import com.example.javafx3.model.GameClock;
+
+/**
+ * Game clock advanced by the simulation on every tick
+ * Each tick adds the nominal tick interval at the current speed, so skill durations
+ * match the wall clock in normal play, stop while paused and stretch under time freeze.
+ */
+public class TickClock implements GameClock {
+    private long millis;
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    void advance(long tickMillis) {
+        millis += tickMillis;
+    }
+
+    void reset() {
+        millis = 0;
+    }
+
+    void set(long millis) {
+        this.millis = millis;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.javafx3.engine;
+
+/**
+ * Running statistics of when ticks actually ran compared to when they were due.
+ * Lateness is the time between a tick's scheduled instant and the frame that ran it,
+ * the interval is the time between two consecutive ticks. Values are kept as running
+ * sums (Welford for the variance) so recording a tick allocates nothing.
+ */
+public class TickJitterStats {
+    private long ticks;
+    private long droppedTicks;
+    private long maxLatenessNanos;
+    private double meanLatenessNanos;
+
+    private long intervals;
+    private double meanIntervalNanos;
+    private double intervalM2; // Sum of squared differences from the mean interval
+    private long lastTickTime = Long.MIN_VALUE;
+
+    /**
+     * Record one tick that was due at the scheduled time and ran during the frame at now
+     */
+    void recordTick(long scheduledNanos, long nowNanos) {
+        ticks++;
+        long lateness = nowNanos - scheduledNanos;
+        maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+        meanLatenessNanos += (lateness - meanLatenessNanos) / ticks;
+
+        // Intervals are measured on the frames the ticks actually ran in
+        if (lastTickTime != Long.MIN_VALUE) {
+            long interval = nowNanos - lastTickTime;
+            intervals++;
+            double delta = interval - meanIntervalNanos;
+            meanIntervalNanos += delta / intervals;
+            intervalM2 += delta * (interval - meanIntervalNanos);
+        }
+        lastTickTime = nowNanos;
+    }
+
+    /**
+     * Record ticks that were skipped because the catch-up bound was reached
+     */
+    void recordDropped(long count) {
+        droppedTicks += count;
+    }
+
+    /**
+     * Forget the last tick time, so a pause does not count as a long interval
+     */
+    void breakSequence() {
+        lastTickTime = Long.MIN_VALUE;
+    }
+
+    public void reset() {
+        ticks = 0;
+        droppedTicks = 0;
+        maxLatenessNanos = 0;
+        meanLatenessNanos = 0;
+        intervals = 0;
+        meanIntervalNanos = 0;
+        intervalM2 = 0;
+        lastTickTime = Long.MIN_VALUE;
+    }
+
+    public long getTicks() { return ticks; }
+    public long getDroppedTicks() { return droppedTicks; }
+    public double getMeanLatencyMillis() { return meanLatenessNanos / 1_000_000.0; }
+    public double getMaxLatencyMillis() { return maxLatenessNanos / 1_000_000.0; }
+    public double getMeanIntervalMillis() { return meanIntervalNanos / 1_000_000.0; }
+
+    /**
+     * Standard deviation of the tick interval, the jitter
+     */
+    public double getIntervalStdDevMillis() {
+        return intervals < 2 ? 0 : Math.sqrt(intervalM2 / (intervals - 1)) / 1_000_000.0;
+    }
+
+    /**
+     * One-line summary for the console
+     */
+    public String report(long targetIntervalNanos) {
+        return String.format("ticks=%d dropped=%d target=%.2fms interval=%.2fms jitter=%.2fms lateness avg=%.2fms max=%.2fms",
+                ticks, droppedTicks, targetIntervalNanos / 1_000_000.0, getMeanIntervalMillis(),
+                getIntervalStdDevMillis(), getMeanLatencyMillis(), getMaxLatencyMillis());
+    }
+}
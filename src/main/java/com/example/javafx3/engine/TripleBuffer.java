@@ -0,0 +1,66 @@
+package com.example.javafx3.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free hand-over of the latest frame from one writer thread to one reader thread
+ * Three frames: the writer fills the back one, the reader reads the front one, and the
+ * middle one holds the latest published frame. Publishing swaps back and middle,
+ * taking the latest swaps middle and front, each a single atomic exchange. Neither side
+ * ever waits or sees a frame the other is using; frames published faster than they are
+ * read are overwritten, the reader always gets the newest.
+ * The frames are reused, a frame the reader holds is never touched until it takes the next.
+ */
+public class TripleBuffer<T> {
+
+    private static final int FRESH = 4; // Set on the middle index when it holds a frame not taken yet
+    private static final int INDEX = 3;
+
+    private final Object[] frames = new Object[3];
+    private final AtomicInteger middle = new AtomicInteger(2);
+    private int back = 0;  // Writer's
+    private int front = 1; // Reader's
+
+    public TripleBuffer(Supplier<T> frameFactory) {
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = frameFactory.get();
+        }
+    }
+
+    /**
+     * Frame to fill, writer thread only
+     */
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) frames[back];
+    }
+
+    /**
+     * Make the back frame the latest, writer thread only; the writer gets another to fill
+     */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /**
+     * Take the latest frame if one was published since the last call, reader thread only
+     *
+     * @return true if {@link #getFront()} changed
+     */
+    public boolean update() {
+        if ((middle.get() & FRESH) == 0) {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX;
+        return true;
+    }
+
+    /**
+     * Frame taken by the last update, reader thread only
+     */
+    @SuppressWarnings("unchecked")
+    public T getFront() {
+        return (T) frames[front];
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.javafx3.manager;
 
+import com.example.javafx3.model.GameClock;
 import com.example.javafx3.model.SkillCard;
 import com.example.javafx3.model.SkillEffect;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 /**
  * Enhanced game state manager with comprehensive skill system support
  */
 public class GameState {
+    private final GameClock clock;
     private int score;
     private int previousSkillScore; // Track last score when skill was awarded
     private boolean gameWon;
@@ -17,15 +22,19 @@ public class GameState {
     private int skillsEarned;
 
     // Skill-related state
-    private List<SkillCard> earnedSkills;
-    private List<SkillCard> activeSkills;
+    private final SkillInventory inventory = new SkillInventory();
     private int maxActivationSlots;
     private int usedActivationSlots;
+    private SkillActivationListener activationListener;
+    private PlayerInputListener inputListener;
 
-    // Time rewind system
-    private List<GameStateSnapshot> stateSnapshots;
+    // Timed effects, only skills with a duration are registered
+    private final TimerWheel timerWheel;
+    private final TimerWheel.Timeout[] expiryTimers = new TimerWheel.Timeout[SkillEffect.values().length]; // By effect ordinal
+
+    // Time rewind charge, the board history itself is kept by the simulation
     private int rewindThreshold = 5;
-    private int foodsSinceLastSnapshot = 0;
+    private int foodsSinceLastRewind = 0;
 
     // Score frenzy system
     private int comboMultiplier = 0;
@@ -36,9 +45,17 @@ public class GameState {
     private static final int WIN_SCORE = 900;
     private static final int MAX_SKILLS = 15;
     private static final int INITIAL_ACTIVATION_SLOTS = 3;
-    private static final int MAX_STATE_SNAPSHOTS = 10;
+    private static final int TIMER_WHEEL_SIZE = 256;
+    private static final long TIMER_RESOLUTION_MILLIS = 50; // Shortest tick interval
+    private static final SkillEffect[] EFFECTS = SkillEffect.values();
     
     public GameState() {
+        this(GameClock.SYSTEM);
+    }
+
+    public GameState(GameClock clock) {
+        this.clock = clock;
+        this.timerWheel = new TimerWheel(TIMER_WHEEL_SIZE, TIMER_RESOLUTION_MILLIS, clock.millis());
         reset();
     }
 
@@ -51,17 +68,17 @@ public class GameState {
         gameWon = false;
         gameLost = false;
         gameRunning = false;
-        gameStartTime = 0;
+        gameStartTime = -1;
         skillsEarned = 0;
 
-        earnedSkills = new ArrayList<>();
-        activeSkills = new ArrayList<>();
+        inventory.clear();
+        Arrays.fill(expiryTimers, null);
+        timerWheel.clear(clock.millis());
         maxActivationSlots = INITIAL_ACTIVATION_SLOTS;
         usedActivationSlots = 0;
 
-        // Reset time rewind system
-        stateSnapshots = new ArrayList<>();
-        foodsSinceLastSnapshot = 0;
+        // Reset time rewind charge
+        foodsSinceLastRewind = 0;
 
         // Reset score frenzy
         comboMultiplier = 0;
@@ -73,7 +90,7 @@ public class GameState {
      */
     public void startGame() {
         gameRunning = true;
-        gameStartTime = System.currentTimeMillis();
+        gameStartTime = clock.millis();
     }
     
     /**
@@ -95,6 +112,17 @@ public class GameState {
         
         return false;
     }
+
+    /**
+     * Add points granted by a player decision rather than by eating (conflict compensation)
+     */
+    public boolean addBonusScore(int points) {
+        boolean won = updateScore(points);
+        if (inputListener != null) {
+            inputListener.onBonusScore(points);
+        }
+        return won;
+    }
     
     /**
      * Check if player should earn a new skill
@@ -109,13 +137,16 @@ public class GameState {
     }
     
     /**
-     * Award a skill to the player
+     * Award a skill to the player, a second card of an earned effect is ignored
+     * (duplicates are converted to score before they get here)
      */
     public void awardSkill(SkillCard skill) {
-        if (skill != null && skillsEarned < MAX_SKILLS) {
-            earnedSkills.add(skill);
+        if (skill != null && skillsEarned < MAX_SKILLS && inventory.addEarned(skill)) {
             skillsEarned++;
             previousSkillScore = (skillsEarned * POINTS_PER_SKILL);
+            if (inputListener != null) {
+                inputListener.onSkillAwarded(skill);
+            }
         }
     }
     
@@ -123,7 +154,7 @@ public class GameState {
      * Activate a skill
      */
     public boolean activateSkill(SkillCard skill) {
-        if (!gameRunning || skill == null || !earnedSkills.contains(skill)) {
+        if (!gameRunning || skill == null || !inventory.isEarned(skill)) {
             return false;
         }
         
@@ -139,11 +170,19 @@ public class GameState {
         
         // Activate the skill
         if (skill.activate()) {
-            activeSkills.add(skill);
+            inventory.addActive(skill);
             usedActivationSlots++;
             
             // Handle special skill effects
             handleSpecialSkillEffects(skill);
+            scheduleExpiry(skill);
+
+            if (activationListener != null) {
+                activationListener.onSkillActivated(skill);
+            }
+            if (inputListener != null) {
+                inputListener.onSkillActivated(skill);
+            }
             
             return true;
         }
@@ -165,98 +204,123 @@ public class GameState {
     
     /**
      * Update active skills and remove expired ones
+     * Only timers that became due are touched, skills still running cost nothing
      */
     public void updateActiveSkills() {
-        Iterator<SkillCard> iterator = activeSkills.iterator();
-        while (iterator.hasNext()) {
-            SkillCard skill = iterator.next();
-            if (skill.hasExpired()) {
-                skill.deactivate();
-                iterator.remove();
-                usedActivationSlots--;
-            }
-        }
+        timerWheel.advance(clock.millis());
     }
-    
+
     /**
-     * Remove active skill (for conflict resolution)
+     * Run a task once the given game time has passed, for timed game mechanics
      */
-    public void removeActiveSkill(SkillCard skill) {
-        if (activeSkills.remove(skill)) {
-            usedActivationSlots--;
-        }
+    public TimerWheel.Timeout schedule(long delayMillis, Runnable task) {
+        return timerWheel.schedule(clock.millis() + delayMillis, task);
     }
 
     /**
-     * Save game state snapshot for time rewind
+     * Register the expiry of a skill with a duration on the timer wheel
      */
-    public void saveStateSnapshot(Object gameData) {
-        GameStateSnapshot snapshot = new GameStateSnapshot(
-            score,
-            new ArrayList<>(earnedSkills),
-            new ArrayList<>(activeSkills),
-            System.currentTimeMillis(),
-            gameData
-        );
+    private void scheduleExpiry(SkillCard skill) {
+        if (skill.getDuration() <= 0 || !skill.isActive()) {
+            return;
+        }
+        long deadline = skill.getActivationTime() + skill.getDuration();
+        expiryTimers[skill.getSkillEffect().ordinal()] = timerWheel.schedule(deadline, () -> expireSkill(skill));
+    }
 
-        stateSnapshots.add(snapshot);
+    private void expireSkill(SkillCard skill) {
+        expiryTimers[skill.getSkillEffect().ordinal()] = null;
+        if (!inventory.removeActive(skill)) {
+            return;
+        }
+        skill.deactivate();
+        usedActivationSlots--;
+        if (activationListener != null) {
+            activationListener.onSkillDeactivated(skill);
+        }
+    }
 
-        // Keep only recent snapshots
-        if (stateSnapshots.size() > MAX_STATE_SNAPSHOTS) {
-            stateSnapshots.remove(0);
+    /**
+     * Remove active skill (for conflict resolution)
+     */
+    public void removeActiveSkill(SkillCard skill) {
+        if (inventory.removeActive(skill)) {
+            cancelExpiry(skill.getSkillEffect().ordinal());
+            usedActivationSlots--;
+            if (activationListener != null) {
+                activationListener.onSkillDeactivated(skill);
+            }
+            if (inputListener != null) {
+                inputListener.onSkillRemoved(skill);
+            }
         }
+    }
 
-        foodsSinceLastSnapshot = 0;
+    private void cancelExpiry(int effectIndex) {
+        timerWheel.cancel(expiryTimers[effectIndex]);
+        expiryTimers[effectIndex] = null;
     }
 
     /**
-     * Check if time rewind should trigger
+     * Check if enough food was eaten since the last rewind to rewind again
      */
-    public boolean shouldTriggerTimeRewind() {
-        return foodsSinceLastSnapshot >= rewindThreshold && !stateSnapshots.isEmpty();
+    public boolean isTimeRewindCharged() {
+        return foodsSinceLastRewind >= rewindThreshold;
     }
 
     /**
-     * Get most recent state snapshot for rewind
+     * Use up the time rewind charge
      */
-    public GameStateSnapshot getRewindSnapshot() {
-        if (stateSnapshots.isEmpty()) {
-            return null;
-        }
+    public void consumeTimeRewind() {
+        foodsSinceLastRewind = 0;
+    }
 
-        // Return snapshot from 3 seconds ago (or closest available)
-        long currentTime = System.currentTimeMillis();
-        GameStateSnapshot bestSnapshot = stateSnapshots.get(stateSnapshots.size() - 1);
+    /**
+     * Set the score back to an earlier value on time rewind
+     */
+    public void restoreScore(int score) {
+        this.score = score;
+    }
 
-        for (int i = stateSnapshots.size() - 1; i >= 0; i--) {
-            GameStateSnapshot snapshot = stateSnapshots.get(i);
-            if (currentTime - snapshot.timestamp >= 3000) { // 3 seconds
-                bestSnapshot = snapshot;
-                break;
-            }
-        }
+    /**
+     * Listen for changes of the active skill set
+     */
+    public void setSkillActivationListener(SkillActivationListener listener) {
+        this.activationListener = listener;
+    }
 
-        return bestSnapshot;
+    /**
+     * Callbacks fired whenever the set of active skills changes, so skill effects are
+     * applied on these events instead of on every game tick
+     */
+    public interface SkillActivationListener {
+        void onSkillActivated(SkillCard skill);
+        void onSkillDeactivated(SkillCard skill);
     }
 
     /**
-     * Apply time rewind
+     * Listen for the player's skill decisions, for replay recording
      */
-    public void applyTimeRewind(GameStateSnapshot snapshot) {
-        this.score = snapshot.score;
-        this.earnedSkills = new ArrayList<>(snapshot.earnedSkills);
-        this.activeSkills = new ArrayList<>(snapshot.activeSkills);
-        this.usedActivationSlots = activeSkills.size();
+    public void setPlayerInputListener(PlayerInputListener listener) {
+        this.inputListener = listener;
+    }
 
-        // Reset rewind counter
-        foodsSinceLastSnapshot = 0;
+    /**
+     * Callbacks fired for every successful award, activation and removal and for bonus
+     * score. Skill expiry is not an input and is not reported.
+     */
+    public interface PlayerInputListener {
+        void onSkillAwarded(SkillCard skill);
+        void onSkillActivated(SkillCard skill);
+        void onSkillRemoved(SkillCard skill);
+        void onBonusScore(int points);
     }
 
     /**
      * Increment food counter for time rewind and score frenzy
      */
     public void incrementFoodCounter() {
-        foodsSinceLastSnapshot++;
+        foodsSinceLastRewind++;
 
         if (scoreFrenzyActive) {
             comboMultiplier++;
@@ -295,31 +359,114 @@ public class GameState {
         gameLost = true;
         gameRunning = false;
     }
+
+    /**
+     * End game with win condition (board completely filled)
+     */
+    public void endGameWithWin() {
+        gameWon = true;
+        gameRunning = false;
+    }
     
+    /**
+     * Write the counters and skill cards, for replay keyframes
+     */
+    public void saveState(DataOutput out) throws IOException {
+        out.writeInt(score);
+        out.writeInt(previousSkillScore);
+        out.writeBoolean(gameWon);
+        out.writeBoolean(gameLost);
+        out.writeBoolean(gameRunning);
+        out.writeLong(gameStartTime);
+        out.writeInt(skillsEarned);
+        out.writeInt(maxActivationSlots);
+        out.writeInt(usedActivationSlots);
+        out.writeInt(rewindThreshold);
+        out.writeInt(foodsSinceLastRewind);
+        out.writeInt(comboMultiplier);
+        out.writeBoolean(scoreFrenzyActive);
+
+        List<SkillCard> earned = inventory.getEarnedView();
+        out.writeByte(earned.size());
+        for (int i = 0; i < earned.size(); i++) {
+            SkillCard card = earned.get(i);
+            out.writeByte(card.getSkillEffect().ordinal());
+            out.writeInt(card.getId());
+            out.writeInt(card.getRemainingActivations());
+            out.writeBoolean(card.isActive());
+            out.writeLong(card.getActivationTime());
+        }
+        List<SkillCard> active = inventory.getActiveView();
+        out.writeByte(active.size());
+        for (int i = 0; i < active.size(); i++) {
+            out.writeByte(active.get(i).getSkillEffect().ordinal());
+        }
+    }
+
+    /**
+     * Replace the state with one written by saveState(), the clock must already be at the
+     * saved game time. Skill expiries are scheduled again, other scheduled tasks are dropped.
+     * No listener is notified.
+     */
+    public void restoreState(DataInput in) throws IOException {
+        score = in.readInt();
+        previousSkillScore = in.readInt();
+        gameWon = in.readBoolean();
+        gameLost = in.readBoolean();
+        gameRunning = in.readBoolean();
+        gameStartTime = in.readLong();
+        skillsEarned = in.readInt();
+        maxActivationSlots = in.readInt();
+        usedActivationSlots = in.readInt();
+        rewindThreshold = in.readInt();
+        foodsSinceLastRewind = in.readInt();
+        comboMultiplier = in.readInt();
+        scoreFrenzyActive = in.readBoolean();
+
+        inventory.clear();
+        Arrays.fill(expiryTimers, null);
+        timerWheel.clear(clock.millis());
+        int earnedCount = in.readUnsignedByte();
+        for (int i = 0; i < earnedCount; i++) {
+            SkillCard card = new SkillCard(EFFECTS[in.readUnsignedByte()], clock, in.readInt());
+            card.restoreState(in.readInt(), in.readBoolean(), in.readLong());
+            inventory.addEarned(card);
+        }
+        int activeCount = in.readUnsignedByte();
+        for (int i = 0; i < activeCount; i++) {
+            SkillCard card = inventory.getEarned(EFFECTS[in.readUnsignedByte()]);
+            inventory.addActive(card);
+            scheduleExpiry(card);
+        }
+    }
+
     /**
      * Check if specific skill is active
      */
     public boolean isSkillActive(SkillEffect effect) {
-        return activeSkills.stream()
-                .anyMatch(skill -> skill.getSkillEffect() == effect && skill.isActive());
+        return inventory.isActive(effect);
+    }
+
+    /**
+     * Check if a skill of this type was earned this game
+     */
+    public boolean isSkillEarned(SkillEffect effect) {
+        return inventory.isEarned(effect);
     }
     
     /**
      * Get active skill of specific type
      */
     public SkillCard getActiveSkill(SkillEffect effect) {
-        return activeSkills.stream()
-                .filter(skill -> skill.getSkillEffect() == effect && skill.isActive())
-                .findFirst()
-                .orElse(null);
+        return inventory.getActive(effect);
     }
     
     /**
      * Get game duration in seconds
      */
     public long getGameDuration() {
-        if (gameStartTime == 0) return 0;
-        return (System.currentTimeMillis() - gameStartTime) / 1000;
+        if (gameStartTime < 0) return 0;
+        return (clock.millis() - gameStartTime) / 1000;
     }
     
     /**
@@ -335,13 +482,20 @@ public class GameState {
     }
     
     // Getters
+    public GameClock getClock() { return clock; }
+    public TimerWheel getTimerWheel() { return timerWheel; }
     public int getScore() { return score; }
     public boolean isGameWon() { return gameWon; }
     public boolean isGameLost() { return gameLost; }
     public boolean isGameRunning() { return gameRunning; }
     public int getSkillsEarned() { return skillsEarned; }
-    public List<SkillCard> getEarnedSkills() { return new ArrayList<>(earnedSkills); }
-    public List<SkillCard> getActiveSkills() { return new ArrayList<>(activeSkills); }
+    public SkillInventory getSkillInventory() { return inventory; }
+    /** Read-only live views in award and activation order, copy them before changing the skills in a loop */
+    public List<SkillCard> getEarnedSkills() { return inventory.getEarnedView(); }
+    public List<SkillCard> getActiveSkills() { return inventory.getActiveView(); }
+    /** Effects of the earned and active skills as bitmasks over SkillEffect ordinals, see EffectSet.bit() */
+    public long getEarnedEffectsMask() { return inventory.getEarnedMask(); }
+    public long getActiveEffectsMask() { return inventory.getActiveMask(); }
     public int getMaxActivationSlots() { return maxActivationSlots; }
     public int getUsedActivationSlots() { return usedActivationSlots; }
     public int getAvailableActivationSlots() { return maxActivationSlots - usedActivationSlots; }
@@ -357,24 +511,4 @@ public class GameState {
     public static int getPointsPerSkill() { return POINTS_PER_SKILL; }
     public static int getWinScore() { return WIN_SCORE; }
     public static int getMaxSkills() { return MAX_SKILLS; }
-
-    /**
-     * Game state snapshot for time rewind functionality
-     */
-    public static class GameStateSnapshot {
-        public final int score;
-        public final List<SkillCard> earnedSkills;
-        public final List<SkillCard> activeSkills;
-        public final long timestamp;
-        public final Object gameData; // Snake position, food position, etc.
-
-        public GameStateSnapshot(int score, List<SkillCard> earnedSkills,
-                               List<SkillCard> activeSkills, long timestamp, Object gameData) {
-            this.score = score;
-            this.earnedSkills = earnedSkills;
-            this.activeSkills = activeSkills;
-            this.timestamp = timestamp;
-            this.gameData = gameData;
-        }
-    }
-}
+}
\ No newline at end of file
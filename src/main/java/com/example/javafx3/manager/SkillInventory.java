@@ -0,0 +1,150 @@
+package com.example.javafx3.manager;
+
+import com.example.javafx3.model.EffectSet;
+import com.example.javafx3.model.SkillCard;
+import com.example.javafx3.model.SkillEffect;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Earned and active skill cards of one game
+ * Holds at most one card per skill effect, indexed by effect ordinal, so earned and
+ * active queries are an array read or a mask test instead of a list scan. Award and
+ * activation order are kept for the UI and exposed as read-only live views; iterating
+ * them by index does not allocate.
+ */
+public class SkillInventory {
+    private static final int EFFECT_COUNT = SkillEffect.values().length;
+
+    private final SkillCard[] byEffect = new SkillCard[EFFECT_COUNT];
+    private final SkillCard[] earned = new SkillCard[EFFECT_COUNT]; // Award order
+    private final SkillCard[] active = new SkillCard[EFFECT_COUNT]; // Activation order
+    private int earnedCount;
+    private int activeCount;
+    private long earnedMask; // One bit per SkillEffect ordinal, see EffectSet.bit()
+    private long activeMask;
+
+    private final List<SkillCard> earnedView = new CardList(false);
+    private final List<SkillCard> activeView = new CardList(true);
+
+    /**
+     * Add an earned card
+     *
+     * @return false if a card of the same effect was earned already
+     */
+    public boolean addEarned(SkillCard card) {
+        int index = card.getSkillEffect().ordinal();
+        if (byEffect[index] != null) {
+            return false;
+        }
+        byEffect[index] = card;
+        earned[earnedCount++] = card;
+        earnedMask |= EffectSet.bit(card.getSkillEffect());
+        return true;
+    }
+
+    /**
+     * Mark an earned card as active
+     *
+     * @return false if the card is not earned or already active
+     */
+    public boolean addActive(SkillCard card) {
+        if (!isEarned(card) || isActive(card.getSkillEffect())) {
+            return false;
+        }
+        active[activeCount++] = card;
+        activeMask |= EffectSet.bit(card.getSkillEffect());
+        return true;
+    }
+
+    /**
+     * Remove a card from the active cards, keeping the activation order of the rest
+     *
+     * @return false if the card was not active
+     */
+    public boolean removeActive(SkillCard card) {
+        if (!isEarned(card) || !isActive(card.getSkillEffect())) {
+            return false;
+        }
+        int index = 0;
+        while (active[index] != card) {
+            index++;
+        }
+        System.arraycopy(active, index + 1, active, index, activeCount - index - 1);
+        active[--activeCount] = null;
+        activeMask &= ~EffectSet.bit(card.getSkillEffect());
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(byEffect, null);
+        Arrays.fill(earned, 0, earnedCount, null);
+        Arrays.fill(active, 0, activeCount, null);
+        earnedCount = 0;
+        activeCount = 0;
+        earnedMask = 0L;
+        activeMask = 0L;
+    }
+
+    public boolean isEarned(SkillCard card) {
+        return byEffect[card.getSkillEffect().ordinal()] == card;
+    }
+
+    public boolean isEarned(SkillEffect effect) {
+        return (earnedMask & EffectSet.bit(effect)) != 0L;
+    }
+
+    public boolean isActive(SkillEffect effect) {
+        return (activeMask & EffectSet.bit(effect)) != 0L;
+    }
+
+    /**
+     * Earned card of an effect, or null
+     */
+    public SkillCard getEarned(SkillEffect effect) {
+        return byEffect[effect.ordinal()];
+    }
+
+    /**
+     * Active card of an effect, or null
+     */
+    public SkillCard getActive(SkillEffect effect) {
+        return isActive(effect) ? byEffect[effect.ordinal()] : null;
+    }
+
+    /** Read-only live views in award and activation order */
+    public List<SkillCard> getEarnedView() { return earnedView; }
+    public List<SkillCard> getActiveView() { return activeView; }
+    public int getEarnedCount() { return earnedCount; }
+    public int getActiveCount() { return activeCount; }
+    /** Bitmasks over SkillEffect ordinals, see EffectSet.bit() */
+    public long getEarnedMask() { return earnedMask; }
+    public long getActiveMask() { return activeMask; }
+
+    /**
+     * Read-only list over the earned or active array
+     */
+    private class CardList extends AbstractList<SkillCard> implements RandomAccess {
+        private final boolean activeCards;
+
+        CardList(boolean activeCards) {
+            this.activeCards = activeCards;
+        }
+
+        @Override
+        public SkillCard get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+            }
+            return activeCards ? active[index] : earned[index];
+        }
+
+        @Override
+        public int size() {
+            return activeCards ? activeCount : earnedCount;
+        }
+    }
+}
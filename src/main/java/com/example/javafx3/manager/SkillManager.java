@@ -1,61 +1,106 @@
 package com.example.javafx3.manager;
 
+import com.example.javafx3.model.EffectSet;
+import com.example.javafx3.model.GameRandom;
 import com.example.javafx3.model.SkillCard;
 import com.example.javafx3.model.SkillEffect;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
- * Comprehensive skill manager with rarity distribution, conflict resolution, and dynamic balance
+ * Comprehensive skill manager with rarity distribution and conflict resolution
  */
-public class SkillManager {
-    private Random random;
+public class SkillManager implements GameState.SkillActivationListener {
+    private final GameRandom random;
     private GameState gameState;
 
+    // Skill effects, rebuilt only when the active skills change
+    private SnakeGameEffects gameEffects;
+    private EffectSet effects = EffectSet.NONE;
+
     // Skill generation tracking
     private Map<SkillEffect, Integer> skillCounts;
     private List<SkillEffect> availableSkills;
-
-    // Dynamic balance system
-    private double skillProbabilityReduction = 0.0;
-    private int lastDecayResetScore = 0;
+    private long eligibleMask; // Skills not earned yet, one bit per SkillEffect ordinal
+    private int nextCardId = 1; // Card ids restart every game, so replays number cards alike
 
     // Rarity distribution by score ranges
-    private static final Map<String, double[]> RARITY_DISTRIBUTION = new HashMap<>();
+    private static final int[] SCORE_BAND_LIMITS = {200, 500, 1000, Integer.MAX_VALUE}; // Highest score of each band
+    private static final double[][] RARITY_DISTRIBUTION = {
+        {0.50, 0.35, 0.15, 0.00},    // 0-200: Common, Rare, Epic, Legendary
+        {0.45, 0.35, 0.18, 0.02},    // 201-500
+        {0.40, 0.35, 0.20, 0.05},    // 501-1000
+        {0.35, 0.35, 0.22, 0.08},    // 1000+
+    };
+
+    // Precomputed draw tables: one alias table over the rarity tiers per score band,
+    // and the skills of each tier as a bitmask
+    private static final SkillEffect[] SKILLS = SkillEffect.values();
+    private static final AliasTable[] RARITY_TABLES = new AliasTable[RARITY_DISTRIBUTION.length];
+    private static final long[] RARITY_MASKS = new long[5]; // Indexed by 1-based rarity tier
+    private static final long ALL_SKILLS_MASK;
     static {
-        RARITY_DISTRIBUTION.put("0-200", new double[]{0.50, 0.35, 0.15, 0.00});    // Common, Rare, Epic, Legendary
-        RARITY_DISTRIBUTION.put("201-500", new double[]{0.45, 0.35, 0.18, 0.02});
-        RARITY_DISTRIBUTION.put("501-1000", new double[]{0.40, 0.35, 0.20, 0.05});
-        RARITY_DISTRIBUTION.put("1000+", new double[]{0.35, 0.35, 0.22, 0.08});
+        for (int band = 0; band < RARITY_DISTRIBUTION.length; band++) {
+            RARITY_TABLES[band] = new AliasTable(RARITY_DISTRIBUTION[band]);
+        }
+        long all = 0L;
+        for (SkillEffect skill : SKILLS) {
+            RARITY_MASKS[skill.getRarity()] |= EffectSet.bit(skill);
+            all |= EffectSet.bit(skill);
+        }
+        ALL_SKILLS_MASK = all;
     }
 
     // Skill conflicts mapping
-    private static final Map<SkillEffect, Set<SkillEffect>> SKILL_CONFLICTS = new HashMap<>();
+    // Conflict matrix: CONFLICTS[skill.ordinal()] holds the bits of the active skills
+    // that the skill replaces when activated
+    private static final long[] CONFLICTS = new long[SKILLS.length];
     static {
         // Speed conflicts
-        Set<SkillEffect> speedConflicts = new HashSet<>();
-        speedConflicts.add(SkillEffect.SLOW_MOVEMENT);
-        SKILL_CONFLICTS.put(SkillEffect.SLOW_MOVEMENT, speedConflicts);
+        conflict(SkillEffect.SLOW_MOVEMENT, SkillEffect.SLOW_MOVEMENT);
 
         // Body size conflicts
-        Set<SkillEffect> bodySizeConflicts = new HashSet<>();
-        bodySizeConflicts.add(SkillEffect.BODY_GROWTH);
-        bodySizeConflicts.add(SkillEffect.BODY_SPLIT);
-        SKILL_CONFLICTS.put(SkillEffect.BODY_GROWTH, bodySizeConflicts);
-        SKILL_CONFLICTS.put(SkillEffect.BODY_SPLIT, bodySizeConflicts);
+        conflict(SkillEffect.BODY_GROWTH, SkillEffect.BODY_GROWTH, SkillEffect.BODY_SPLIT);
+        conflict(SkillEffect.BODY_SPLIT, SkillEffect.BODY_GROWTH, SkillEffect.BODY_SPLIT);
 
         // Shield conflicts (basic shield is overridden by steel body)
-        Set<SkillEffect> shieldConflicts = new HashSet<>();
-        shieldConflicts.add(SkillEffect.BASIC_SHIELD);
-        SKILL_CONFLICTS.put(SkillEffect.STEEL_BODY, shieldConflicts);
+        conflict(SkillEffect.STEEL_BODY, SkillEffect.BASIC_SHIELD);
+    }
+
+    private static final ConflictResolution NO_CONFLICT = new ConflictResolution(false, null, null);
+
+    private static void conflict(SkillEffect skill, SkillEffect... replaced) {
+        for (SkillEffect effect : replaced) {
+            CONFLICTS[skill.ordinal()] |= EffectSet.bit(effect);
+        }
     }
 
     public SkillManager(GameState gameState) {
+        this(gameState, new GameRandom(GameRandom.newSeed()));
+    }
+
+    public SkillManager(GameState gameState, GameRandom random) {
         this.gameState = gameState;
-        this.random = new Random();
+        this.random = random;
         this.skillCounts = new HashMap<>();
         this.availableSkills = new ArrayList<>();
+        this.eligibleMask = ALL_SKILLS_MASK;
 
         initializeAvailableSkills();
+        gameState.setSkillActivationListener(this);
+    }
+
+    /**
+     * Set the game that receives skill effects on activation and deactivation
+     */
+    public void bindGameEffects(SnakeGameEffects gameEffects) {
+        this.gameEffects = gameEffects;
+        if (gameEffects != null) {
+            gameEffects.applyEffectSet(effects);
+        }
     }
     
     /**
@@ -71,181 +116,117 @@ public class SkillManager {
     }
     
     /**
-     * Generate a random skill card based on comprehensive rarity distribution and dynamic balance
+     * Generate a random skill card based on the rarity distribution of the current score
      */
     public SkillCard generateRandomSkill() {
-        // Filter out skills that have already been earned (most skills are unique)
-        List<SkillEffect> eligibleSkills = getEligibleSkills();
-
-        if (eligibleSkills.isEmpty()) {
+        // Most skills are unique, only those not earned yet are eligible
+        if (eligibleMask == 0L) {
             return null; // No more skills available
         }
 
-        // Apply dynamic balance system
-        updateDynamicBalance();
-
-        // Get rarity distribution for current score
-        double[] rarityWeights = getRarityDistributionForScore(gameState.getScore());
-
-        // Apply skill probability reduction from dynamic balance
-        for (int i = 0; i < rarityWeights.length; i++) {
-            rarityWeights[i] *= (1.0 - skillProbabilityReduction);
-        }
-
-        // Select rarity tier
-        int selectedRarity = selectRarityTier(rarityWeights);
-
-        // Get available skills for selected rarity from eligible skills
-        List<SkillEffect> candidateSkills = new ArrayList<>();
-        for (SkillEffect skill : eligibleSkills) {
-            if (skill.getRarity() == selectedRarity) {
-                candidateSkills.add(skill);
-            }
-        }
+        return createSkill(drawSkill(eligibleMask));
+    }
 
-        if (candidateSkills.isEmpty()) {
-            // Fallback to any eligible skill
-            candidateSkills = eligibleSkills;
+    /**
+     * Draw up to k different eligible skills for a "pick one of k" draft (sampling without
+     * replacement). Nothing is marked as earned, pass the chosen one to createSkill().
+     *
+     * @return number of skills written to out, less than k when fewer are eligible
+     */
+    public int draw(int k, SkillEffect[] out) {
+        long remaining = eligibleMask;
+        int drawn = 0;
+        while (drawn < k && remaining != 0L) {
+            SkillEffect skill = drawSkill(remaining);
+            out[drawn++] = skill;
+            remaining &= ~EffectSet.bit(skill);
         }
+        return drawn;
+    }
 
-        // Select random skill from candidates
-        SkillEffect selectedSkill = candidateSkills.get(random.nextInt(candidateSkills.size()));
-
-        // Update skill count
-        skillCounts.put(selectedSkill, skillCounts.get(selectedSkill) + 1);
+    /**
+     * Draw up to k different eligible skills, see {@link #draw(int, SkillEffect[])}
+     */
+    public SkillEffect[] draw(int k) {
+        SkillEffect[] drawn = new SkillEffect[k];
+        int count = draw(k, drawn);
+        return count == k ? drawn : Arrays.copyOf(drawn, count);
+    }
 
-        return new SkillCard(selectedSkill);
+    /**
+     * Create the card for a drawn skill and mark the skill as earned
+     */
+    public SkillCard createSkill(SkillEffect skill) {
+        skillCounts.merge(skill, 1, Integer::sum);
+        eligibleMask &= ~EffectSet.bit(skill);
+        return new SkillCard(skill, gameState.getClock(), nextCardId++);
     }
-    
+
     /**
-     * Get skills that are still eligible to be earned
+     * Draw one skill out of the given candidate mask: a rarity tier from the alias table
+     * of the current score band, then a uniform skill of that tier, O(1) and allocation-free
      */
-    private List<SkillEffect> getEligibleSkills() {
-        List<SkillEffect> eligible = new ArrayList<>();
-        
-        for (SkillEffect skill : availableSkills) {
-            // Most skills can only be earned once
-            if (skillCounts.get(skill) == 0) {
-                eligible.add(skill);
-            }
+    private SkillEffect drawSkill(long candidates) {
+        RandomGenerator draw = random.stream(GameRandom.Stream.SKILL_DRAW);
+
+        // The balance reduction used to scale every tier by the same factor, which leaves
+        // the relative tier probabilities (and so the draw) unchanged
+        int tier = RARITY_TABLES[scoreBand(gameState.getScore())].sample(draw) + 1; // Tiers are 1-based
+
+        long tierCandidates = candidates & RARITY_MASKS[tier];
+        if (tierCandidates == 0L) {
+            // Fallback to any eligible skill
+            tierCandidates = candidates;
         }
-        
-        return eligible;
+        return SKILLS[nthSetBit(tierCandidates, draw.nextInt(Long.bitCount(tierCandidates)))];
     }
-    
+
     /**
-     * Select a skill based on rarity weights
+     * Index of the n-th (0-based) set bit of the mask
      */
-    private SkillEffect selectSkillByRarity(List<SkillEffect> eligibleSkills) {
-        if (eligibleSkills.isEmpty()) {
-            return null;
-        }
-        
-        // Calculate total weight
-        double totalWeight = 0.0;
-        for (SkillEffect skill : eligibleSkills) {
-            totalWeight += SkillEffect.getRarityWeight(skill.getRarity());
+    private static int nthSetBit(long mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1; // Clear the lowest set bit
         }
-        
-        // Generate random value
-        double randomValue = random.nextDouble() * totalWeight;
-        
-        // Select skill based on weight
-        double currentWeight = 0.0;
-        for (SkillEffect skill : eligibleSkills) {
-            currentWeight += SkillEffect.getRarityWeight(skill.getRarity());
-            if (randomValue <= currentWeight) {
-                return skill;
-            }
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    @Override
+    public void onSkillActivated(SkillCard skill) {
+        refreshEffects();
+        if (gameEffects != null) {
+            handleInstantSkill(skill, gameEffects);
         }
-        
-        // Fallback to last skill if something goes wrong
-        return eligibleSkills.get(eligibleSkills.size() - 1);
     }
-    
+
+    @Override
+    public void onSkillDeactivated(SkillCard skill) {
+        refreshEffects();
+    }
+
     /**
-     * Apply comprehensive skill effects to game mechanics
+     * Rebuild the continuous effects from the active skills and push them to the game
      */
-    public void applySkillEffects(SnakeGameEffects gameEffects) {
-        List<SkillCard> activeSkills = gameState.getActiveSkills();
-
-        for (SkillCard skill : activeSkills) {
-            if (!skill.isActive()) continue;
-
-            switch (skill.getSkillEffect()) {
-                // Common Skills
-                case DOUBLE_SCORE:
-                    gameEffects.applyScoreMultiplier(2.0);
-                    break;
-
-                case SLOW_MOVEMENT:
-                    gameEffects.applySpeedMultiplier(0.5); // 50% slower
-                    break;
-
-                case BASIC_SHIELD:
-                    gameEffects.enableBasicShield();
-                    break;
-
-                // Rare Skills
-                case WALL_PASSER:
-                    gameEffects.enableWallPhasing();
-                    break;
-
-                case STEEL_BODY:
-                    gameEffects.enableSteelBody();
-                    break;
-
-                case FOOD_MAGNET:
-                    gameEffects.enableFoodMagnet(3); // 3 cell radius
-                    break;
-
-                // Epic Skills
-                case BODY_SPLIT:
-                    gameEffects.shrinkSnake();
-                    break;
-
-                case BODY_GROWTH:
-                    gameEffects.growSnake();
-                    break;
-
-                case TIME_REWIND:
-                    gameEffects.enableTimeRewind();
-                    break;
-
-                // Legendary Skills
-                case LUCKY_STAR:
-                    gameEffects.enableLuckyStarFood();
-                    break;
-
-                case GHOST_MODE:
-                    gameEffects.enableGhostMode();
-                    break;
-
-                case SCORE_FRENZY:
-                    gameEffects.enableScoreFrenzy();
-                    break;
-
-                case WORLD_SHRINK:
-                    gameEffects.enableWorldShrink();
-                    break;
-
-                case SECOND_CHANCE:
-                    gameEffects.enableSecondChance();
-                    break;
-
-                // System Skills
-                case SKILL_SLOT_EXPAND:
-                    gameEffects.expandSkillSlots();
-                    break;
-            }
+    private void refreshEffects() {
+        effects = EffectSet.of(gameState.getActiveSkills());
+        if (gameEffects != null) {
+            gameEffects.applyEffectSet(effects);
         }
     }
-    
+
     /**
-     * Handle instant skill effects
+     * Handle instant skill effects, fired once when the skill is activated
      */
     public void handleInstantSkill(SkillCard skill, SnakeGameEffects gameEffects) {
         switch (skill.getSkillEffect()) {
+            case BASIC_SHIELD:
+                gameEffects.enableBasicShield();
+                break;
+
+            case WALL_PASSER:
+                gameEffects.enableWallPhasing();
+                break;
+
             case BODY_SPLIT:
                 gameEffects.shrinkSnake();
                 break;
@@ -254,10 +235,20 @@ public class SkillManager {
                 gameEffects.growSnake();
                 break;
 
-            // Most skills are now handled through applySkillEffects
-            // Instant skills are those that take immediate effect
+            case SCORE_FRENZY:
+                gameEffects.enableScoreFrenzy();
+                break;
+
+            case SECOND_CHANCE:
+                gameEffects.enableSecondChance();
+                break;
+
+            case SKILL_SLOT_EXPAND:
+                gameEffects.expandSkillSlots();
+                break;
+
+            // Continuous skills are carried by the EffectSet
             default:
-                // No instant effect needed
                 break;
         }
     }
@@ -293,96 +284,25 @@ public class SkillManager {
      * Check if all skills of a rarity have been earned
      */
     public boolean isRarityCompleted(int rarity) {
-        List<SkillEffect> raritySkills = getSkillsByRarity(rarity);
-        
-        for (SkillEffect skill : raritySkills) {
-            if (skillCounts.get(skill) == 0) {
-                return false;
-            }
-        }
-        
-        return true;
+        return (eligibleMask & RARITY_MASKS[rarity]) == 0L;
     }
     
     /**
-     * Update dynamic balance system
-     */
-    private void updateDynamicBalance() {
-        int currentScore = gameState.getScore();
-        int activeSkillCount = gameState.getActiveSkills().size();
-
-        // Each activated skill reduces new skill probability by 10%
-        skillProbabilityReduction = Math.min(0.5, activeSkillCount * 0.1);
-
-        // Reset decay every 100 points
-        if (currentScore - lastDecayResetScore >= 100) {
-            skillProbabilityReduction = 0.0;
-            lastDecayResetScore = currentScore;
-        }
-
-        // Apply negative effects for multiple skills
-        if (activeSkillCount >= 3) {
-            // This would be handled in the main game class
-            // -10% snake speed for 3+ skills
-        }
-
-        // Apply legendary skill penalties
-        boolean hasLegendarySkill = gameState.getActiveSkills().stream()
-            .anyMatch(skill -> skill.getRarity() == 4);
-        if (hasLegendarySkill) {
-            // This would be handled in the main game class
-            // -20% food spawn rate
-        }
-    }
-
-    /**
-     * Get rarity distribution based on current score
-     */
-    private double[] getRarityDistributionForScore(int score) {
-        if (score <= 200) {
-            return RARITY_DISTRIBUTION.get("0-200");
-        } else if (score <= 500) {
-            return RARITY_DISTRIBUTION.get("201-500");
-        } else if (score <= 1000) {
-            return RARITY_DISTRIBUTION.get("501-1000");
-        } else {
-            return RARITY_DISTRIBUTION.get("1000+");
-        }
-    }
-
-    /**
-     * Select rarity tier based on weighted probabilities
+     * Index of the score band (row of RARITY_DISTRIBUTION) for the current score
      */
-    private int selectRarityTier(double[] weights) {
-        double totalWeight = 0.0;
-        for (double weight : weights) {
-            totalWeight += weight;
+    private static int scoreBand(int score) {
+        int band = 0;
+        while (score > SCORE_BAND_LIMITS[band]) {
+            band++;
         }
-
-        double randomValue = random.nextDouble() * totalWeight;
-        double cumulativeWeight = 0.0;
-
-        for (int i = 0; i < weights.length; i++) {
-            cumulativeWeight += weights[i];
-            if (randomValue <= cumulativeWeight) {
-                return i + 1; // Rarity tiers are 1-based
-            }
-        }
-
-        return 1; // Default to common
+        return band;
     }
 
     /**
      * Check if skill is duplicate and convert to score bonus if needed
      */
     public boolean isDuplicateSkill(SkillCard skill) {
-        List<SkillCard> earnedSkills = gameState.getEarnedSkills();
-        for (SkillCard earnedSkill : earnedSkills) {
-            if (earnedSkill.getSkillEffect() == skill.getSkillEffect()) {
-                return true;
-            }
-        }
-        return false;
+        return gameState.isSkillEarned(skill.getSkillEffect());
     }
 
     /**
@@ -405,19 +325,21 @@ public class SkillManager {
      * Check and resolve skill conflicts
      */
     public ConflictResolution checkSkillConflicts(SkillCard newSkill) {
-        Set<SkillEffect> conflicts = SKILL_CONFLICTS.get(newSkill.getSkillEffect());
-        if (conflicts == null) {
-            return new ConflictResolution(false, null, null);
+        long conflicts = CONFLICTS[newSkill.getSkillEffect().ordinal()] & gameState.getActiveEffectsMask();
+        if (conflicts == 0L) {
+            return NO_CONFLICT;
         }
 
+        // Report the earliest activated of the conflicting skills
         List<SkillCard> activeSkills = gameState.getActiveSkills();
-        for (SkillCard activeSkill : activeSkills) {
-            if (conflicts.contains(activeSkill.getSkillEffect())) {
+        for (int i = 0; i < activeSkills.size(); i++) {
+            SkillCard activeSkill = activeSkills.get(i);
+            if ((conflicts & EffectSet.bit(activeSkill.getSkillEffect())) != 0L) {
                 return new ConflictResolution(true, activeSkill, generateConflictMessage(newSkill, activeSkill));
             }
         }
 
-        return new ConflictResolution(false, null, null);
+        return NO_CONFLICT;
     }
 
     /**
@@ -456,32 +378,57 @@ public class SkillManager {
         for (SkillEffect skill : SkillEffect.values()) {
             skillCounts.put(skill, 0);
         }
-        skillProbabilityReduction = 0.0;
-        lastDecayResetScore = 0;
+        eligibleMask = ALL_SKILLS_MASK;
+        nextCardId = 1;
+        effects = EffectSet.NONE;
+        if (gameEffects != null) {
+            gameEffects.applyEffectSet(effects);
+        }
+    }
+    
+    /**
+     * Write the draw state, for replay keyframes
+     */
+    public void saveState(DataOutput out) throws IOException {
+        out.writeLong(eligibleMask);
+        out.writeInt(nextCardId);
+    }
+
+    /**
+     * Replace the draw state with one written by saveState() and push the effects of the
+     * active skills, after the game state was restored
+     */
+    public void restoreState(DataInput in) throws IOException {
+        eligibleMask = in.readLong();
+        nextCardId = in.readInt();
+
+        // Every skill is drawn at most once, so the counts follow from the mask
+        for (SkillEffect skill : SKILLS) {
+            skillCounts.put(skill, (eligibleMask & EffectSet.bit(skill)) == 0L ? 1 : 0);
+        }
+        refreshEffects();
     }
     
     /**
      * Interface for game effects that skills can modify - Updated for comprehensive skill system
      */
     public interface SnakeGameEffects {
+        // Continuous effects (multipliers, magnet, ghost, steel body, lucky star, ...),
+        // replaced whenever the active skills change
+        void applyEffectSet(EffectSet effects);
+
         // Movement effects
-        void applySpeedMultiplier(double multiplier);
         void enableWallPhasing();
         void teleportSnake();
 
         // Food effects
-        void enableFoodMagnet(int radius);
         void enableDoubleFood();
-        void enableLuckyStarFood();
 
         // Scoring effects
-        void applyScoreMultiplier(double multiplier);
         void enableScoreFrenzy();
 
         // Survival effects
         void enableBasicShield();
-        void enableSteelBody();
-        void enableGhostMode();
         void enableSecondChance();
         void enableInvincibility();
 
@@ -490,12 +437,8 @@ public class SkillManager {
         void growSnake();
 
         // Time effects
-        void enableTimeRewind();
         void enableTimeFreezeMode();
 
-        // World effects
-        void enableWorldShrink();
-
         // System effects
         void expandSkillSlots();
     }
@@ -520,6 +463,8 @@ public class SkillManager {
     }
     
     // Getters
+    public EffectSet getEffects() { return effects; }
+
     public Map<SkillEffect, Integer> getSkillCounts() { 
         return new HashMap<>(skillCounts); 
     }
@@ -0,0 +1,163 @@
+package com.example.javafx3.manager;
+
+/**
+ * Hashed timer wheel for skill expirations and other timed game events
+ * Timeouts are hashed by deadline into a ring of buckets, each bucket covering
+ * resolutionMillis of game time. Advancing the wheel only visits the buckets that
+ * became due since the last call, so pending timeouts cost nothing per tick.
+ * Deadlines further away than one rotation stay in their bucket and are skipped
+ * until their round comes.
+ */
+public class TimerWheel {
+
+    /**
+     * Handle of a scheduled task, used to cancel it
+     */
+    public static final class Timeout {
+        private final long deadline;
+        private final Runnable task;
+        private Timeout prev;
+        private Timeout next;
+        private int bucket = -1; // -1 once fired or cancelled
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public long getDeadline() { return deadline; }
+        public boolean isPending() { return bucket >= 0; }
+    }
+
+    private final Timeout[] buckets;
+    private final int mask;
+    private final long resolutionMillis;
+    private long currentSlot; // First slot (deadline / resolution) not fully processed
+    private int pending;
+
+    /**
+     * @param wheelSize        number of buckets, rounded up to a power of two
+     * @param resolutionMillis game time covered by one bucket
+     * @param startMillis      current game time
+     */
+    public TimerWheel(int wheelSize, long resolutionMillis, long startMillis) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) - 1) << 1;
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.resolutionMillis = resolutionMillis;
+        this.currentSlot = startMillis / resolutionMillis;
+    }
+
+    /**
+     * Run the task once the game time reaches the deadline
+     */
+    public Timeout schedule(long deadlineMillis, Runnable task) {
+        Timeout timeout = new Timeout(deadlineMillis, task);
+
+        // Deadlines already passed go into the next bucket to process
+        long slot = Math.max(deadlineMillis / resolutionMillis, currentSlot);
+        link(timeout, (int) (slot & mask));
+        pending++;
+        return timeout;
+    }
+
+    /**
+     * Cancel a pending timeout
+     *
+     * @return true if it was still pending
+     */
+    public boolean cancel(Timeout timeout) {
+        if (timeout == null || !timeout.isPending()) {
+            return false;
+        }
+        unlink(timeout);
+        pending--;
+        return true;
+    }
+
+    /**
+     * Advance to the given game time, running every task due by then
+     *
+     * @return number of tasks run
+     */
+    public int advance(long nowMillis) {
+        long targetSlot = nowMillis / resolutionMillis;
+        if (targetSlot < currentSlot) {
+            return 0;
+        }
+
+        int fired = 0;
+        // After a long gap one pass over the whole ring finds every due timeout
+        long slots = Math.min(targetSlot - currentSlot + 1, buckets.length);
+        for (long i = 0; i < slots && pending > 0; i++) {
+            fired += expireBucket((int) ((currentSlot + i) & mask), nowMillis);
+        }
+        // The target slot may hold deadlines later in the same bucket, visit it again next time
+        currentSlot = targetSlot;
+        return fired;
+    }
+
+    /**
+     * Drop all pending timeouts and restart at the given game time
+     */
+    public void clear(long startMillis) {
+        for (int i = 0; i < buckets.length; i++) {
+            Timeout timeout = buckets[i];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.bucket = -1;
+                timeout = next;
+            }
+            buckets[i] = null;
+        }
+        pending = 0;
+        currentSlot = startMillis / resolutionMillis;
+    }
+
+    private int expireBucket(int bucket, long nowMillis) {
+        int fired = 0;
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.deadline <= nowMillis) {
+                // Unlink first, the task may schedule or cancel other timeouts,
+                // so the walk starts over from the bucket head afterwards
+                unlink(timeout);
+                pending--;
+                timeout.task.run();
+                fired++;
+                next = buckets[bucket];
+            }
+            timeout = next;
+        }
+        return fired;
+    }
+
+    private void link(Timeout timeout, int bucket) {
+        timeout.bucket = bucket;
+        timeout.next = buckets[bucket];
+        if (buckets[bucket] != null) {
+            buckets[bucket].prev = timeout;
+        }
+        buckets[bucket] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+
+    public int getPendingCount() { return pending; }
+    public long getResolutionMillis() { return resolutionMillis; }
+}
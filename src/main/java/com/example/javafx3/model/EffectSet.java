@@ -0,0 +1,94 @@
+package com.example.javafx3.model;
+
+import java.util.List;
+
+/**
+ * Immutable aggregate of the continuous effects of all active skills
+ * One bit per {@link SkillEffect} ordinal plus the combined multipliers. It is rebuilt
+ * only when a skill is activated or deactivated, so the game tick reads one field
+ * instead of re-applying every active skill.
+ */
+public final class EffectSet {
+    public static final EffectSet NONE = new EffectSet(0L, 1.0, 1.0, 0);
+
+    private static final int FOOD_MAGNET_RADIUS = 3; // Cells
+
+    static {
+        // Skill masks across the game are a single long, up to 64 skills
+        if (SkillEffect.values().length > Long.SIZE) {
+            throw new IllegalStateException("Too many skill effects for a long mask: " + SkillEffect.values().length);
+        }
+    }
+
+    private final long mask;
+    private final double speedMultiplier;
+    private final double scoreMultiplier;
+    private final int foodMagnetRadius;
+
+    private EffectSet(long mask, double speedMultiplier, double scoreMultiplier, int foodMagnetRadius) {
+        this.mask = mask;
+        this.speedMultiplier = speedMultiplier;
+        this.scoreMultiplier = scoreMultiplier;
+        this.foodMagnetRadius = foodMagnetRadius;
+    }
+
+    /**
+     * Build the effect set of the given active skills, inactive cards are ignored
+     */
+    public static EffectSet of(List<SkillCard> activeSkills) {
+        long mask = 0L;
+        double speedMultiplier = 1.0;
+        double scoreMultiplier = 1.0;
+        int foodMagnetRadius = 0;
+
+        for (int i = 0; i < activeSkills.size(); i++) {
+            SkillCard skill = activeSkills.get(i);
+            if (!skill.isActive()) continue;
+
+            SkillEffect effect = skill.getSkillEffect();
+            mask |= bit(effect);
+            switch (effect) {
+                case DOUBLE_SCORE:
+                    scoreMultiplier *= 2.0;
+                    break;
+                case SLOW_MOVEMENT:
+                    speedMultiplier *= 0.5; // 50% slower
+                    break;
+                case FOOD_MAGNET:
+                    foodMagnetRadius = Math.max(foodMagnetRadius, FOOD_MAGNET_RADIUS);
+                    break;
+                default:
+                    // Other effects are flags only
+                    break;
+            }
+        }
+
+        if (mask == 0L) {
+            return NONE;
+        }
+        return new EffectSet(mask, speedMultiplier, scoreMultiplier, foodMagnetRadius);
+    }
+
+    /**
+     * Bit of a skill effect in the mask
+     */
+    public static long bit(SkillEffect effect) {
+        return 1L << effect.ordinal();
+    }
+
+    public boolean has(SkillEffect effect) {
+        return (mask & bit(effect)) != 0;
+    }
+
+    public boolean isEmpty() { return mask == 0L; }
+    public long getMask() { return mask; }
+    public double getSpeedMultiplier() { return speedMultiplier; }
+    public double getScoreMultiplier() { return scoreMultiplier; }
+    public int getFoodMagnetRadius() { return foodMagnetRadius; }
+
+    @Override
+    public String toString() {
+        return String.format("EffectSet{mask=%s, speed=%.2f, score=%.2f, magnet=%d}",
+                Long.toBinaryString(mask), speedMultiplier, scoreMultiplier, foodMagnetRadius);
+    }
+}
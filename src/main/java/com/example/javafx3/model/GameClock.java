@@ -0,0 +1,16 @@
+package com.example.javafx3.model;
+
+/**
+ * Source of game time in milliseconds for skill durations and state snapshots
+ * The simulation drives its clock from the tick counter, so game time stands still
+ * while the game is paused and headless runs stay deterministic.
+ * SYSTEM is the wall clock, used when no game drives the time (standalone tests).
+ */
+public interface GameClock {
+    GameClock SYSTEM = System::currentTimeMillis;
+
+    /**
+     * Current game time in milliseconds
+     */
+    long millis();
+}
@@ -0,0 +1,137 @@
+package com.example.javafx3.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Seeded random number service for one game
+ * Every subsystem draws from its own stream, split from the game seed, so the same
+ * seed replays a game bit for bit and an extra draw in one subsystem (an additional
+ * food item) does not shift the rolls of another (skill draws).
+ * Not thread-safe: each simulation owns its instance, parallel runs share nothing.
+ * Streams are SplitMix64 generators producing exactly the numbers of SplittableRandom,
+ * with their state exposed so replay keyframes can save and restore it.
+ */
+public class GameRandom {
+
+    /**
+     * Independent random streams, one per subsystem
+     */
+    public enum Stream {
+        FOOD,        // Food and bonus food placement
+        TELEPORT,    // Teleport targets
+        GHOST_MODE,  // Ghost mode pass-through rolls
+        LUCKY_STAR,  // Lucky star bonus rolls
+        SKILL_DRAW   // Skill rarity and skill selection
+    }
+
+    private final SplitMix[] streams = new SplitMix[Stream.values().length];
+    private long seed;
+
+    public GameRandom(long seed) {
+        reseed(seed);
+    }
+
+    /**
+     * Restart all streams from a new game seed
+     */
+    public void reseed(long seed) {
+        this.seed = seed;
+        SplitMix root = new SplitMix(seed, SplitMix.GOLDEN_GAMMA);
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = root.split();
+        }
+    }
+
+    /**
+     * Random stream of a subsystem. Look it up on every use, reseeding replaces it.
+     */
+    public RandomGenerator stream(Stream stream) {
+        return streams[stream.ordinal()];
+    }
+
+    /**
+     * Write the position of every stream, for replay keyframes
+     */
+    public void saveState(DataOutput out) throws IOException {
+        out.writeLong(seed);
+        for (SplitMix stream : streams) {
+            out.writeLong(stream.seed);
+            out.writeLong(stream.gamma);
+        }
+    }
+
+    /**
+     * Continue every stream from a position written by saveState()
+     */
+    public void restoreState(DataInput in) throws IOException {
+        seed = in.readLong();
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = new SplitMix(in.readLong(), in.readLong());
+        }
+    }
+
+    public long getSeed() { return seed; }
+
+    /**
+     * Fresh seed for a game nobody asked to reproduce
+     */
+    public static long newSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    /**
+     * SplitMix64 with the same seeding, splitting and output mixing as SplittableRandom
+     */
+    private static final class SplitMix implements RandomGenerator {
+        static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+        private long seed;
+        private final long gamma; // Odd
+
+        SplitMix(long seed, long gamma) {
+            this.seed = seed;
+            this.gamma = gamma;
+        }
+
+        SplitMix split() {
+            return new SplitMix(nextLong(), mixGamma(nextSeed()));
+        }
+
+        @Override
+        public long nextLong() {
+            return mix64(nextSeed());
+        }
+
+        @Override
+        public int nextInt() {
+            return mix32(nextSeed());
+        }
+
+        private long nextSeed() {
+            return seed += gamma;
+        }
+
+        private static long mix64(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+
+        private static int mix32(long z) {
+            z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+            return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+        }
+
+        private static long mixGamma(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            z = (z ^ (z >>> 33)) | 1L;
+            int flips = Long.bitCount(z ^ (z >>> 1));
+            return flips < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z; // Avoid gammas with too few bit flips
+        }
+    }
+}
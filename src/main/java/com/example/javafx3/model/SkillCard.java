@@ -1,36 +1,50 @@
 package com.example.javafx3.model;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Represents a skill card in the Snake game
  * Contains all properties and methods for skill management
  */
 public class SkillCard {
-    private final String id;
+    // Ids of cards created outside a skill manager, counting down so they never meet managed ids
+    private static final AtomicInteger NEXT_UNMANAGED_ID = new AtomicInteger(-1);
+
+    private final int id; // Unique within a game
     private final SkillEffect skillEffect;
+    private final GameClock clock;
     private int remainingActivations;
     private boolean isActive;
     private long activationTime;
     private long duration; // Duration in milliseconds, -1 for permanent
     
     /**
-     * Constructor for creating a new skill card
+     * Constructor for creating a new skill card timed by the wall clock
      */
     public SkillCard(SkillEffect skillEffect) {
-        this.id = generateId();
+        this(skillEffect, GameClock.SYSTEM);
+    }
+
+    /**
+     * Constructor for creating a new skill card timed by the given game clock
+     */
+    public SkillCard(SkillEffect skillEffect, GameClock clock) {
+        this(skillEffect, clock, NEXT_UNMANAGED_ID.getAndDecrement());
+    }
+
+    /**
+     * Constructor for creating a new skill card with an id handed out by the skill manager
+     */
+    public SkillCard(SkillEffect skillEffect, GameClock clock, int id) {
+        this.id = id;
         this.skillEffect = skillEffect;
+        this.clock = clock;
         this.remainingActivations = getMaxActivations();
         this.isActive = false;
         this.activationTime = 0;
         this.duration = getSkillDuration();
     }
     
-    /**
-     * Generate unique ID for the skill card
-     */
-    private String generateId() {
-        return "SKILL_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
-    }
-    
     /**
      * Get maximum activations for this skill type
      */
@@ -104,7 +118,7 @@ public class SkillCard {
         }
         
         isActive = true;
-        activationTime = System.currentTimeMillis();
+        activationTime = clock.millis();
         remainingActivations--;
         
         return true;
@@ -118,7 +132,7 @@ public class SkillCard {
             return false;
         }
         
-        return System.currentTimeMillis() - activationTime >= duration;
+        return clock.millis() - activationTime >= duration;
     }
     
     /**
@@ -129,6 +143,15 @@ public class SkillCard {
         activationTime = 0;
     }
     
+    /**
+     * Put the card back into a saved activation state (replay keyframes)
+     */
+    public void restoreState(int remainingActivations, boolean active, long activationTime) {
+        this.remainingActivations = remainingActivations;
+        this.isActive = active;
+        this.activationTime = activationTime;
+    }
+
     /**
      * Get remaining duration in seconds
      */
@@ -137,9 +160,16 @@ public class SkillCard {
             return -1;
         }
         
-        long remaining = duration - (System.currentTimeMillis() - activationTime);
+        long remaining = duration - getElapsedTime();
         return Math.max(0, (int)(remaining / 1000));
     }
+
+    /**
+     * Get game time in milliseconds since activation
+     */
+    public long getElapsedTime() {
+        return isActive ? clock.millis() - activationTime : 0;
+    }
     
     /**
      * Check if skill can be activated
@@ -149,7 +179,7 @@ public class SkillCard {
     }
     
     // Getters
-    public String getId() { return id; }
+    public int getId() { return id; }
     public SkillEffect getSkillEffect() { return skillEffect; }
     public String getName() { return skillEffect.getName(); }
     public String getDescription() { return skillEffect.getDescription(); }
@@ -183,20 +213,7 @@ public class SkillCard {
     
     @Override
     public String toString() {
-        return String.format("SkillCard{id='%s', effect=%s, active=%s, remaining=%d}", 
+        return String.format("SkillCard{id=%d, effect=%s, active=%s, remaining=%d}", 
                            id, skillEffect.getName(), isActive, remainingActivations);
     }
-    
-    @Override
-    public boolean equals(Object obj) {
-        if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
-        SkillCard skillCard = (SkillCard) obj;
-        return id.equals(skillCard.id);
-    }
-    
-    @Override
-    public int hashCode() {
-        return id.hashCode();
-    }
 }
@@ -0,0 +1,77 @@
+package com.example.javafx3.render;
+
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Takes {@link BoardSnapshot}s of a simulation, one after another
+ * Cell states are kept up to date by a {@link DirtyCells}, so a snapshot costs the cells
+ * that changed plus one copy of the states. The head and tail before the last tick are
+ * remembered so snapshots know where they slide from.
+ * Runs on the thread that owns the simulation. Knows nothing about JavaFX.
+ */
+public class BoardCapture {
+
+    private final DirtyCells cells = new DirtyCells();
+    private long sequence;
+
+    // Head and tail before the last tick, -1 after a reset
+    private int previousHead = -1;
+    private int previousTail = -1;
+
+    /**
+     * Remember the head and tail before a tick, call before every step
+     */
+    public void beforeTick(SnakeSimulation simulation) {
+        boolean empty = simulation.getSnakeLength() == 0;
+        previousHead = empty ? -1 : simulation.getBody().head();
+        previousTail = empty ? -1 : simulation.getBody().tail();
+    }
+
+    /**
+     * Forget the previous tick after a reset, rewind or seek, the snake is drawn where it is
+     */
+    public void reset() {
+        previousHead = -1;
+        previousTail = -1;
+        invalidate();
+    }
+
+    /**
+     * Have the next snapshot repaint every cell
+     */
+    public void invalidate() {
+        cells.invalidate();
+    }
+
+    /**
+     * Copy the current state of the simulation into a snapshot
+     */
+    public void capture(SnakeSimulation simulation, BoardSnapshot snapshot) {
+        boolean full = cells.update(simulation);
+        snapshot.setBoard(simulation.getGridWidth(), simulation.getGridHeight(), cells, ++sequence, full);
+        for (int state = 0; state < DirtyCells.BODY + DirtyCells.BODY_BANDS; state++) {
+            snapshot.setStateSprite(state, Sprites.of(simulation, (byte) state));
+        }
+
+        int length = simulation.getSnakeLength();
+        if (length == 0) {
+            snapshot.setSnake(0, -1, -1, -1, -1);
+            return;
+        }
+        // 蛇头从上一状态的格子滑向当前位置, 穿墙或传送时直接画在当前位置
+        int head = simulation.getBody().head();
+        int headFrom = previousHead >= 0 && adjacent(simulation, previousHead, head) ? previousHead : -1;
+        // 蛇尾从上一状态的格子滑向当前的尾部, 长大(尾部没动)或跳跃时不滑动
+        int tail = simulation.getBody().tail();
+        int tailFrom = length >= 2 && previousTail >= 0 && !simulation.getOccupancy().isOccupied(previousTail)
+                && adjacent(simulation, previousTail, tail) ? previousTail : -1;
+        snapshot.setSnake(length, head, headFrom, tail, tailFrom);
+    }
+
+    private static boolean adjacent(SnakeSimulation simulation, int fromCell, int toCell) {
+        return Math.abs(simulation.cellX(toCell) - simulation.cellX(fromCell))
+                + Math.abs(simulation.cellY(toCell) - simulation.cellY(fromCell)) == 1;
+    }
+
+    public DirtyCells getDirtyCells() { return cells; }
+}
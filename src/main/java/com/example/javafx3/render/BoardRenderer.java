@@ -0,0 +1,45 @@
+package com.example.javafx3.render;
+
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Draws the board of a {@link SnakeSimulation} once per frame, between two ticks
+ * Front ends call {@link #beforeTick(SnakeSimulation)} before every step so the snake can
+ * be drawn part of the way from its previous cells, and {@link #reset(SnakeSimulation)}
+ * whenever the board jumps. A simulation running on another thread is drawn from the
+ * {@link BoardSnapshot}s it publishes instead.
+ */
+public interface BoardRenderer {
+
+    /**
+     * Remember the head and tail before a tick, call before every step
+     */
+    void beforeTick(SnakeSimulation simulation);
+
+    /**
+     * Forget the previous tick after a reset, rewind or seek, the snake is drawn where it is
+     */
+    void reset(SnakeSimulation simulation);
+
+    /**
+     * Repaint the whole board on the next frame, e.g. after something else drew on the target
+     */
+    void invalidate();
+
+    /**
+     * Draw the board
+     *
+     * @param alpha fraction of the way from the previous tick to the current one
+     */
+    void draw(SnakeSimulation simulation, double alpha);
+
+    /**
+     * Draw a snapshot of the board, taken by a {@link BoardCapture} possibly on another thread
+     * A renderer should be given the snapshots of one capture only, or be reset in between.
+     *
+     * @param alpha fraction of the way from the previous tick to the snapshot's
+     */
+    void draw(BoardSnapshot snapshot, double alpha);
+
+    int getCellSize();
+}
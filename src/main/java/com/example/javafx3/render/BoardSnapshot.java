@@ -0,0 +1,141 @@
+package com.example.javafx3.render;
+
+/**
+ * Everything needed to draw one state of the board, copied out of the simulation
+ * The state of every cell, the sprite of each state, and the cells the head and tail
+ * slide between, so the board can be drawn at any point between two ticks without the
+ * simulation: on another thread, or while the simulation moves on.
+ * Snapshots are numbered; each lists the cells that changed since the one before it,
+ * so a renderer that drew the previous one repaints only those.
+ * Filled by {@link BoardCapture} and only read afterwards. Knows nothing about JavaFX.
+ */
+public class BoardSnapshot {
+
+    private int gridWidth;
+    private int gridHeight;
+    private byte[] states = new byte[0];
+    private final int[] stateSprites = new int[DirtyCells.BODY + DirtyCells.BODY_BANDS]; // -1 for nothing
+
+    // Numbering, and the cells changed since the previous snapshot
+    private long sequence;
+    private long fullSequence; // Last snapshot after which every cell must be repainted
+    private int[] changed = new int[0];
+    private int changedCount;
+
+    // Head and tail, and the cells they slide from, -1 if they do not slide
+    private int length;
+    private int head;
+    private int headFrom = -1;
+    private int tail;
+    private int tailFrom = -1;
+
+    /**
+     * Fill in the board, keeping arrays big enough
+     */
+    void setBoard(int gridWidth, int gridHeight, DirtyCells cells, long sequence, boolean full) {
+        int cellCount = gridWidth * gridHeight;
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        if (states.length != cellCount) {
+            states = new byte[cellCount];
+            changed = new int[cellCount];
+        }
+        cells.copyStates(states);
+        this.sequence = sequence;
+        if (full) {
+            fullSequence = sequence;
+            changedCount = 0;
+        } else {
+            changedCount = cells.getDirtyCount();
+            for (int i = 0; i < changedCount; i++) {
+                changed[i] = cells.getDirtyCell(i);
+            }
+        }
+    }
+
+    void setStateSprite(int state, int sprite) {
+        stateSprites[state] = sprite;
+    }
+
+    void setSnake(int length, int head, int headFrom, int tail, int tailFrom) {
+        this.length = length;
+        this.head = head;
+        this.headFrom = headFrom;
+        this.tail = tail;
+        this.tailFrom = tailFrom;
+    }
+
+    /**
+     * Make this a copy of another snapshot
+     */
+    public void copyFrom(BoardSnapshot other) {
+        if (states.length != other.states.length) {
+            states = new byte[other.states.length];
+            changed = new int[other.changed.length];
+        }
+        gridWidth = other.gridWidth;
+        gridHeight = other.gridHeight;
+        System.arraycopy(other.states, 0, states, 0, states.length);
+        System.arraycopy(other.stateSprites, 0, stateSprites, 0, stateSprites.length);
+        sequence = other.sequence;
+        fullSequence = other.fullSequence;
+        changedCount = other.changedCount;
+        System.arraycopy(other.changed, 0, changed, 0, changedCount);
+        length = other.length;
+        head = other.head;
+        headFrom = other.headFrom;
+        tail = other.tail;
+        tailFrom = other.tailFrom;
+    }
+
+    /**
+     * Cell the head is drawn from at the given fraction of the way from the previous
+     * tick to the current one, the head cell itself once it has arrived
+     */
+    public int headFrom(double alpha) {
+        return headFrom >= 0 && alpha < 1 ? headFrom : head;
+    }
+
+    /**
+     * Cell the tail is drawn from, -1 if it is only drawn as part of the body
+     */
+    public int tailFrom(double alpha) {
+        return tailFrom >= 0 && alpha < 1 ? tailFrom : -1;
+    }
+
+    /**
+     * Position of a sprite sliding between two cells, in cells, along one axis
+     */
+    public double interpolate(int fromCell, int toCell, boolean horizontal, double alpha) {
+        int fromX = fromCell % gridWidth;
+        int fromY = fromCell / gridWidth;
+        int toX = toCell % gridWidth;
+        int toY = toCell / gridWidth;
+        if (Math.abs(toX - fromX) + Math.abs(toY - fromY) != 1) {
+            return horizontal ? toX : toY;
+        }
+        return horizontal ? fromX + (toX - fromX) * alpha : fromY + (toY - fromY) * alpha;
+    }
+
+    /**
+     * Sprite of a cell, -1 for an empty cell
+     */
+    public int getSprite(int cell) { return stateSprites[states[cell]]; }
+
+    /**
+     * Sprite of a cell state, -1 for an empty cell
+     */
+    public int getStateSprite(byte state) { return stateSprites[state]; }
+
+    public int getGridWidth() { return gridWidth; }
+    public int getGridHeight() { return gridHeight; }
+    public int getCellCount() { return states.length; }
+    public byte getState(int cell) { return states[cell]; }
+    public long getSequence() { return sequence; }
+    public long getFullSequence() { return fullSequence; }
+    public int getChangedCount() { return changedCount; }
+    public int getChangedCell(int i) { return changed[i]; }
+    public int getSnakeLength() { return length; }
+    public int getHead() { return head; }
+    public int getTail() { return tail; }
+}
@@ -0,0 +1,180 @@
+package com.example.javafx3.render;
+
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Draws the board one cell sprite at a time, incrementally
+ * The target keeps what earlier frames drew, each frame repaints only the cells that
+ * changed since the snapshot drawn last, so a frame costs the cells that changed rather
+ * than the whole board. When snapshots were skipped the cells are compared with what
+ * is shown instead. After a reset, rewind, seek or resize the whole board is
+ * repainted. Sprites stay strictly inside their cell, so repainting one never touches its
+ * neighbours. Between two ticks the head and the tail slide from their previous cell,
+ * the rest of the snake is drawn where it is.
+ *
+ * Subclasses decide where the pixels go: {@link GameRenderer} draws into a canvas,
+ * {@link PixelBoardRenderer} writes a framebuffer.
+ */
+public abstract class CellRenderer implements BoardRenderer {
+
+    protected final int cellSize;
+    private final BoardCapture capture = new BoardCapture(); // For drawing a simulation directly
+    private final BoardSnapshot snapshot = new BoardSnapshot();
+
+    // Snapshot drawn last, -1 to repaint everything, and the state each cell shows
+    private long drawnSequence = -1;
+    private byte[] drawnStates = new byte[0];
+    // Cells the sliding head and tail were drawn over in the last frame, repainted first
+    private final int[] motionCells = new int[4];
+    private int motionCount;
+
+    protected CellRenderer(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    @Override
+    public void beforeTick(SnakeSimulation simulation) {
+        capture.beforeTick(simulation);
+    }
+
+    @Override
+    public void reset(SnakeSimulation simulation) {
+        capture.reset();
+        invalidate();
+    }
+
+    @Override
+    public void invalidate() {
+        drawnSequence = -1;
+    }
+
+    @Override
+    public void draw(SnakeSimulation simulation, double alpha) {
+        capture.capture(simulation, snapshot);
+        draw(snapshot, alpha);
+    }
+
+    @Override
+    public void draw(BoardSnapshot snapshot, double alpha) {
+        long sequence = snapshot.getSequence();
+        int cellCount = snapshot.getCellCount();
+        if (prepare() || drawnSequence < 0 || sequence < drawnSequence
+                || snapshot.getFullSequence() > drawnSequence || drawnStates.length != cellCount) {
+            // 全部重画
+            clearBoard();
+            if (drawnStates.length != cellCount) {
+                drawnStates = new byte[cellCount];
+            }
+            for (int cell = 0; cell < cellCount; cell++) {
+                byte state = snapshot.getState(cell);
+                drawnStates[cell] = state;
+                paintCell(snapshot, cell, state);
+            }
+        } else {
+            if (sequence == drawnSequence + 1) {
+                // 只重画变化的格子
+                for (int i = 0; i < snapshot.getChangedCount(); i++) {
+                    repaintCell(snapshot, snapshot.getChangedCell(i));
+                }
+            } else if (sequence != drawnSequence) {
+                // Snapshots were skipped, their changes are not listed
+                for (int cell = 0; cell < cellCount; cell++) {
+                    if (snapshot.getState(cell) != drawnStates[cell]) {
+                        repaintCell(snapshot, cell);
+                    }
+                }
+            }
+            // 以及上一帧头尾移动经过的格子
+            for (int i = 0; i < motionCount; i++) {
+                repaintCell(snapshot, motionCells[i]);
+            }
+        }
+        drawnSequence = sequence;
+        motionCount = 0;
+
+        drawTail(snapshot, alpha);
+        drawHead(snapshot, alpha);
+    }
+
+    /**
+     * Get the target ready for a frame, e.g. redraw a background whose size changed
+     *
+     * @return true if what earlier frames drew is lost and the whole board must be repainted
+     */
+    protected abstract boolean prepare();
+
+    /**
+     * Clear the whole board down to the background
+     */
+    protected abstract void clearBoard();
+
+    /**
+     * Clear one cell down to the background
+     */
+    protected abstract void clearCell(int x, int y);
+
+    /**
+     * Draw a sprite of {@link Sprites} with its top left corner at the given pixel
+     */
+    protected abstract void drawSprite(int sprite, double x, double y);
+
+    // 蛇尾从上一状态的格子滑向当前的尾部
+    private void drawTail(BoardSnapshot snapshot, double alpha) {
+        int from = snapshot.tailFrom(alpha);
+        if (from < 0) {
+            return;
+        }
+        int tail = snapshot.getTail();
+        addMotionCell(from);
+        addMotionCell(tail);
+        double x = snapshot.interpolate(from, tail, true, alpha);
+        double y = snapshot.interpolate(from, tail, false, alpha);
+        drawSprite(snapshot.getSprite(tail), x * cellSize, y * cellSize);
+    }
+
+    // 蛇头从上一状态的格子滑向当前位置, 穿墙或传送时直接画在当前位置
+    private void drawHead(BoardSnapshot snapshot, double alpha) {
+        if (snapshot.getSnakeLength() == 0) {
+            return;
+        }
+        int head = snapshot.getHead();
+        int from = snapshot.headFrom(alpha);
+        addMotionCell(head); // The eyes follow the direction, repaint the head every frame
+        if (from != head) {
+            // The head is not in its cell yet, show the cell without it
+            addMotionCell(from);
+            clearCell(head % snapshot.getGridWidth() * cellSize, head / snapshot.getGridWidth() * cellSize);
+            byte under = snapshot.getState(head);
+            if (under != DirtyCells.HEAD) {
+                paintCell(snapshot, head, under); // A segment the head passes over in ghost mode
+            }
+        }
+
+        // 蛇头在最上层, 眼睛朝向当前方向
+        double x = snapshot.interpolate(from, head, true, alpha) * cellSize;
+        double y = snapshot.interpolate(from, head, false, alpha) * cellSize;
+        drawSprite(snapshot.getStateSprite(DirtyCells.HEAD), x, y);
+    }
+
+    private void addMotionCell(int cell) {
+        motionCells[motionCount++] = cell;
+    }
+
+    private void repaintCell(BoardSnapshot snapshot, int cell) {
+        byte state = snapshot.getState(cell);
+        drawnStates[cell] = state;
+        clearCell(cell % snapshot.getGridWidth() * cellSize, cell / snapshot.getGridWidth() * cellSize);
+        paintCell(snapshot, cell, state);
+    }
+
+    private void paintCell(BoardSnapshot snapshot, int cell, byte state) {
+        if (state != DirtyCells.EMPTY) {
+            int gridWidth = snapshot.getGridWidth();
+            drawSprite(snapshot.getStateSprite(state), cell % gridWidth * cellSize, cell / gridWidth * cellSize);
+        }
+    }
+
+    @Override
+    public int getCellSize() { return cellSize; }
+    public DirtyCells getDirtyCells() { return capture.getDirtyCells(); }
+}
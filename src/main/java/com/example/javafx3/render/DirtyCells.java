@@ -0,0 +1,230 @@
+package com.example.javafx3.render;
+
+import com.example.javafx3.engine.OccupancyGrid;
+import com.example.javafx3.engine.RewindLog;
+import com.example.javafx3.engine.SnakeBody;
+import com.example.javafx3.engine.SnakeSimulation;
+
+import java.util.Arrays;
+
+/**
+ * Tracks what each board cell shows, so a renderer can repaint only the cells that changed
+ * The cells that changed since the last update are read from the simulation's rewind log.
+ * The body gradient is quantized into BODY_BANDS bands of the snake length, so a tick
+ * recolors only the segments near a band boundary instead of the whole snake. Where
+ * segments overlap, the cell shows the one furthest from the head, as when every
+ * segment is drawn in order. Reset, rewind, restored state and skills that recolor the
+ * whole snake (ghost mode, invincibility) ask for a full repaint instead.
+ * Knows nothing about JavaFX, the renderer maps states to colors.
+ */
+public class DirtyCells {
+
+    // Cell states, bands of the body gradient follow BODY, the band nearest the head first
+    public static final byte EMPTY = 0;
+    public static final byte FOOD = 1;
+    public static final byte BONUS_FOOD = 2;
+    public static final byte HEAD = 3;
+    public static final byte BODY = 4;
+    public static final int BODY_BANDS = 16;
+
+    private SnakeSimulation simulation;
+    private byte[] painted = new byte[0]; // State of each cell as last reported
+    private int[] candidateMark = new int[0]; // Update number a cell was last checked in
+    private int updateNumber;
+    private int[] dirty = new int[0];
+    private int dirtyCount;
+    private boolean valid;
+
+    // What the last update saw
+    private long seenGeneration;
+    private long seenEntry;
+    private int seenLength;
+    private boolean seenGhost;
+    private boolean seenInvincible;
+
+    /**
+     * Repaint everything on the next update, after a resize or when the canvas was cleared
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Bring the cell states up to date with the simulation
+     *
+     * @return true if every cell must be repainted, otherwise the changed cells are listed
+     *         by {@link #getDirtyCount()} and {@link #getDirtyCell(int)}
+     */
+    public boolean update(SnakeSimulation simulation) {
+        RewindLog log = simulation.getRewindLog();
+        int cells = simulation.getGridWidth() * simulation.getGridHeight();
+        long entries = log.getEntryCount();
+        long changes = entries - seenEntry;
+        boolean full = !valid || simulation != this.simulation || painted.length != cells
+                || log.getGeneration() != seenGeneration || seenEntry < log.getOldestEntry() || changes < 0
+                || changes > cells / 4 // Cheaper to repaint than to follow
+                || simulation.isGhostModeEnabled() != seenGhost
+                || simulation.isInvincibilityEnabled() != seenInvincible;
+
+        this.simulation = simulation;
+        dirtyCount = 0;
+        if (full) {
+            recomputeAll(cells);
+        } else {
+            collectChanges(log, (int) changes);
+        }
+
+        valid = true;
+        seenGeneration = log.getGeneration();
+        seenEntry = entries;
+        seenLength = simulation.getSnakeLength();
+        seenGhost = simulation.isGhostModeEnabled();
+        seenInvincible = simulation.isInvincibilityEnabled();
+        return full;
+    }
+
+    private void recomputeAll(int cells) {
+        if (painted.length != cells) {
+            painted = new byte[cells];
+            candidateMark = new int[cells];
+            dirty = new int[cells];
+        }
+        Arrays.fill(painted, EMPTY);
+        int food = simulation.getFoodCell();
+        if (food >= 0) {
+            painted[food] = FOOD;
+        }
+        for (int i = 0; i < simulation.getAdditionalFoodCount(); i++) {
+            painted[simulation.getAdditionalFoodCell(i)] = BONUS_FOOD;
+        }
+        SnakeBody body = simulation.getBody();
+        int length = body.length();
+        for (int index = 0; index < length; index++) { // Later segments cover earlier ones
+            painted[body.get(index)] = segmentState(index, length);
+        }
+    }
+
+    private void collectChanges(RewindLog log, int changes) {
+        if (++updateNumber == 0) { // Wrapped, forget all marks
+            Arrays.fill(candidateMark, 0);
+            updateNumber = 1;
+        }
+
+        // Cells the log says changed, then wherever food is now
+        for (long entry = log.getEntryCount() - changes; entry < log.getEntryCount(); entry++) {
+            check(log.getCell(entry));
+        }
+        if (simulation.getFoodCell() >= 0) {
+            check(simulation.getFoodCell());
+        }
+        for (int i = 0; i < simulation.getAdditionalFoodCount(); i++) {
+            check(simulation.getAdditionalFoodCell(i));
+        }
+
+        // Segments whose band may have changed: a segment moved at most one index per
+        // change, band boundaries moved at most one index per segment gained or lost, so
+        // only segments that close to a boundary (the ends included) can change band
+        SnakeBody body = simulation.getBody();
+        int length = body.length();
+        int window = changes + Math.abs(length - seenLength) + 1;
+        int next = 0; // Segments before it were checked
+        for (int band = 0; band <= BODY_BANDS && next < length; band++) {
+            int boundary = (int) (((long) band * length + BODY_BANDS - 1) / BODY_BANDS);
+            int from = Math.max(next, boundary - window);
+            int to = Math.min(length - 1, boundary + window);
+            for (int index = from; index <= to; index++) {
+                checkSegment(body, index, length);
+            }
+            next = Math.max(next, to + 1);
+        }
+    }
+
+    private void check(int cell) {
+        if (candidateMark[cell] != updateNumber) {
+            candidateMark[cell] = updateNumber;
+            report(cell, stateOf(cell));
+        }
+    }
+
+    private void checkSegment(SnakeBody body, int index, int length) {
+        int cell = body.get(index);
+        if (candidateMark[cell] != updateNumber) {
+            candidateMark[cell] = updateNumber;
+            boolean stacked = simulation.getOccupancy().isStacked(cell);
+            report(cell, segmentState(stacked ? findSegment(cell, true) : index, length));
+        }
+    }
+
+    private void report(int cell, byte state) {
+        if (state != painted[cell]) {
+            painted[cell] = state;
+            dirty[dirtyCount++] = cell;
+        }
+    }
+
+    private byte stateOf(int cell) {
+        OccupancyGrid occupancy = simulation.getOccupancy();
+        if (occupancy.isOccupied(cell)) {
+            return segmentState(findSegment(cell, occupancy.isStacked(cell)), simulation.getSnakeLength());
+        }
+        for (int i = 0; i < simulation.getAdditionalFoodCount(); i++) {
+            if (simulation.getAdditionalFoodCell(i) == cell) {
+                return BONUS_FOOD;
+            }
+        }
+        return cell == simulation.getFoodCell() ? FOOD : EMPTY;
+    }
+
+    // Index of the segment on the cell, the one furthest from the head if several are.
+    // Changed cells are near the ends of the body, searching from both ends finds them
+    // in a few steps; a full search is only needed where segments overlap.
+    private int findSegment(int cell, boolean stacked) {
+        SnakeBody body = simulation.getBody();
+        int last = body.length() - 1;
+        if (stacked) {
+            for (int index = last; index > 0; index--) {
+                if (body.get(index) == cell) {
+                    return index;
+                }
+            }
+            return 0;
+        }
+        for (int step = 0; step <= last / 2; step++) {
+            if (body.get(last - step) == cell) {
+                return last - step;
+            }
+            if (body.get(step) == cell) {
+                return step;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * State of the segment at the given index of a snake of the given length
+     */
+    public static byte segmentState(int index, int length) {
+        if (index == 0) {
+            return HEAD;
+        }
+        return (byte) (BODY + (int) ((long) index * BODY_BANDS / length));
+    }
+
+    /**
+     * Band of a body state, 0 nearest the head
+     */
+    public static int band(byte state) {
+        return state - BODY;
+    }
+
+    /**
+     * Copy the state of every cell, as of the last update, into the given array
+     */
+    public void copyStates(byte[] states) {
+        System.arraycopy(painted, 0, states, 0, painted.length);
+    }
+
+    public byte getState(int cell) { return painted[cell]; }
+    public int getDirtyCount() { return dirtyCount; }
+    public int getDirtyCell(int i) { return dirty[i]; }
+}
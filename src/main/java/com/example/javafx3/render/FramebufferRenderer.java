@@ -0,0 +1,99 @@
+package com.example.javafx3.render;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.util.Callback;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Shows the board as one image whose pixels are written directly
+ * The framebuffer is a direct buffer shared with the image through a PixelBuffer, each
+ * frame writes the changed cells into it and tells JavaFX only the region written, so
+ * a frame uploads a few cells instead of the board and issues no draw commands at all.
+ * The background and grid are part of the image, put the view where the board goes.
+ * Must be created and drawn on the JavaFX Application Thread.
+ */
+public class FramebufferRenderer extends PixelBoardRenderer {
+
+    private final PixelBuffer<IntBuffer> pixelBuffer;
+    private final ImageView view;
+
+    // The frame being drawn, read by the buffer update
+    private BoardSnapshot frameSnapshot;
+    private double frameAlpha;
+    private boolean updating; // Inside the buffer update, the only time pixels may be written
+    private final Callback<PixelBuffer<IntBuffer>, Rectangle2D> update = buffer -> {
+        updating = true;
+        try {
+            super.draw(frameSnapshot, frameAlpha);
+        } finally {
+            updating = false;
+        }
+        if (!hasDirtyRegion()) {
+            return Rectangle2D.EMPTY; // Nothing written, nothing to upload
+        }
+        Rectangle2D region = new Rectangle2D(getDirtyX(), getDirtyY(), getDirtyWidth(), getDirtyHeight());
+        clearDirtyRegion();
+        return region;
+    };
+
+    public FramebufferRenderer(int gridWidth, int gridHeight, int cellSize) {
+        this(gridWidth, gridHeight, cellSize, ByteBuffer.allocateDirect(gridWidth * gridHeight * cellSize * cellSize * 4)
+                .order(ByteOrder.nativeOrder()).asIntBuffer());
+    }
+
+    private FramebufferRenderer(int gridWidth, int gridHeight, int cellSize, IntBuffer pixels) {
+        super(gridWidth, gridHeight, cellSize, pixels,
+                background(gridWidth * cellSize, gridHeight * cellSize, cellSize), sprites(cellSize));
+        pixelBuffer = new PixelBuffer<>(getWidth(), getHeight(), pixels, PixelFormat.getIntArgbPreInstance());
+        view = new ImageView(new WritableImage(pixelBuffer));
+    }
+
+    /**
+     * Draw a snapshot through the buffer update; drawing a simulation captures it and
+     * comes here too
+     */
+    @Override
+    public void draw(BoardSnapshot snapshot, double alpha) {
+        frameSnapshot = snapshot;
+        frameAlpha = alpha;
+        pixelBuffer.updateBuffer(update); // The buffer may only be written from the update
+        frameSnapshot = null;
+    }
+
+    // Every frame starts here, a write path around updateBuffer fails at once
+    @Override
+    protected boolean prepare() {
+        if (!updating) {
+            throw new IllegalStateException("The framebuffer may only be written from the buffer update");
+        }
+        return super.prepare();
+    }
+
+    static int[] background(int width, int height, int cellSize) {
+        int[] pixels = new int[width * height];
+        GameRenderer.rasterizeBackground(width, height, cellSize).getPixelReader()
+                .getPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), pixels, 0, width);
+        return pixels;
+    }
+
+    static int[][] sprites(int cellSize) {
+        SpriteAtlas atlas = new SpriteAtlas(cellSize);
+        int[][] sprites = new int[Sprites.COUNT][];
+        for (int sprite = 0; sprite < Sprites.COUNT; sprite++) {
+            sprites[sprite] = atlas.getPixels(sprite);
+        }
+        return sprites;
+    }
+
+    /**
+     * The node showing the board
+     */
+    public ImageView getView() { return view; }
+}
@@ -0,0 +1,117 @@
+package com.example.javafx3.render;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the board of a {@link com.example.javafx3.engine.SnakeSimulation} into a canvas
+ * Texts and skill overlays are left to the front end. Works on any GraphicsContext,
+ * including one of a Canvas that is not shown, for offscreen rendering.
+ * Cells are copied from a {@link SpriteAtlas}, one drawImage each.
+ *
+ * The background and grid never change, they are drawn only when the board size changes:
+ * onto a canvas layer of their own under the game canvas, or without one into an image
+ * that cells are cleared from.
+ */
+public class GameRenderer extends CellRenderer {
+
+    private final GraphicsContext gc;
+    private final GraphicsContext backgroundGc; // Bottom layer, null to clear cells from the background image instead
+    private SpriteAtlas atlas; // Built on the first frame, on the JavaFX Application Thread
+
+    // Size the background was last drawn for
+    private WritableImage backgroundImage;
+    private double backgroundWidth = -1;
+    private double backgroundHeight = -1;
+
+    /**
+     * Draw everything into one canvas, the background is copied from a cached image
+     */
+    public GameRenderer(GraphicsContext gc, int cellSize) {
+        this(gc, null, cellSize);
+    }
+
+    /**
+     * Draw the background into its own canvas, under the transparent game canvas
+     */
+    public GameRenderer(GraphicsContext gc, GraphicsContext backgroundGc, int cellSize) {
+        super(cellSize);
+        this.gc = gc;
+        this.backgroundGc = backgroundGc;
+    }
+
+    @Override
+    protected boolean prepare() {
+        if (atlas == null) {
+            atlas = new SpriteAtlas(cellSize);
+        }
+
+        // 背景只在尺寸变化时重画
+        if (backgroundGc != null) {
+            Canvas layer = backgroundGc.getCanvas();
+            if (layer.getWidth() == backgroundWidth && layer.getHeight() == backgroundHeight) {
+                return false;
+            }
+            backgroundWidth = layer.getWidth();
+            backgroundHeight = layer.getHeight();
+            drawBackground(backgroundGc, backgroundWidth, backgroundHeight, cellSize);
+        } else {
+            Canvas canvas = gc.getCanvas();
+            if (canvas.getWidth() == backgroundWidth && canvas.getHeight() == backgroundHeight) {
+                return false;
+            }
+            backgroundWidth = canvas.getWidth();
+            backgroundHeight = canvas.getHeight();
+            backgroundImage = rasterizeBackground(backgroundWidth, backgroundHeight, cellSize);
+        }
+        return true;
+    }
+
+    @Override
+    protected void clearBoard() {
+        if (backgroundGc != null) {
+            gc.clearRect(0, 0, gc.getCanvas().getWidth(), gc.getCanvas().getHeight());
+        } else {
+            gc.drawImage(backgroundImage, 0, 0);
+        }
+    }
+
+    @Override
+    protected void clearCell(int x, int y) {
+        if (backgroundGc != null) {
+            gc.clearRect(x, y, cellSize, cellSize);
+        } else {
+            gc.drawImage(backgroundImage, x, y, cellSize, cellSize, x, y, cellSize, cellSize);
+        }
+    }
+
+    @Override
+    protected void drawSprite(int sprite, double x, double y) {
+        atlas.draw(gc, sprite, x, y);
+    }
+
+    // 绘制网格背景和网格线
+    static void drawBackground(GraphicsContext target, double width, double height, int cellSize) {
+        target.clearRect(0, 0, width, height);
+        target.setFill(Color.rgb(30, 30, 30));
+        target.fillRect(0, 0, width, height);
+
+        target.setStroke(Color.rgb(50, 50, 50));
+        target.setLineWidth(0.5);
+        for (int x = 0; x <= width; x += cellSize) {
+            target.strokeLine(x, 0, x, height);
+        }
+        for (int y = 0; y <= height; y += cellSize) {
+            target.strokeLine(0, y, width, y);
+        }
+    }
+
+    static WritableImage rasterizeBackground(double width, double height, int cellSize) {
+        Canvas canvas = new Canvas(width, height);
+        drawBackground(canvas.getGraphicsContext2D(), width, height, cellSize);
+        return canvas.snapshot(new SnapshotParameters(), new WritableImage((int) Math.ceil(width), (int) Math.ceil(height)));
+    }
+}
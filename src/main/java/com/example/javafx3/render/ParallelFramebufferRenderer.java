@@ -0,0 +1,48 @@
+package com.example.javafx3.render;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.util.Callback;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * Shows the board as one image rasterized in tiles on worker threads
+ * Frames are rasterized off the JavaFX Application Thread by a {@link TileBoardRenderer},
+ * a finished frame is copied into the image's buffer in one update, so drawing costs
+ * the FX thread a snapshot of the cell states and a bulk copy, whatever the board holds.
+ * The background and grid are part of the image, put the view where the board goes.
+ * Must be created and drawn on the JavaFX Application Thread, close it when done.
+ */
+public class ParallelFramebufferRenderer extends TileBoardRenderer {
+
+    private final PixelBuffer<IntBuffer> pixelBuffer;
+    private final ImageView view;
+    private final Callback<PixelBuffer<IntBuffer>, Rectangle2D> upload = buffer -> {
+        buffer.getBuffer().put(0, getFrame());
+        return null; // The whole image changed
+    };
+
+    public ParallelFramebufferRenderer(int gridWidth, int gridHeight, int cellSize, int workers) {
+        super(gridWidth, gridHeight, cellSize, FramebufferRenderer.background(gridWidth * cellSize, gridHeight * cellSize, cellSize),
+                FramebufferRenderer.sprites(cellSize), workers);
+        IntBuffer pixels = ByteBuffer.allocateDirect(getWidth() * getHeight() * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        pixelBuffer = new PixelBuffer<>(getWidth(), getHeight(), pixels, PixelFormat.getIntArgbPreInstance());
+        view = new ImageView(new WritableImage(pixelBuffer));
+    }
+
+    @Override
+    protected void publish() {
+        pixelBuffer.updateBuffer(upload); // The buffer may only be written from the update
+    }
+
+    /**
+     * The node showing the board
+     */
+    public ImageView getView() { return view; }
+}
@@ -0,0 +1,126 @@
+package com.example.javafx3.render;
+
+import java.nio.IntBuffer;
+
+/**
+ * Draws the board by writing pixels straight into a framebuffer
+ * Pixels are premultiplied ARGB, one int each, row by row. Clearing a cell copies its
+ * rows from the background, drawing a sprite copies its opaque pixels and blends the
+ * translucent ones, so a cell costs a few hundred int writes and no draw commands.
+ * The area written since {@link #clearDirtyRegion()} is tracked, for uploading only that.
+ * Knows nothing about JavaFX, {@link FramebufferRenderer} shows the buffer on screen.
+ */
+public class PixelBoardRenderer extends CellRenderer {
+
+    private final int width;  // Pixels
+    private final int height;
+    private final IntBuffer pixels;
+    private final int[] background;
+    private final int[][] sprites;
+
+    // Written area, empty when minX > maxX
+    private int minX;
+    private int minY;
+    private int maxX;
+    private int maxY;
+
+    /**
+     * @param pixels     framebuffer of the board, gridWidth * cellSize pixels wide
+     * @param background pixels of the empty board, the same size
+     * @param sprites    pixels of each sprite of {@link Sprites}, cellSize * cellSize each
+     */
+    public PixelBoardRenderer(int gridWidth, int gridHeight, int cellSize, IntBuffer pixels, int[] background, int[][] sprites) {
+        super(cellSize);
+        this.width = gridWidth * cellSize;
+        this.height = gridHeight * cellSize;
+        if (pixels.capacity() < width * height || background.length < width * height || sprites.length < Sprites.COUNT) {
+            throw new IllegalArgumentException("Framebuffer, background or sprites too small for a "
+                    + gridWidth + "x" + gridHeight + " board of " + cellSize + " pixel cells");
+        }
+        this.pixels = pixels;
+        this.background = background;
+        this.sprites = sprites;
+        clearDirtyRegion();
+    }
+
+    @Override
+    protected boolean prepare() {
+        return false; // The buffer keeps its size
+    }
+
+    @Override
+    protected void clearBoard() {
+        pixels.put(0, background, 0, width * height);
+        markDirty(0, 0, width, height);
+    }
+
+    @Override
+    protected void clearCell(int x, int y) {
+        for (int row = y, end = y + cellSize; row < end; row++) {
+            pixels.put(row * width + x, background, row * width + x, cellSize);
+        }
+        markDirty(x, y, cellSize, cellSize);
+    }
+
+    @Override
+    protected void drawSprite(int sprite, double x, double y) {
+        int[] source = sprites[sprite];
+        int left = (int) Math.round(x);
+        int top = (int) Math.round(y);
+        int fromX = Math.max(0, -left);
+        int toX = Math.min(cellSize, width - left);
+        int fromY = Math.max(0, -top);
+        int toY = Math.min(cellSize, height - top);
+        for (int row = fromY; row < toY; row++) {
+            int target = (top + row) * width + left;
+            for (int column = fromX; column < toX; column++) {
+                int pixel = source[row * cellSize + column];
+                int alpha = pixel >>> 24;
+                if (alpha == 255) {
+                    pixels.put(target + column, pixel);
+                } else if (alpha != 0) {
+                    pixels.put(target + column, blend(pixel, pixels.get(target + column), alpha));
+                }
+            }
+        }
+        if (fromX < toX && fromY < toY) {
+            markDirty(left + fromX, top + fromY, toX - fromX, toY - fromY);
+        }
+    }
+
+    // Source over destination, both premultiplied
+    static int blend(int source, int destination, int alpha) {
+        int keep = 255 - alpha;
+        int a = (destination >>> 24) * keep / 255;
+        int r = ((destination >>> 16) & 0xFF) * keep / 255;
+        int g = ((destination >>> 8) & 0xFF) * keep / 255;
+        int b = (destination & 0xFF) * keep / 255;
+        return source + (a << 24 | r << 16 | g << 8 | b);
+    }
+
+    private void markDirty(int x, int y, int w, int h) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x + w);
+        maxY = Math.max(maxY, y + h);
+    }
+
+    /**
+     * Start tracking the written area anew, after it was uploaded
+     */
+    public void clearDirtyRegion() {
+        minX = Integer.MAX_VALUE;
+        minY = Integer.MAX_VALUE;
+        maxX = Integer.MIN_VALUE;
+        maxY = Integer.MIN_VALUE;
+    }
+
+    public boolean hasDirtyRegion() { return minX < maxX; }
+    public int getDirtyX() { return minX; }
+    public int getDirtyY() { return minY; }
+    public int getDirtyWidth() { return maxX - minX; }
+    public int getDirtyHeight() { return maxY - minY; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public IntBuffer getPixels() { return pixels; }
+}
@@ -0,0 +1,115 @@
+package com.example.javafx3.render;
+
+import com.example.javafx3.engine.Direction;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+/**
+ * Pre-rendered cell sprites, side by side in one image in the order of {@link Sprites}
+ * Food, bonus food, the ghost mode segment, the bands of the body gradient and the head
+ * facing each direction in each color are drawn once for a cell size, then every cell
+ * of a frame is a single drawImage from this image: no fill, stroke or color changes
+ * per cell, and nothing allocated per frame.
+ * Must be created on the JavaFX Application Thread, it snapshots a canvas.
+ */
+public class SpriteAtlas {
+
+    // Normal, golden for invincibility, light blue for ghost mode
+    private static final Color[] HEAD_COLORS = {Color.GREEN, Color.GOLD, Color.LIGHTBLUE};
+    private static final int SPRITES = Sprites.COUNT;
+
+    private final int cellSize;
+    private final WritableImage image;
+
+    public SpriteAtlas(int cellSize) {
+        this.cellSize = cellSize;
+        Canvas canvas = new Canvas(SPRITES * cellSize, cellSize);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+
+        // 食物
+        drawFood(gc, Sprites.FOOD, Color.RED, Color.WHITE);
+        // Additional food (for double food skill)
+        drawFood(gc, Sprites.BONUS_FOOD, Color.ORANGE, Color.YELLOW);
+        drawSegment(gc, Sprites.GHOST_BODY, Color.rgb(173, 216, 230, 0.7)); // Semi-transparent for ghost mode
+        // 蛇身渐变效果, 每段取其区间中点的颜色
+        for (int band = 0; band < DirtyCells.BODY_BANDS; band++) {
+            double factor = 0.7 + 0.3 * (band + 0.5) / DirtyCells.BODY_BANDS;
+            drawSegment(gc, Sprites.body(band), Color.rgb(0, (int) (255 * factor), 0));
+        }
+        // 蛇头和眼睛
+        for (int color = 0; color < HEAD_COLORS.length; color++) {
+            for (Direction direction : Direction.values()) {
+                int sprite = Sprites.head(color, direction);
+                drawSegment(gc, sprite, HEAD_COLORS[color]);
+                drawEyes(gc, sprite, direction);
+            }
+        }
+
+        SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT); // Ghost segments let the grid show through
+        image = canvas.snapshot(parameters, new WritableImage(SPRITES * cellSize, cellSize));
+    }
+
+    /**
+     * Draw a sprite with its top left corner at the given pixel
+     */
+    public void draw(GraphicsContext gc, int sprite, double x, double y) {
+        gc.drawImage(image, sprite * cellSize, 0, cellSize, cellSize, x, y, cellSize, cellSize);
+    }
+
+    // Everything stays strictly inside the sprite's cell, so sprites never bleed into neighbours
+    private void drawFood(GraphicsContext gc, int sprite, Color fill, Color outline) {
+        double x = sprite * cellSize;
+        gc.setFill(fill);
+        gc.fillOval(x + 0.5, 0.5, cellSize - 1, cellSize - 1);
+        gc.setStroke(outline);
+        gc.setLineWidth(1);
+        gc.strokeOval(x + 0.5, 0.5, cellSize - 1, cellSize - 1);
+    }
+
+    private void drawSegment(GraphicsContext gc, int sprite, Color fill) {
+        double x = sprite * cellSize;
+        gc.setFill(fill);
+        gc.fillRect(x, 0, cellSize, cellSize);
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1);
+        gc.strokeRect(x + 0.5, 0.5, cellSize - 1, cellSize - 1);
+    }
+
+    // 根据方向绘制眼睛位置, 眼睛在前进方向一侧
+    private void drawEyes(GraphicsContext gc, int sprite, Direction direction) {
+        double x = sprite * cellSize;
+        int eyeSize = cellSize / 5;
+        int offset = cellSize / 3;
+        int near = offset;
+        int far = cellSize - offset - eyeSize;
+        gc.setFill(Color.BLACK);
+        if (direction == Direction.RIGHT || direction == Direction.LEFT) {
+            int front = direction == Direction.RIGHT ? far : near;
+            gc.fillOval(x + front, near, eyeSize, eyeSize);
+            gc.fillOval(x + front, far, eyeSize, eyeSize);
+        } else {
+            int front = direction == Direction.DOWN ? far : near;
+            gc.fillOval(x + near, front, eyeSize, eyeSize);
+            gc.fillOval(x + far, front, eyeSize, eyeSize);
+        }
+    }
+
+    /**
+     * Copy a sprite's pixels as premultiplied ARGB, for renderers writing pixels directly
+     */
+    public int[] getPixels(int sprite) {
+        int[] pixels = new int[cellSize * cellSize];
+        image.getPixelReader().getPixels(sprite * cellSize, 0, cellSize, cellSize,
+                PixelFormat.getIntArgbPreInstance(), pixels, 0, cellSize);
+        return pixels;
+    }
+
+    public int getCellSize() { return cellSize; }
+    public Image getImage() { return image; }
+}
@@ -0,0 +1,66 @@
+package com.example.javafx3.render;
+
+import com.example.javafx3.engine.Direction;
+import com.example.javafx3.engine.SnakeSimulation;
+
+/**
+ * Numbering of the cell sprites shared by the renderers
+ * Food, bonus food, the ghost mode segment, the bands of the body gradient, then the
+ * head in each color facing each direction. {@link SpriteAtlas} draws them, renderers
+ * pick one per cell with {@link #of(SnakeSimulation, byte)}.
+ */
+public final class Sprites {
+
+    public static final int FOOD = 0;
+    public static final int BONUS_FOOD = 1;
+    public static final int GHOST_BODY = 2;
+    public static final int BODY = 3;
+    public static final int HEAD = BODY + DirtyCells.BODY_BANDS;
+
+    // Head colors
+    public static final int NORMAL = 0;
+    public static final int INVINCIBLE = 1; // Golden head for invincibility
+    public static final int GHOST = 2;      // Light blue for ghost mode
+    public static final int HEAD_COLORS = 3;
+
+    private static final int DIRECTIONS = Direction.values().length;
+    public static final int COUNT = HEAD + HEAD_COLORS * DIRECTIONS;
+
+    private Sprites() {
+    }
+
+    /**
+     * Sprite of the head in the given color, facing the given direction
+     */
+    public static int head(int color, Direction direction) {
+        return HEAD + color * DIRECTIONS + direction.ordinal();
+    }
+
+    /**
+     * Sprite of a band of the body gradient, 0 nearest the head
+     */
+    public static int body(int band) {
+        return BODY + band;
+    }
+
+    /**
+     * Sprite of a cell in the given state, with the simulation's skills and direction,
+     * -1 for an empty cell
+     */
+    public static int of(SnakeSimulation simulation, byte state) {
+        switch (state) {
+            case DirtyCells.EMPTY:
+                return -1;
+            case DirtyCells.FOOD:
+                return FOOD;
+            case DirtyCells.BONUS_FOOD:
+                return BONUS_FOOD;
+            case DirtyCells.HEAD:
+                int color = simulation.isInvincibilityEnabled() ? INVINCIBLE
+                        : simulation.isGhostModeEnabled() ? GHOST : NORMAL;
+                return head(color, simulation.getCurrentDirection());
+            default:
+                return simulation.isGhostModeEnabled() ? GHOST_BODY : body(DirtyCells.band(state));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.javafx3.render;
+
+import com.example.javafx3.engine.SnakeSimulation;
+
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Draws the board by rasterizing whole frames in tiles on worker threads
+ * A frame copies a {@link BoardSnapshot} on the calling thread, which only copies the
+ * cell states, and hands it to a {@link TileRasterizer}; the calling thread returns at
+ * once. The next frame publishes the finished frame and starts the next one, so the
+ * board is shown one frame late and the calling thread never waits for the pixels.
+ * Frames still being rasterized when the next one is due are not waited for, the board
+ * keeps showing the last finished frame.
+ * Knows nothing about JavaFX, {@link ParallelFramebufferRenderer} shows the frames on screen.
+ */
+public class TileBoardRenderer implements BoardRenderer, AutoCloseable {
+
+    private final int cellSize;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final BoardCapture capture = new BoardCapture(); // For drawing a simulation directly
+    private final BoardSnapshot snapshot = new BoardSnapshot(); // Read by the workers
+    private final TileRasterizer rasterizer;
+    private final int[] frame;
+    private ForkJoinTask<Void> job; // Frame being rasterized, null if none
+
+    /**
+     * @param background pixels of the empty board, gridWidth * cellSize pixels wide
+     * @param sprites    pixels of each sprite of {@link Sprites}, cellSize * cellSize each
+     * @param workers    number of threads rasterizing the tiles
+     */
+    public TileBoardRenderer(int gridWidth, int gridHeight, int cellSize, int[] background, int[][] sprites, int workers) {
+        this.cellSize = cellSize;
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.rasterizer = new TileRasterizer(workers, cellSize, background, sprites);
+        this.frame = new int[gridWidth * gridHeight * cellSize * cellSize];
+    }
+
+    @Override
+    public void beforeTick(SnakeSimulation simulation) {
+        capture.beforeTick(simulation);
+    }
+
+    @Override
+    public void reset(SnakeSimulation simulation) {
+        capture.reset();
+    }
+
+    @Override
+    public void invalidate() {
+        // Every frame is rasterized whole
+    }
+
+    @Override
+    public void draw(SnakeSimulation simulation, double alpha) {
+        if (startable()) {
+            capture.capture(simulation, snapshot);
+            start(alpha);
+        }
+    }
+
+    @Override
+    public void draw(BoardSnapshot snapshot, double alpha) {
+        if (startable()) {
+            this.snapshot.copyFrom(snapshot); // The caller's snapshot may be reused before the workers are done
+            start(alpha);
+        }
+    }
+
+    // Publish the last frame if it is done, false if the workers are still busy with it
+    private boolean startable() {
+        if (job != null) {
+            if (!job.isDone()) {
+                return false; // Skip this frame
+            }
+            finish();
+        }
+        return true;
+    }
+
+    private void start(double alpha) {
+        if (snapshot.getGridWidth() != gridWidth || snapshot.getGridHeight() != gridHeight) {
+            throw new IllegalArgumentException("Renderer is for a " + gridWidth + "x" + gridHeight + " board, got "
+                    + snapshot.getGridWidth() + "x" + snapshot.getGridHeight());
+        }
+        job = rasterizer.start(snapshot, alpha, frame);
+    }
+
+    /**
+     * Draw the board and publish it at once, for a board that will not be drawn again soon
+     */
+    public void drawAndWait(SnakeSimulation simulation, double alpha) {
+        finish();
+        draw(simulation, alpha);
+        finish();
+    }
+
+    /**
+     * The same for a snapshot
+     */
+    public void drawAndWait(BoardSnapshot snapshot, double alpha) {
+        finish();
+        draw(snapshot, alpha);
+        finish();
+    }
+
+    /**
+     * Wait for the frame being rasterized, if any, and publish it
+     */
+    public void finish() {
+        if (job != null) {
+            job.join(); // Rethrows what a worker threw
+            job = null;
+            publish();
+        }
+    }
+
+    /**
+     * Show the frame just finished, called on the drawing thread
+     * {@link #getFrame()} is overwritten by the next frame, copy what must be kept.
+     */
+    protected void publish() {
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    @Override
+    public void close() {
+        rasterizer.close();
+    }
+
+    @Override
+    public int getCellSize() { return cellSize; }
+    public int getWidth() { return gridWidth * cellSize; }
+    public int getHeight() { return gridHeight * cellSize; }
+    public int getWorkers() { return rasterizer.getWorkers(); }
+    public int[] getFrame() { return frame; }
+}
@@ -0,0 +1,202 @@
+package com.example.javafx3.render;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rasterizes whole frames of the board on a pool of worker threads
+ * The board is split into tiles of TILE_CELLS x TILE_CELLS cells. A tile is independent
+ * of the others: its rows of the background are copied, then the sprites of its cells,
+ * then the parts of the sliding tail and head that fall on it, in the order
+ * {@link CellRenderer} draws them. Workers only read the
+ * {@link BoardSnapshot} and write their own tiles of the frame, so no locking is needed
+ * and the work spreads over as many cores as the pool has.
+ * Pixels are premultiplied ARGB, one int each, row by row, as {@link PixelBoardRenderer}
+ * writes them, and the frames are pixel for pixel the same as its full repaints.
+ * Knows nothing about JavaFX.
+ */
+public class TileRasterizer implements AutoCloseable {
+
+    public static final int TILE_CELLS = 32;
+
+    private final ForkJoinPool pool;
+    private final int cellSize;
+    private final int[] background;
+    private final int[][] sprites;
+
+    /**
+     * @param workers    number of worker threads
+     * @param background pixels of the empty board
+     * @param sprites    pixels of each sprite of {@link Sprites}, cellSize * cellSize each
+     */
+    public TileRasterizer(int workers, int cellSize, int[] background, int[][] sprites) {
+        if (sprites.length < Sprites.COUNT) {
+            throw new IllegalArgumentException("Expected " + Sprites.COUNT + " sprites, got " + sprites.length);
+        }
+        this.pool = new ForkJoinPool(workers);
+        this.cellSize = cellSize;
+        this.background = background;
+        this.sprites = sprites;
+    }
+
+    /**
+     * Rasterize a frame and wait for it
+     *
+     * @param alpha fraction of the way from the previous tick to the snapshot's
+     */
+    public void rasterize(BoardSnapshot snapshot, double alpha, int[] frame) {
+        pool.invoke(task(snapshot, alpha, frame));
+    }
+
+    /**
+     * Start rasterizing a frame on the workers and return at once
+     * The snapshot and the frame must be left alone until the returned task is done.
+     */
+    public ForkJoinTask<Void> start(BoardSnapshot snapshot, double alpha, int[] frame) {
+        return pool.submit(task(snapshot, alpha, frame));
+    }
+
+    private TileRangeTask task(BoardSnapshot snapshot, double alpha, int[] frame) {
+        int pixels = snapshot.getCellCount() * cellSize * cellSize;
+        if (frame.length < pixels || background.length < pixels || sprites[0].length < cellSize * cellSize) {
+            throw new IllegalArgumentException("Frame, background or sprites too small for a "
+                    + snapshot.getGridWidth() + "x" + snapshot.getGridHeight() + " board of "
+                    + cellSize + " pixel cells");
+        }
+        return new TileRangeTask(snapshot, alpha, frame, 0, tilesX(snapshot) * tilesY(snapshot));
+    }
+
+    /**
+     * Splits the tile range until one tile is left for each task
+     */
+    private class TileRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient BoardSnapshot snapshot; // Tasks are never serialized
+        private final double alpha;
+        private final int[] frame;
+        private final int from;
+        private final int to;
+
+        TileRangeTask(BoardSnapshot snapshot, double alpha, int[] frame, int from, int to) {
+            this.snapshot = snapshot;
+            this.alpha = alpha;
+            this.frame = frame;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    rasterizeTile(snapshot, alpha, frame, from);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileRangeTask(snapshot, alpha, frame, from, mid), new TileRangeTask(snapshot, alpha, frame, mid, to));
+        }
+    }
+
+    private void rasterizeTile(BoardSnapshot snapshot, double alpha, int[] frame, int tile) {
+        int gridWidth = snapshot.getGridWidth();
+        int width = gridWidth * cellSize;
+        int tilesX = tilesX(snapshot);
+        int fromCellX = tile % tilesX * TILE_CELLS;
+        int fromCellY = tile / tilesX * TILE_CELLS;
+        int toCellX = Math.min(gridWidth, fromCellX + TILE_CELLS);
+        int toCellY = Math.min(snapshot.getGridHeight(), fromCellY + TILE_CELLS);
+        int left = fromCellX * cellSize;
+        int top = fromCellY * cellSize;
+        int right = toCellX * cellSize;
+        int bottom = toCellY * cellSize;
+
+        for (int row = top; row < bottom; row++) {
+            System.arraycopy(background, row * width + left, frame, row * width + left, right - left);
+        }
+        for (int cellY = fromCellY; cellY < toCellY; cellY++) {
+            for (int cellX = fromCellX; cellX < toCellX; cellX++) {
+                int sprite = snapshot.getSprite(cellY * gridWidth + cellX);
+                if (sprite >= 0) {
+                    blit(sprites[sprite], cellSize, cellX * cellSize, cellY * cellSize, frame, width, left, top, right, bottom);
+                }
+            }
+        }
+
+        // 蛇尾和蛇头跨越格子, 每个tile只画落在自己范围内的部分
+        int tailFrom = snapshot.tailFrom(alpha);
+        if (tailFrom >= 0) {
+            int tail = snapshot.getTail();
+            blit(sprites[snapshot.getSprite(tail)], cellSize, pixel(snapshot, tailFrom, tail, true, alpha),
+                    pixel(snapshot, tailFrom, tail, false, alpha), frame, width, left, top, right, bottom);
+        }
+        if (snapshot.getSnakeLength() == 0) {
+            return;
+        }
+        int head = snapshot.getHead();
+        int headFrom = snapshot.headFrom(alpha);
+        if (headFrom != head) {
+            // 蛇头还没到达, 它的格子只显示下面的东西
+            int x = head % gridWidth * cellSize;
+            int y = head / gridWidth * cellSize;
+            int fromX = Math.max(x, left);
+            int toX = Math.min(x + cellSize, right);
+            for (int row = Math.max(y, top), end = Math.min(y + cellSize, bottom); row < end && fromX < toX; row++) {
+                System.arraycopy(background, row * width + fromX, frame, row * width + fromX, toX - fromX);
+            }
+            byte under = snapshot.getState(head);
+            if (under != DirtyCells.HEAD && under != DirtyCells.EMPTY) {
+                blit(sprites[snapshot.getStateSprite(under)], cellSize, x, y, frame, width, left, top, right, bottom);
+            }
+        }
+        blit(sprites[snapshot.getStateSprite(DirtyCells.HEAD)], cellSize, pixel(snapshot, headFrom, head, true, alpha),
+                pixel(snapshot, headFrom, head, false, alpha), frame, width, left, top, right, bottom);
+    }
+
+    // Pixel a sliding sprite is drawn at, rounded as the other renderers round it
+    private int pixel(BoardSnapshot snapshot, int from, int to, boolean horizontal, double alpha) {
+        return (int) Math.round(snapshot.interpolate(from, to, horizontal, alpha) * cellSize);
+    }
+
+    // Draw a sprite with its top left corner at x, y, clipped to the tile
+    private static void blit(int[] source, int cellSize, int x, int y, int[] frame, int width,
+                             int left, int top, int right, int bottom) {
+        int fromX = Math.max(x, left);
+        int toX = Math.min(x + cellSize, right);
+        int fromY = Math.max(y, top);
+        int toY = Math.min(y + cellSize, bottom);
+        for (int row = fromY; row < toY; row++) {
+            int sourceRow = (row - y) * cellSize - x;
+            int targetRow = row * width;
+            for (int column = fromX; column < toX; column++) {
+                int pixel = source[sourceRow + column];
+                int alpha = pixel >>> 24;
+                if (alpha == 255) {
+                    frame[targetRow + column] = pixel;
+                } else if (alpha != 0) {
+                    frame[targetRow + column] = PixelBoardRenderer.blend(pixel, frame[targetRow + column], alpha);
+                }
+            }
+        }
+    }
+
+    private static int tilesX(BoardSnapshot snapshot) {
+        return (snapshot.getGridWidth() + TILE_CELLS - 1) / TILE_CELLS;
+    }
+
+    private static int tilesY(BoardSnapshot snapshot) {
+        return (snapshot.getGridHeight() + TILE_CELLS - 1) / TILE_CELLS;
+    }
+
+    /**
+     * Stop the worker threads
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    public int getWorkers() { return pool.getParallelism(); }
+}
@@ -102,7 +102,7 @@ public class SimpleSkillMenuController {
         if (conflict.hasConflict()) {
             // Handle conflict resolution
             int compensation = skillManager.resolveConflict(skill, conflict.getConflictingSkill());
-            gameState.updateScore(compensation);
+            gameState.addBonusScore(compensation);
             
             if (notificationSystem != null) {
                 notificationSystem.showSkillConflict(conflict.getMessage() + 
@@ -130,8 +130,11 @@ public class SimpleSkillMenuController {
      * Deactivate all active skills
      */
     public void deactivateAllSkills() {
+        // Live view, take from the end while removing
         List<SkillCard> activeSkills = gameState.getActiveSkills();
-        for (SkillCard skill : activeSkills) {
+        while (!activeSkills.isEmpty()) {
+            SkillCard skill = activeSkills.get(activeSkills.size() - 1);
+            gameState.removeActiveSkill(skill);
             skill.deactivate();
         }
         
@@ -169,7 +169,7 @@ public class SkillCardController implements Initializable {
         activationProgress.setManaged(showProgress);
         
         if (showProgress && skillCard.getDuration() > 0) {
-            long elapsed = System.currentTimeMillis() - skillCard.getActivationTime();
+            long elapsed = skillCard.getElapsedTime();
             double progress = 1.0 - ((double) elapsed / skillCard.getDuration());
             activationProgress.setProgress(Math.max(0, Math.min(1, progress)));
         }
@@ -229,7 +229,7 @@ public class SkillMenuController implements Initializable {
             if (conflict.hasConflict()) {
                 // Handle conflict resolution
                 int compensation = skillManager.resolveConflict(selectedSkill, conflict.getConflictingSkill());
-                gameState.updateScore(compensation);
+                gameState.addBonusScore(compensation);
 
                 if (notificationSystem != null) {
                     notificationSystem.showSkillConflict(conflict.getMessage() +
@@ -4,12 +4,16 @@ module com.example.javafx3 {
 
     requires org.kordamp.bootstrapfx.core;
     requires java.desktop;
+    requires jdk.management;
 
     opens com.example.javafx3 to javafx.fxml;
     opens com.example.javafx3.ui to javafx.fxml;
     exports com.example.javafx3;
 
+    exports com.example.javafx3.engine;
+
     exports com.example.javafx3.manager;
     exports com.example.javafx3.model;
+    exports com.example.javafx3.render;
 //    exports com.example.javafx3.ui;
 }
\ No newline at end of file